@@ -2,6 +2,19 @@ import { useState, useCallback } from 'react';
 import axios from '../api/axiosConfig';
 import Swal from 'sweetalert2';
 
+const esPagina = (data) => data && Array.isArray(data.items) && 'siguiente' in data;
+
+const leerPaginas = async (url, primera) => {
+  const items = [...primera.items];
+  let siguiente = primera.siguiente;
+  while (siguiente !== null && siguiente !== undefined) {
+    const response = await axios.get(url, { params: { after: siguiente, limit: primera.limit } });
+    items.push(...response.data.items);
+    siguiente = response.data.siguiente;
+  }
+  return items;
+};
+
 export const useFetch = (endpoint) => {
   const [data, setData] = useState(null);
   const [loading, setLoading] = useState(false);
@@ -14,7 +27,11 @@ export const useFetch = (endpoint) => {
       const url = id ? `${endpoint}/${id}` : endpoint;
       const response = await axios.get(url);
       // Maneja estructuras de respuesta { value: [...], Count: N } o array directo
-      const data = response.data?.value || response.data;
+      let data = response.data?.value || response.data;
+      // Listados paginados por cursor ({ items, siguiente, limit }): se recorren todas las páginas
+      if (!id && esPagina(data)) {
+        data = await leerPaginas(url, data);
+      }
       setData(data);
       return data;
     } catch (err) {
@@ -0,0 +1,136 @@
+package com.uteq.gateway.auth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Caché de las claves públicas de ms-auth (GET /api/auth/.well-known/jwks.json) para JwksTokenValidator.
+ * <ul>
+ *   <li>Se refresca cada refresh-interval sin bloquear: mientras tanto se sigue usando el juego anterior.</li>
+ *   <li>Un kid desconocido (rotación recién hecha) fuerza una recarga, como mucho una cada min-refresh-interval
+ *       para que tokens con kid inventado no conviertan cada petición en una llamada a ms-auth.</li>
+ *   <li>Las recargas concurrentes comparten una sola llamada.</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(name = "app.jwt.validation-mode", havingValue = "jwks")
+@Slf4j
+public class ClavesJwks {
+
+    private final WebClient webClient;
+    private final String uri;
+    private final long refrescoNanos;
+    private final long intervaloMinimoNanos;
+    private final Counter recargasOk;
+    private final Counter recargasError;
+
+    private volatile Map<String, PublicKey> claves = Map.of();
+    private volatile long cargadoEn;
+    private final AtomicReference<Mono<Map<String, PublicKey>>> enCurso = new AtomicReference<>();
+
+    public ClavesJwks(WebClient.Builder webClientBuilder,
+                      ReactorLoadBalancerExchangeFilterFunction loadBalancerFunction,
+                      MeterRegistry meterRegistry,
+                      @Value("${app.jwt.jwks.uri:http://ms-auth/api/auth/.well-known/jwks.json}") String uri,
+                      @Value("${app.jwt.jwks.refresh-interval:5m}") Duration refresco,
+                      @Value("${app.jwt.jwks.min-refresh-interval:30s}") Duration intervaloMinimo) {
+        this.webClient = webClientBuilder.filter(loadBalancerFunction).build();
+        this.uri = uri;
+        this.refrescoNanos = refresco.toNanos();
+        this.intervaloMinimoNanos = intervaloMinimo.toNanos();
+        this.recargasOk = Counter.builder("gateway.jwks.refresh").tag("outcome", "ok").register(meterRegistry);
+        this.recargasError = Counter.builder("gateway.jwks.refresh").tag("outcome", "error").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void precargar() {
+        recargar().subscribe(c -> { }, e -> log.warn("[Gateway] JWKS no disponible al arrancar: {}", e.getMessage()));
+    }
+
+    /** Vacío si el kid sigue sin publicarse tras recargar. */
+    public Mono<PublicKey> clave(String kid) {
+        PublicKey clave = claves.get(kid);
+        long edad = System.nanoTime() - cargadoEn;
+        if (clave != null) {
+            if (edad > refrescoNanos) {
+                recargar().subscribe(c -> { }, e -> log.warn("[Gateway] No se pudo refrescar el JWKS: {}", e.getMessage()));
+            }
+            return Mono.just(clave);
+        }
+        if (cargadoEn != 0 && edad < intervaloMinimoNanos) {
+            return Mono.empty();
+        }
+        return recargar().mapNotNull(actuales -> actuales.get(kid));
+    }
+
+    /** Lectura síncrona para el SigningKeyResolver, una vez que clave(kid) la ha asegurado. */
+    public PublicKey actual(String kid) {
+        return kid != null ? claves.get(kid) : null;
+    }
+
+    private Mono<Map<String, PublicKey>> recargar() {
+        Mono<Map<String, PublicKey>> existente = enCurso.get();
+        if (existente != null) {
+            return existente;
+        }
+        Mono<Map<String, PublicKey>> nueva = webClient.get()
+                .uri(uri)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .map(ClavesJwks::leer)
+                .doOnNext(leidas -> {
+                    claves = leidas;
+                    cargadoEn = System.nanoTime();
+                    recargasOk.increment();
+                    log.debug("[Gateway] JWKS cargado: {}", leidas.keySet());
+                })
+                .doOnError(e -> recargasError.increment())
+                .doFinally(senal -> enCurso.set(null))
+                .cache();
+        return enCurso.compareAndSet(null, nueva) ? nueva : recargar();
+    }
+
+    /** Sólo claves RSA de firma RS256; el resto se ignora. */
+    static Map<String, PublicKey> leer(JsonNode jwks) {
+        Map<String, PublicKey> leidas = new HashMap<>();
+        Base64.Decoder base64url = Base64.getUrlDecoder();
+        for (JsonNode jwk : jwks.path("keys")) {
+            if (!"RSA".equals(jwk.path("kty").asText()) || !jwk.hasNonNull("kid")
+                    || (jwk.has("alg") && !"RS256".equals(jwk.path("alg").asText()))) {
+                continue;
+            }
+            try {
+                BigInteger modulo = new BigInteger(1, base64url.decode(jwk.path("n").asText()));
+                BigInteger exponente = new BigInteger(1, base64url.decode(jwk.path("e").asText()));
+                leidas.put(jwk.path("kid").asText(),
+                        KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(modulo, exponente)));
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                log.warn("[Gateway] JWK {} ignorada: {}", jwk.path("kid").asText(), e.getMessage());
+            }
+        }
+        return Map.copyOf(leidas);
+    }
+}
@@ -0,0 +1,54 @@
+package com.uteq.gateway.auth;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Instant;
+
+/**
+ * Identidad resuelta a partir de un access token válido.
+ * Es lo que el gateway propaga a los microservicios como X-User-Id / X-User-Email / X-User-Role
+ * y, si el token trae claims de perfil, X-User-Division-Id / X-User-Programa-Id / X-User-Perfil-Version.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class IdentidadUsuario {
+
+    /** Atributo del exchange donde JwtAuthenticationFilter deja la identidad validada. */
+    public static final String ATRIBUTO = IdentidadUsuario.class.getName();
+
+    private final Long usuarioId;
+    private final String correoMatricula;
+    private final String rolNombre;
+    /** Expiración del token; puede ser null si el validador no la conoce. */
+    private final Instant expiraEn;
+    /** Claims de perfil (null si el token no los trae). */
+    private final Long divisionId;
+    private final Long programaId;
+    private final Long versionPerfil;
+
+    public static final String CABECERA_DIVISION = "X-User-Division-Id";
+    public static final String CABECERA_PROGRAMA = "X-User-Programa-Id";
+    public static final String CABECERA_VERSION_PERFIL = "X-User-Perfil-Version";
+
+    /**
+     * Cabeceras de perfil hacia los microservicios. Sin claim se quitan: el cliente no puede
+     * mandarlas por su cuenta y hacerlas pasar por datos del token.
+     */
+    public void cabecerasPerfil(HttpHeaders headers) {
+        poner(headers, CABECERA_DIVISION, divisionId);
+        poner(headers, CABECERA_PROGRAMA, programaId);
+        poner(headers, CABECERA_VERSION_PERFIL, programaId != null ? versionPerfil : null);
+    }
+
+    private static void poner(HttpHeaders headers, String nombre, Long valor) {
+        if (valor != null) {
+            headers.set(nombre, String.valueOf(valor));
+        } else {
+            headers.remove(nombre);
+        }
+    }
+}
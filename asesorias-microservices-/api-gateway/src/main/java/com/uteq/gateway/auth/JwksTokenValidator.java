@@ -0,0 +1,88 @@
+package com.uteq.gateway.auth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.security.Key;
+import java.util.Base64;
+
+/**
+ * Verifica en el gateway tokens RS256 de ms-auth contra su JWKS (app.jwt.validation-mode=jwks):
+ * sin secreto compartido y sin llamar a ms-auth por petición, sólo al recargar las claves (ClavesJwks).
+ */
+@Component
+@ConditionalOnProperty(name = "app.jwt.validation-mode", havingValue = "jwks")
+@Slf4j
+public class JwksTokenValidator implements TokenValidator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ClavesJwks clavesJwks;
+    private final JwtParser parser;
+
+    public JwksTokenValidator(ClavesJwks clavesJwks) {
+        this.clavesJwks = clavesJwks;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        // Sólo RS256: un token HS* firmado con la clave pública como secreto no pasa
+                        if (!SignatureAlgorithm.RS256.getValue().equals(header.getAlgorithm())) {
+                            throw new TokenInvalidoException("Token inválido o expirado");
+                        }
+                        Key clave = clavesJwks.actual(header.getKeyId());
+                        if (clave == null) {
+                            throw new TokenInvalidoException("Token inválido o expirado");
+                        }
+                        return clave;
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public Mono<IdentidadUsuario> validar(String token) {
+        return Mono.defer(() -> clavesJwks.clave(kid(token)))
+                .switchIfEmpty(Mono.error(() -> new TokenInvalidoException("Token inválido o expirado")))
+                .map(clave -> verificar(token));
+    }
+
+    private IdentidadUsuario verificar(String token) {
+        try {
+            return LocalTokenValidator.identidad(parser.parseClaimsJws(token).getBody());
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("[Gateway] JWT rechazado (JWKS): {}", e.getMessage());
+            throw new TokenInvalidoException("Token inválido o expirado");
+        }
+    }
+
+    /** kid de la cabecera, sin verificar todavía: sólo sirve para elegir (y si hace falta cargar) la clave. */
+    private static String kid(String token) {
+        int punto = token.indexOf('.');
+        if (punto <= 0) {
+            throw new TokenInvalidoException("Token inválido o expirado");
+        }
+        try {
+            JsonNode cabecera = MAPPER.readTree(Base64.getUrlDecoder().decode(token.substring(0, punto)));
+            if (!cabecera.hasNonNull("kid")) {
+                throw new TokenInvalidoException("Token inválido o expirado");
+            }
+            return cabecera.get("kid").asText();
+        } catch (TokenInvalidoException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new TokenInvalidoException("Token inválido o expirado");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.uteq.gateway.auth;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Verifica en el propio gateway los tokens HS512 emitidos por ms-auth (JwtServiceImpl):
+ * firma, expiración y claim "type". Evita el salto de red a /api/auth/validate por petición.
+ * Requiere que app.jwt.secret coincida con el de ms-auth.
+ */
+@Component
+@ConditionalOnProperty(name = "app.jwt.validation-mode", havingValue = "local", matchIfMissing = true)
+@Slf4j
+public class LocalTokenValidator implements TokenValidator {
+
+    // El parser de jjwt es inmutable y thread-safe: se construye una sola vez
+    private final JwtParser parser;
+
+    public LocalTokenValidator(@Value("${app.jwt.secret}") String jwtSecret) {
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(jwtSecret.getBytes()))
+                .build();
+    }
+
+    @Override
+    public Mono<IdentidadUsuario> validar(String token) {
+        return Mono.fromCallable(() -> verificar(token));
+    }
+
+    IdentidadUsuario verificar(String token) {
+        Jws<Claims> jws;
+        try {
+            jws = parser.parseClaimsJws(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("[Gateway] JWT rechazado localmente: {}", e.getMessage());
+            throw new TokenInvalidoException("Token inválido o expirado");
+        }
+        // ms-auth sólo firma con HS512; no aceptar otros HMAC con la misma clave
+        if (!SignatureAlgorithm.HS512.getValue().equals(jws.getHeader().getAlgorithm())) {
+            throw new TokenInvalidoException("Token inválido o expirado");
+        }
+        return identidad(jws.getBody());
+    }
+
+    /** Claims de un access token de ms-auth -> identidad; común a los validadores locales (HS512 y JWKS). */
+    static IdentidadUsuario identidad(Claims claims) {
+        // Mismo criterio que AuthServiceImpl.validarToken: los refresh tokens no autorizan peticiones
+        Object typeClaim = claims.get("type");
+        if (typeClaim != null && "refresh".equalsIgnoreCase(String.valueOf(typeClaim))) {
+            throw new TokenInvalidoException("Token inválido o expirado");
+        }
+        Long usuarioId;
+        try {
+            usuarioId = Long.parseLong(claims.getSubject());
+        } catch (NumberFormatException e) {
+            throw new TokenInvalidoException("Token inválido o expirado");
+        }
+        return new IdentidadUsuario(
+                usuarioId,
+                claims.get("correoMatricula", String.class),
+                claims.get("rol", String.class),
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                claimLong(claims, "divisionId"),
+                claimLong(claims, "programaId"),
+                claimLong(claims, "pv")
+        );
+    }
+
+    private static Long claimLong(Claims claims, String nombre) {
+        Object valor = claims.get(nombre);
+        return valor instanceof Number numero ? numero.longValue() : null;
+    }
+}
@@ -0,0 +1,90 @@
+package com.uteq.gateway.auth;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Modo de respaldo: delega la validación en ms-auth (POST /api/auth/validate).
+ * Se activa con app.jwt.validation-mode=remote. Usa el cliente compartido y balanceado de
+ * MsAuthClientConfig; con el circuito abierto o el bulkhead lleno falla al instante sin reintentar.
+ * Sólo se reintenta una vez un fallo de conexión; un 5xx o un timeout de ms-auth no se repiten.
+ */
+@Component
+@ConditionalOnProperty(name = "app.jwt.validation-mode", havingValue = "remote")
+public class RemoteTokenValidator implements TokenValidator {
+
+    private final WebClient msAuthWebClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final String validatePath;
+
+    public RemoteTokenValidator(@Qualifier("msAuthWebClient") WebClient msAuthWebClient,
+                                @Qualifier("msAuthCircuitBreaker") CircuitBreaker circuitBreaker,
+                                @Qualifier("msAuthBulkhead") Bulkhead bulkhead,
+                                @Value("${app.jwt.validate-path:/api/auth/validate}") String validatePath) {
+        this.msAuthWebClient = msAuthWebClient;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.validatePath = validatePath;
+    }
+
+    @Override
+    public Mono<IdentidadUsuario> validar(String token) {
+        return msAuthWebClient
+                .post()
+                .uri(validatePath)
+                .bodyValue(Map.of("token", token))
+                .retrieve()
+                // 4xx/5xx como WebClientResponseException (status y cuerpo), sin reintento: ms-auth ya respondió
+                .onStatus(HttpStatusCode::isError, ClientResponse::createException)
+                .bodyToMono(Map.class)
+                // Un solo reintento y sólo si no llegó a conectar (otra instancia vía balanceador); dentro del
+                // timeout y del circuito, así una validación nunca pasa de 3 s ni cuenta dos veces en el breaker
+                .retryWhen(Retry.max(1).filter(RemoteTokenValidator::esFalloDeConexion))
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .timeout(Duration.ofSeconds(3))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .flatMap(response -> {
+                    if (response != null && (Boolean) response.getOrDefault("valid", false)) {
+                        Object uid = response.get("usuarioId");
+                        Object email = response.get("correoMatricula");
+                        Object role = response.get("rolNombre");
+                        return Mono.just(new IdentidadUsuario(
+                                uid != null ? Long.valueOf(String.valueOf(uid)) : null,
+                                email != null ? String.valueOf(email) : null,
+                                role != null ? String.valueOf(role) : null,
+                                null,
+                                comoLong(response.get("divisionId")),
+                                comoLong(response.get("programaId")),
+                                comoLong(response.get("versionPerfil"))
+                        ));
+                    }
+                    return Mono.error(new TokenInvalidoException("Token inválido o expirado"));
+                });
+    }
+
+    private static Long comoLong(Object valor) {
+        return valor instanceof Number numero ? numero.longValue() : null;
+    }
+
+    // Conexión rechazada o sin establecer (io.netty.channel.ConnectTimeoutException extiende ConnectException)
+    private static boolean esFalloDeConexion(Throwable e) {
+        return e instanceof WebClientRequestException && e.getCause() instanceof ConnectException;
+    }
+}
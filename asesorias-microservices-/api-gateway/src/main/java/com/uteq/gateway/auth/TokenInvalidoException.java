@@ -0,0 +1,11 @@
+package com.uteq.gateway.auth;
+
+/**
+ * El token fue rechazado (firma, expiración, tipo...). A diferencia de un error de red
+ * contra ms-auth, reintentar con el mismo token no cambia el resultado.
+ */
+public class TokenInvalidoException extends RuntimeException {
+    public TokenInvalidoException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,202 @@
+package com.uteq.gateway.auth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Caché de tokens ya validados delante del TokenValidator activo (local o remoto).
+ * <ul>
+ *   <li>Clave: SHA-256 del token (no se guardan tokens en claro).</li>
+ *   <li>Aciertos: la identidad resuelta, con TTL = min(exp del token, max-ttl).</li>
+ *   <li>Rechazos (TokenInvalidoException): caché negativa con negative-ttl. Los errores de red no se cachean.</li>
+ *   <li>Tamaño acotado con desalojo W-TinyLFU (Caffeine); métricas en gateway.token.cache.*</li>
+ *   <li>Single-flight: validaciones concurrentes del mismo token comparten un único Mono
+ *       (timeout, reintentos y error incluidos), así una ráfaga de la SPA produce una sola validación.</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class TokenValidationCache {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final TokenValidator tokenValidator;
+    private final Cache<String, ResultadoCacheado> cache;
+    private final boolean habilitado;
+    private final Duration ttlMaximo;
+    private final Duration ttlNegativo;
+    private final ConcurrentMap<String, Mono<IdentidadUsuario>> enVuelo = new ConcurrentHashMap<>();
+    private final Counter coalescidas;
+
+    public TokenValidationCache(TokenValidator tokenValidator,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.jwt.cache.enabled:true}") boolean habilitado,
+                                @Value("${app.jwt.cache.max-size:10000}") long tamanoMaximo,
+                                @Value("${app.jwt.cache.max-ttl:5m}") Duration ttlMaximo,
+                                @Value("${app.jwt.cache.negative-ttl:10s}") Duration ttlNegativo) {
+        this.tokenValidator = tokenValidator;
+        this.habilitado = habilitado;
+        this.ttlMaximo = ttlMaximo;
+        this.ttlNegativo = ttlNegativo;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfter(new ExpiraSegunResultado())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.token.cache");
+        this.coalescidas = Counter.builder("gateway.token.validation.coalesced")
+                .description("Peticiones que esperaron una validación ya en curso del mismo token")
+                .register(meterRegistry);
+    }
+
+    public Mono<IdentidadUsuario> validar(String token) {
+        String clave = hash(token);
+        Mono<IdentidadUsuario> cacheado = desdeCache(clave);
+        if (cacheado != null) {
+            return cacheado;
+        }
+        return Mono.defer(() -> {
+            Mono<IdentidadUsuario> vuelo = enVuelo.get(clave);
+            if (vuelo != null) {
+                coalescidas.increment();
+                return vuelo;
+            }
+            // Un vuelo guarda su resultado antes de salir del mapa, y computeIfAbsent es atómico con esa salida:
+            // si al crear el nuestro ya está en caché, el vuelo anterior acaba de terminar y no se valida otra vez
+            AtomicReference<Mono<IdentidadUsuario>> resuelto = new AtomicReference<>();
+            Mono<IdentidadUsuario> propio = enVuelo.computeIfAbsent(clave, k -> {
+                resuelto.set(desdeCache(k));
+                return resuelto.get() == null ? crearVuelo(k, token) : null;
+            });
+            return propio != null ? propio : resuelto.get();
+        });
+    }
+
+    private Mono<IdentidadUsuario> desdeCache(String clave) {
+        if (!habilitado) {
+            return null;
+        }
+        ResultadoCacheado cacheado = cache.getIfPresent(clave);
+        if (cacheado == null) {
+            return null;
+        }
+        if (Instant.now().isBefore(cacheado.validoHasta)) {
+            return cacheado.identidad != null
+                    ? Mono.just(cacheado.identidad)
+                    : Mono.error(new TokenInvalidoException(cacheado.motivoRechazo));
+        }
+        // Nunca servir una identidad caducada aunque el desalojo aún no haya pasado
+        cache.invalidate(clave);
+        return null;
+    }
+
+    /**
+     * Validación compartida por todos los que piden el mismo token mientras está en curso.
+     * cache() reenvía el mismo resultado (o error) a cada suscriptor; al terminar se retira del mapa.
+     */
+    private Mono<IdentidadUsuario> crearVuelo(String clave, String token) {
+        AtomicReference<Mono<IdentidadUsuario>> propio = new AtomicReference<>();
+        Mono<IdentidadUsuario> vuelo = tokenValidator.validar(token)
+                .doOnNext(identidad -> {
+                    Instant validoHasta = calcularValidoHasta(identidad, token);
+                    if (habilitado && validoHasta.isAfter(Instant.now())) {
+                        cache.put(clave, new ResultadoCacheado(identidad, null, validoHasta));
+                    }
+                })
+                .doOnError(TokenInvalidoException.class, e -> {
+                    if (habilitado) {
+                        cache.put(clave, new ResultadoCacheado(null, e.getMessage(), Instant.now().plus(ttlNegativo)));
+                    }
+                })
+                .doFinally(senal -> enVuelo.remove(clave, propio.get()))
+                .cache();
+        propio.set(vuelo);
+        return vuelo;
+    }
+
+    private Instant calcularValidoHasta(IdentidadUsuario identidad, String token) {
+        Instant tope = Instant.now().plus(ttlMaximo);
+        Instant exp = identidad.getExpiraEn() != null ? identidad.getExpiraEn() : leerExpiracion(token);
+        if (exp == null) {
+            return tope;
+        }
+        return exp.isBefore(tope) ? exp : tope;
+    }
+
+    /**
+     * Lee el claim exp sin verificar la firma. Sólo se usa para acotar el TTL de un token
+     * que el validador ya aceptó (p. ej. en modo remoto, donde /validate no devuelve exp).
+     */
+    private Instant leerExpiracion(String token) {
+        try {
+            String[] partes = token.split("\\.");
+            if (partes.length < 2) return null;
+            JsonNode payload = MAPPER.readTree(Base64.getUrlDecoder().decode(partes[1]));
+            JsonNode exp = payload.get("exp");
+            return exp != null && exp.canConvertToLong() ? Instant.ofEpochSecond(exp.asLong()) : null;
+        } catch (Exception e) {
+            log.debug("[Gateway] No se pudo leer exp del token: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static final class ResultadoCacheado {
+        private final IdentidadUsuario identidad;
+        private final String motivoRechazo;
+        private final Instant validoHasta;
+
+        private ResultadoCacheado(IdentidadUsuario identidad, String motivoRechazo, Instant validoHasta) {
+            this.identidad = identidad;
+            this.motivoRechazo = motivoRechazo;
+            this.validoHasta = validoHasta;
+        }
+    }
+
+    /** Cada entrada caduca en su propio validoHasta (exp del token o TTL negativo). */
+    private static final class ExpiraSegunResultado implements Expiry<String, ResultadoCacheado> {
+        @Override
+        public long expireAfterCreate(String clave, ResultadoCacheado valor, long tiempoActual) {
+            long nanos = Duration.between(Instant.now(), valor.validoHasta).toNanos();
+            return Math.max(nanos, 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(String clave, ResultadoCacheado valor, long tiempoActual, long duracionActual) {
+            return expireAfterCreate(clave, valor, tiempoActual);
+        }
+
+        @Override
+        public long expireAfterRead(String clave, ResultadoCacheado valor, long tiempoActual, long duracionActual) {
+            return duracionActual;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.uteq.gateway.auth;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Estrategia de validación de access tokens usada por JwtAuthenticationFilter.
+ * Se selecciona con app.jwt.validation-mode (local | remote | jwks).
+ */
+public interface TokenValidator {
+
+    /**
+     * Emite la identidad del token, o falla con TokenInvalidoException si el token es rechazado.
+     * Cualquier otro error indica un fallo al validar (p. ej. ms-auth no disponible).
+     */
+    Mono<IdentidadUsuario> validar(String token);
+}
@@ -0,0 +1,172 @@
+package com.uteq.gateway.bff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.uteq.gateway.auth.IdentidadUsuario;
+import com.uteq.gateway.filter.DeadlineFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Dashboards precompuestos para la SPA: una llamada del navegador, varias en paralelo hacia los microservicios.
+ * <ul>
+ *   <li>Cada parte tiene su timeout; si falla o vence, el documento sale igual con esa parte a null,
+ *       "parcial": true y el motivo en "errores".</li>
+ *   <li>Micro-caché por usuario (y single-flight: Caffeine AsyncCache comparte la composición en curso),
+ *       para absorber recargas en ráfaga. Los documentos parciales caducan antes.</li>
+ *   <li>Como la composición es compartida, sus partes usan su propio part-timeout y no el plazo de quien la
+ *       lanzó; cada petición espera el documento sólo hasta su X-Request-Deadline (si vence, TimeoutException).</li>
+ * </ul>
+ */
+@Service
+@Slf4j
+public class DashboardService {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Set<String> PARTES_CATALOGO = Set.of("divisiones", "programas");
+
+    private final WebClient bffWebClient;
+    private final Duration timeoutParte;
+    private final AsyncCache<String, ObjectNode> cache;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> fallosPorParte = new ConcurrentHashMap<>();
+
+    public DashboardService(@Qualifier("bffWebClient") WebClient bffWebClient,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.bff.part-timeout:2s}") Duration timeoutParte,
+                            @Value("${app.bff.cache.ttl:5s}") Duration ttl,
+                            @Value("${app.bff.cache.partial-ttl:1s}") Duration ttlParcial,
+                            @Value("${app.bff.cache.max-size:10000}") long tamanoMaximo) {
+        this.bffWebClient = bffWebClient;
+        this.meterRegistry = meterRegistry;
+        this.timeoutParte = timeoutParte;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfter(new Expiry<String, ObjectNode>() {
+                    @Override
+                    public long expireAfterCreate(String clave, ObjectNode documento, long ahora) {
+                        return (documento.path("parcial").asBoolean() ? ttlParcial : ttl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String clave, ObjectNode documento, long ahora, long restante) {
+                        return expireAfterCreate(clave, documento, ahora);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String clave, ObjectNode documento, long ahora, long restante) {
+                        return restante;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "gateway.bff.cache");
+    }
+
+    public Mono<ObjectNode> dashboardAlumno(IdentidadUsuario identidad, long plazo) {
+        Long id = identidad.getUsuarioId();
+        return cacheado("alumno:" + id, plazo, () -> componer(identidad, Map.of(
+                "perfil", "http://ms-alumnos/api/alumnos/" + id + "/perfil",
+                "asesorias", "http://ms-asesorias/api/asesorias/alumno/" + id,
+                "divisiones", "http://ms-divisiones/api/divisiones",
+                "programas", "http://ms-divisiones/api/programas")));
+    }
+
+    public Mono<ObjectNode> dashboardProfesor(IdentidadUsuario identidad, long plazo) {
+        Long id = identidad.getUsuarioId();
+        return cacheado("profesor:" + id, plazo, () -> componer(identidad, Map.of(
+                "perfil", "http://ms-profesores/api/profesores/" + id + "/perfil",
+                "asesorias", "http://ms-asesorias/api/asesorias/profesor/" + id,
+                "disponibilidades", "http://ms-asesorias/api/disponibilidades/profesor/" + id,
+                "divisiones", "http://ms-divisiones/api/divisiones",
+                "programas", "http://ms-divisiones/api/programas")));
+    }
+
+    private Mono<ObjectNode> cacheado(String clave, long plazo, Supplier<Mono<ObjectNode>> composicion) {
+        // suppressCancel: si esta petición deja de esperar, la composición sigue para las demás y para la caché
+        Mono<ObjectNode> documento = Mono.fromFuture(() -> cache.get(clave, (k, executor) -> composicion.get().toFuture()), true);
+        if (plazo != Long.MAX_VALUE) {
+            documento = documento.timeout(DeadlineFilter.restante(plazo));
+        }
+        // Copia: el documento cacheado lo comparten varias respuestas
+        return documento.map(ObjectNode::deepCopy);
+    }
+
+    /** Lanza todas las partes a la vez y arma el documento con lo que llegue a tiempo. */
+    private Mono<ObjectNode> componer(IdentidadUsuario identidad, Map<String, String> partes) {
+        Map<String, String> errores = new ConcurrentHashMap<>();
+        return Flux.fromIterable(partes.entrySet())
+                .flatMap(p -> parte(identidad, p.getKey(), p.getValue(), errores).map(valor -> Map.entry(p.getKey(), valor)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .map(resultados -> {
+                    ObjectNode documento = MAPPER.createObjectNode();
+                    documento.put("usuarioId", identidad.getUsuarioId());
+                    documento.put("rol", identidad.getRolNombre());
+                    ObjectNode catalogo = documento.putObject("catalogo");
+                    resultados.forEach((nombre, valor) -> {
+                        if (PARTES_CATALOGO.contains(nombre)) {
+                            catalogo.set(nombre, valor);
+                        } else {
+                            documento.set(nombre, valor);
+                        }
+                    });
+                    documento.put("parcial", !errores.isEmpty());
+                    documento.set("errores", MAPPER.valueToTree(errores));
+                    return documento;
+                });
+    }
+
+    /** Nunca falla: un error o timeout deja la parte a null y anota el motivo. */
+    private Mono<JsonNode> parte(IdentidadUsuario identidad, String nombre, String url, Map<String, String> errores) {
+        return bffWebClient.get()
+                .uri(url)
+                .accept(MediaType.APPLICATION_JSON)
+                .headers(h -> {
+                    cabecerasIdentidad(h, identidad);
+                    // Presupuesto propio de la composición compartida (ver cacheado)
+                    h.set(DeadlineFilter.CABECERA_DEADLINE, String.valueOf(System.currentTimeMillis() + timeoutParte.toMillis()));
+                })
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .defaultIfEmpty(NullNode.getInstance())
+                .timeout(timeoutParte)
+                .onErrorResume(e -> {
+                    log.warn("[Gateway] BFF parte={} usuario={} falló: {}", nombre, identidad.getUsuarioId(), e.toString());
+                    fallosPorParte.computeIfAbsent(nombre, n -> Counter.builder("gateway.bff.part.failures")
+                            .tag("part", n)
+                            .register(meterRegistry)).increment();
+                    errores.put(nombre, e instanceof TimeoutException ? "Tiempo agotado" : "No disponible");
+                    return Mono.just(NullNode.getInstance());
+                });
+    }
+
+    /** Las mismas cabeceras que JwtAuthenticationFilter añade en las rutas normales. */
+    private static void cabecerasIdentidad(HttpHeaders headers, IdentidadUsuario identidad) {
+        headers.set("X-User-Id", String.valueOf(identidad.getUsuarioId()));
+        headers.set("X-User-Email", identidad.getCorreoMatricula() != null ? identidad.getCorreoMatricula() : "");
+        headers.set("X-User-Role", identidad.getRolNombre() != null ? identidad.getRolNombre() : "");
+        identidad.cabecerasPerfil(headers);
+    }
+}
@@ -0,0 +1,132 @@
+package com.uteq.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Almacén en memoria de respuestas GET de catálogos (usado por ResponseCacheFilter).
+ * <ul>
+ *   <li>Cuerpos guardados ya comprimidos (gzip) con su ETag; acotado en bytes y con TTL.</li>
+ *   <li>Invalidación por grupo (el patrón de ruta configurado). Cada grupo lleva una generación:
+ *       una respuesta que empezó antes de una escritura no se guarda si la generación cambió entre medias.</li>
+ * </ul>
+ */
+@Component
+public class CacheRespuestas {
+
+    /** Por debajo de este tamaño gzip no compensa: se guarda tal cual. */
+    private static final int TAMANO_MINIMO_GZIP = 256;
+
+    private final Cache<Clave, Entrada> cache;
+    private final Map<String, AtomicLong> generaciones = new ConcurrentHashMap<>();
+    private final long tamanoMaximoEntrada;
+
+    public CacheRespuestas(MeterRegistry meterRegistry,
+                           @Value("${app.response-cache.ttl:10m}") Duration ttl,
+                           @Value("${app.response-cache.max-size:32MB}") DataSize tamanoMaximo,
+                           @Value("${app.response-cache.max-entry-size:1MB}") DataSize tamanoMaximoEntrada) {
+        this.tamanoMaximoEntrada = tamanoMaximoEntrada.toBytes();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(tamanoMaximo.toBytes())
+                .weigher((Clave clave, Entrada entrada) -> entrada.cuerpo().length + 256)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.response.cache");
+    }
+
+    public Entrada buscar(Clave clave) {
+        return cache.getIfPresent(clave);
+    }
+
+    public long generacion(String grupo) {
+        return contador(grupo).get();
+    }
+
+    /**
+     * Guarda la respuesta si el grupo no se invalidó desde {@code generacionInicial}.
+     * Devuelve la entrada (aunque no se haya guardado) para poder responder con su ETag, o null si es demasiado grande.
+     */
+    public Entrada guardar(Clave clave, String contentType, byte[] cuerpo, long generacionInicial) {
+        if (cuerpo.length > tamanoMaximoEntrada) {
+            return null;
+        }
+        boolean comprimir = cuerpo.length >= TAMANO_MINIMO_GZIP;
+        Entrada entrada = new Entrada(contentType, etag(cuerpo), comprimir ? gzip(cuerpo) : cuerpo, comprimir);
+        if (generacion(clave.grupo()) == generacionInicial) {
+            cache.put(clave, entrada);
+        }
+        return entrada;
+    }
+
+    public void invalidarGrupo(String grupo) {
+        contador(grupo).incrementAndGet();
+        cache.asMap().keySet().removeIf(clave -> clave.grupo().equals(grupo));
+    }
+
+    private AtomicLong contador(String grupo) {
+        return generaciones.computeIfAbsent(grupo, g -> new AtomicLong());
+    }
+
+    private static String etag(byte[] cuerpo) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(cuerpo);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] datos) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(datos.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(salida)) {
+            gz.write(datos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return salida.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] datos) {
+        try (GZIPInputStream gz = new GZIPInputStream(new ByteArrayInputStream(datos))) {
+            return gz.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** grupo = patrón configurado que cubre la ruta; rol porque el contenido puede variar según el rol. */
+    public record Clave(String grupo, String ruta, String query, String rol) {
+    }
+
+    /** Respuesta pendiente de guardar: clave y generación del grupo al empezar la petición. */
+    public record Captura(Clave clave, long generacion) {
+    }
+
+    public record Entrada(String contentType, String etag, byte[] cuerpo, boolean comprimido) {
+
+        /** Cuerpo original, para clientes que no aceptan gzip. */
+        public byte[] cuerpoPlano() {
+            return comprimido ? gunzip(cuerpo) : cuerpo;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.uteq.gateway.capture;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fichero local de captura de tráfico (NDJSON, una petición por línea) con rotación por tamaño:
+ * captura.ndjson, captura.ndjson.1 ... captura.ndjson.N (el .N más antiguo se descarta).
+ * Escribe un hilo propio desde una cola acotada: nunca bloquea el event loop; si la cola se llena
+ * el evento se pierde (gateway.capture.events{outcome=dropped}).
+ */
+@Component
+@Slf4j
+public class RegistroCaptura {
+
+    private final Path fichero;
+    private final long tamanoMaximo;
+    private final int ficherosMaximos;
+    private final BlockingQueue<String> cola;
+    private final Counter escritos;
+    private final Counter descartados;
+    private volatile boolean activo = true;
+    private volatile Thread escritor;
+
+    public RegistroCaptura(MeterRegistry meterRegistry,
+                           @Value("${app.traffic-capture.file:captura/captura.ndjson}") String fichero,
+                           @Value("${app.traffic-capture.max-file-size:50MB}") DataSize tamanoMaximo,
+                           @Value("${app.traffic-capture.max-files:5}") int ficherosMaximos,
+                           @Value("${app.traffic-capture.queue-size:10000}") int tamanoCola) {
+        this.fichero = Path.of(fichero);
+        this.tamanoMaximo = tamanoMaximo.toBytes();
+        this.ficherosMaximos = Math.max(1, ficherosMaximos);
+        this.cola = new ArrayBlockingQueue<>(tamanoCola);
+        this.escritos = Counter.builder("gateway.capture.events").tag("outcome", "written").register(meterRegistry);
+        this.descartados = Counter.builder("gateway.capture.events").tag("outcome", "dropped").register(meterRegistry);
+    }
+
+    /** No bloquea. El hilo escritor se arranca con el primer evento (la captura es opcional). */
+    public void registrar(String linea) {
+        if (escritor == null) {
+            arrancar();
+        }
+        if (cola.offer(linea)) {
+            return;
+        }
+        descartados.increment();
+    }
+
+    private synchronized void arrancar() {
+        if (escritor != null) {
+            return;
+        }
+        escritor = new Thread(this::bucle, "gateway-capture-writer");
+        escritor.setDaemon(true);
+        escritor.start();
+        log.info("[Gateway] Captura de tráfico activa en {}", fichero.toAbsolutePath());
+    }
+
+    private void bucle() {
+        BufferedWriter salida = null;
+        try {
+            if (fichero.getParent() != null) {
+                Files.createDirectories(fichero.getParent());
+            }
+            salida = abrir();
+            long tamano = Files.size(fichero);
+            while (activo || !cola.isEmpty()) {
+                String linea = cola.poll(500, TimeUnit.MILLISECONDS);
+                if (linea == null) {
+                    salida.flush();
+                    continue;
+                }
+                byte[] bytes = (linea + "\n").getBytes(StandardCharsets.UTF_8);
+                if (tamano > 0 && tamano + bytes.length > tamanoMaximo) {
+                    salida.close();
+                    rotar();
+                    salida = abrir();
+                    tamano = 0;
+                }
+                salida.write(linea);
+                salida.write('\n');
+                tamano += bytes.length;
+                escritos.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("[Gateway] Captura de tráfico detenida: {}", e.getMessage());
+        } finally {
+            if (salida != null) {
+                try {
+                    salida.close();
+                } catch (IOException e) {
+                    log.warn("[Gateway] No se pudo cerrar {}: {}", fichero, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private BufferedWriter abrir() throws IOException {
+        return Files.newBufferedWriter(fichero, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private void rotar() throws IOException {
+        for (int i = ficherosMaximos - 1; i >= 1; i--) {
+            Path origen = Path.of(fichero + "." + i);
+            if (Files.exists(origen)) {
+                Files.move(origen, Path.of(fichero + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(fichero, Path.of(fichero + ".1"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        activo = false;
+        if (escritor != null) {
+            escritor.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.uteq.gateway.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Cliente de los endpoints BFF (/api/bff/**) hacia los microservicios: http://ms-* resuelto por Eureka
+ * con el mismo balanceador que las rutas lb://, y pool propio para no competir con ms-auth.
+ */
+@Configuration
+public class BffClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider bffConnectionProvider(
+            @Value("${app.bff.client.max-connections:100}") int maxConexiones,
+            @Value("${app.bff.client.pending-acquire-timeout:500ms}") Duration timeoutAdquisicion,
+            @Value("${app.bff.client.max-idle-time:30s}") Duration maxInactividad) {
+        return ConnectionProvider.builder("bff")
+                .maxConnections(maxConexiones)
+                .pendingAcquireTimeout(timeoutAdquisicion)
+                .maxIdleTime(maxInactividad)
+                .evictInBackground(Duration.ofSeconds(30))
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient bffWebClient(@Qualifier("bffConnectionProvider") ConnectionProvider connectionProvider,
+                                  ReactorLoadBalancerExchangeFilterFunction loadBalancerFunction,
+                                  @Value("${app.bff.client.connect-timeout:1s}") Duration timeoutConexion) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .keepAlive(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) timeoutConexion.toMillis());
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(loadBalancerFunction)
+                .build();
+    }
+}
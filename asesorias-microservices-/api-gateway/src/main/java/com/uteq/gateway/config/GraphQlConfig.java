@@ -0,0 +1,35 @@
+package com.uteq.gateway.config;
+
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLTypeUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Límites de /api/graphql: profundidad máxima y complejidad, donde un campo lista multiplica
+ * el coste de sus hijos por list-factor (un listado anidado en otro listado es lo caro).
+ * Spring Boot registra solas las Instrumentation declaradas como bean. El tiempo por campo lo publica
+ * la observación de Spring GraphQL (métricas graphql.request / graphql.datafetcher / graphql.dataloader).
+ */
+@Configuration
+public class GraphQlConfig {
+
+    @Bean
+    public MaxQueryDepthInstrumentation maxQueryDepthInstrumentation(
+            @Value("${app.graphql.max-depth:6}") int profundidadMaxima) {
+        return new MaxQueryDepthInstrumentation(profundidadMaxima);
+    }
+
+    @Bean
+    public MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation(
+            @Value("${app.graphql.max-complexity:1000}") int complejidadMaxima,
+            @Value("${app.graphql.list-factor:10}") int factorLista) {
+        return new MaxQueryComplexityInstrumentation(complejidadMaxima, (entorno, complejidadHijos) -> {
+            boolean esLista = GraphQLTypeUtil.unwrapNonNull(entorno.getFieldDefinition().getType()) instanceof GraphQLList;
+            return esLista ? 1 + Math.max(1, complejidadHijos) * factorLista : 1 + complejidadHijos;
+        });
+    }
+}
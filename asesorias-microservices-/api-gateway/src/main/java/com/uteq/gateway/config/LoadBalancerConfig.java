@@ -0,0 +1,13 @@
+package com.uteq.gateway.config;
+
+import com.uteq.gateway.loadbalancer.LatencyAwareLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Todas las rutas lb://ms-* (y el cliente de ms-auth) usan el balanceador sensible a latencia.
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfig {
+}
@@ -0,0 +1,102 @@
+package com.uteq.gateway.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Cliente reactivo de larga vida hacia ms-auth (modo app.jwt.validation-mode=remote).
+ * <ul>
+ *   <li>Balanceado vía Eureka (http://ms-auth resuelto por el load balancer, equivalente a lb://ms-auth).</li>
+ *   <li>Pool de conexiones Reactor Netty explícito con keep-alive y límite de adquisiciones pendientes.</li>
+ *   <li>Circuit breaker y bulkhead alrededor de /validate para fallar rápido si ms-auth está lento.</li>
+ * </ul>
+ * La latencia por instancia la registra RegistroLatencias (balanceador sensible a latencia).
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.jwt.validation-mode", havingValue = "remote")
+public class MsAuthClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider msAuthConnectionProvider(
+            @Value("${app.ms-auth.client.max-connections:50}") int maxConexiones,
+            @Value("${app.ms-auth.client.pending-acquire-max:100}") int maxPendientes,
+            @Value("${app.ms-auth.client.pending-acquire-timeout:500ms}") Duration timeoutAdquisicion,
+            @Value("${app.ms-auth.client.max-idle-time:30s}") Duration maxInactividad) {
+        return ConnectionProvider.builder("ms-auth")
+                .maxConnections(maxConexiones)
+                .pendingAcquireMaxCount(maxPendientes)
+                .pendingAcquireTimeout(timeoutAdquisicion)
+                .maxIdleTime(maxInactividad)
+                .evictInBackground(Duration.ofSeconds(30))
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient msAuthWebClient(@Qualifier("msAuthConnectionProvider") ConnectionProvider connectionProvider,
+                                     ReactorLoadBalancerExchangeFilterFunction loadBalancerFunction,
+                                     @Value("${app.ms-auth.client.base-url:http://ms-auth}") String baseUrl,
+                                     @Value("${app.ms-auth.client.connect-timeout:1s}") Duration timeoutConexion,
+                                     @Value("${app.ms-auth.client.response-timeout:2s}") Duration timeoutRespuesta) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .keepAlive(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) timeoutConexion.toMillis())
+                .responseTimeout(timeoutRespuesta);
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(loadBalancerFunction)
+                .build();
+    }
+
+    @Bean
+    public CircuitBreaker msAuthCircuitBreaker(MeterRegistry meterRegistry,
+                                               @Value("${app.ms-auth.circuit-breaker.failure-rate-threshold:50}") float umbralFallos,
+                                               @Value("${app.ms-auth.circuit-breaker.slow-call-duration:1s}") Duration llamadaLenta,
+                                               @Value("${app.ms-auth.circuit-breaker.sliding-window-size:20}") int ventana,
+                                               @Value("${app.ms-auth.circuit-breaker.wait-in-open:10s}") Duration esperaAbierto) {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(umbralFallos)
+                .slowCallRateThreshold(umbralFallos)
+                .slowCallDurationThreshold(llamadaLenta)
+                .slidingWindowSize(ventana)
+                .minimumNumberOfCalls(Math.min(10, ventana))
+                .waitDurationInOpenState(esperaAbierto)
+                .permittedNumberOfCallsInHalfOpenState(3)
+                .build());
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry.circuitBreaker("ms-auth-validate");
+    }
+
+    @Bean
+    public Bulkhead msAuthBulkhead(MeterRegistry meterRegistry,
+                                   @Value("${app.ms-auth.bulkhead.max-concurrent-calls:50}") int maxConcurrentes,
+                                   @Value("${app.ms-auth.bulkhead.max-wait:0ms}") Duration maxEspera) {
+        BulkheadRegistry registry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentes)
+                .maxWaitDuration(maxEspera)
+                .build());
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry.bulkhead("ms-auth-validate");
+    }
+}
@@ -0,0 +1,69 @@
+package com.uteq.gateway.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cuotas del rate limiter en memoria (app.rate-limit.*).
+ * Las reglas se evalúan en orden; la primera que coincide (por path y/o route id) gana.
+ * Una cuota con requests-per-second <= 0 o burst < 1 impide arrancar el gateway.
+ */
+@Data
+@Component
+@Validated
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    /** Cuota cuando ninguna regla coincide. */
+    @Valid
+    @NotNull
+    private Cuota defaultQuota = new Cuota(20, 40);
+    /** Los cubos sin uso durante este tiempo se descartan. */
+    private Duration idleEviction = Duration.ofMinutes(10);
+    private long maxBuckets = 100_000;
+    /**
+     * Proxies/balanceadores (IP o CIDR) cuyo X-Forwarded-For se cree para sacar la IP real del cliente.
+     * Vacío: la clave anónima es la IP de la conexión y X-Forwarded-For se ignora (lo puede escribir cualquiera).
+     */
+    private List<String> trustedProxies = new ArrayList<>();
+    private List<@Valid Regla> rules = new ArrayList<>();
+
+    @Data
+    public static class Cuota {
+        @Positive
+        private double requestsPerSecond;
+        @Min(1)
+        private int burst;
+
+        public Cuota() {
+        }
+
+        public Cuota(double requestsPerSecond, int burst) {
+            this.requestsPerSecond = requestsPerSecond;
+            this.burst = burst;
+        }
+    }
+
+    @Data
+    public static class Regla {
+        /** Route id del gateway (ms-auth, ms-asesorias...). Opcional. */
+        private String route;
+        /** Patrón de path (PathPattern). Opcional. */
+        private String path;
+        @Positive
+        private double requestsPerSecond;
+        @Min(1)
+        private int burst;
+    }
+}
@@ -0,0 +1,192 @@
+package com.uteq.gateway.filter;
+
+import com.uteq.gateway.limit.LimiteAdaptativo;
+import com.uteq.gateway.limit.PrioridadPeticion;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limitación adaptativa de concurrencia por ruta con descarte de carga por prioridad.
+ * Cada ruta aprende su límite a partir de la latencia observada (ver LimiteAdaptativo);
+ * lo que excede el límite recibe un 503 inmediato con Retry-After en lugar de encolarse.
+ * Las peticiones BAJA sólo pueden usar una fracción del límite, las CRITICA todo.
+ * La latencia sólo se muestrea en lo enrutado al servicio (GATEWAY_ALREADY_ROUTED_ATTR, tras el balanceo).
+ * Métricas: gateway.concurrency.limit / gateway.concurrency.inflight / gateway.concurrency.rejected.
+ */
+@Component
+@Slf4j
+public class AdaptiveConcurrencyFilter implements GlobalFilter, Ordered {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean habilitado;
+    private final int limiteInicial;
+    private final int limiteMinimo;
+    private final int limiteMaximo;
+    private final double factorReduccion;
+    private final double tolerancia;
+    private final double fraccionBaja;
+    private final double fraccionNormal;
+    private final long retryAfterSegundos;
+    private final List<ReglaPrioridad> reglasCriticas;
+    private final List<ReglaPrioridad> reglasBajas;
+
+    private final Map<String, LimiteAdaptativo> limitesPorRuta = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rechazos = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyFilter(MeterRegistry meterRegistry,
+                                     @Value("${app.concurrency-limit.enabled:true}") boolean habilitado,
+                                     @Value("${app.concurrency-limit.initial-limit:20}") int limiteInicial,
+                                     @Value("${app.concurrency-limit.min-limit:5}") int limiteMinimo,
+                                     @Value("${app.concurrency-limit.max-limit:200}") int limiteMaximo,
+                                     @Value("${app.concurrency-limit.backoff-ratio:0.9}") double factorReduccion,
+                                     @Value("${app.concurrency-limit.latency-tolerance:2.0}") double tolerancia,
+                                     @Value("${app.concurrency-limit.low-priority-share:0.7}") double fraccionBaja,
+                                     @Value("${app.concurrency-limit.normal-priority-share:0.9}") double fraccionNormal,
+                                     @Value("${app.concurrency-limit.retry-after-seconds:1}") long retryAfterSegundos,
+                                     @Value("${app.concurrency-limit.critical:POST /api/asesorias,PUT /api/asesorias/*/asignar/**}") List<String> criticas,
+                                     @Value("${app.concurrency-limit.low:GET /api/asesorias,GET /api/disponibilidades,GET /api/admin/usuarios,GET /api/alumnos,GET /api/profesores}") List<String> bajas) {
+        this.meterRegistry = meterRegistry;
+        this.habilitado = habilitado;
+        this.limiteInicial = limiteInicial;
+        this.limiteMinimo = limiteMinimo;
+        this.limiteMaximo = limiteMaximo;
+        this.factorReduccion = factorReduccion;
+        this.tolerancia = tolerancia;
+        this.fraccionBaja = fraccionBaja;
+        this.fraccionNormal = fraccionNormal;
+        this.retryAfterSegundos = retryAfterSegundos;
+        this.reglasCriticas = criticas.stream().map(ReglaPrioridad::parse).toList();
+        this.reglasBajas = bajas.stream().map(ReglaPrioridad::parse).toList();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!habilitado || route == null) {
+            return chain.filter(exchange);
+        }
+        String routeId = route.getId();
+        PrioridadPeticion prioridad = clasificar(exchange);
+        LimiteAdaptativo limite = limitesPorRuta.computeIfAbsent(routeId, this::crearLimite);
+
+        if (!limite.intentarAdquirir(fraccion(prioridad))) {
+            contadorRechazos(routeId, prioridad).increment();
+            log.debug("[Gateway] Carga descartada route={} prioridad={} limite={}", routeId, prioridad, limite.getLimite());
+            return rechazar(exchange);
+        }
+
+        long inicio = System.nanoTime();
+        AtomicBoolean fallo = new AtomicBoolean(false);
+        return chain.filter(exchange)
+                .doOnError(e -> fallo.set(true))
+                .doFinally(senal -> {
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    // Sólo lo que llegó al servicio dice algo de su latencia: caché, 401 o 429 del propio
+                    // gateway responden en microsegundos y hundirían la línea base
+                    if (!ServerWebExchangeUtils.isAlreadyRouted(exchange) || (status != null && sinMuestra(status))) {
+                        limite.liberarSinMuestra();
+                        return;
+                    }
+                    boolean sobrecarga = fallo.get() || (status != null && esSobrecarga(status));
+                    limite.liberar(System.nanoTime() - inicio, sobrecarga);
+                });
+    }
+
+    PrioridadPeticion clasificar(ServerWebExchange exchange) {
+        String metodo = exchange.getRequest().getMethod().name();
+        PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+        for (ReglaPrioridad regla : reglasCriticas) {
+            if (regla.coincide(metodo, path)) return PrioridadPeticion.CRITICA;
+        }
+        for (ReglaPrioridad regla : reglasBajas) {
+            if (regla.coincide(metodo, path)) return PrioridadPeticion.BAJA;
+        }
+        return PrioridadPeticion.NORMAL;
+    }
+
+    private double fraccion(PrioridadPeticion prioridad) {
+        return switch (prioridad) {
+            case BAJA -> fraccionBaja;
+            case NORMAL -> fraccionNormal;
+            case CRITICA -> 1.0;
+        };
+    }
+
+    private boolean esSobrecarga(HttpStatusCode status) {
+        return status.value() == 502 || status.value() == 503 || status.value() == 504;
+    }
+
+    // 304 (revalidación de ResponseCacheCaptureFilter), 401 y 429 de aguas abajo: rechazos baratos, no latencia de servicio
+    private boolean sinMuestra(HttpStatusCode status) {
+        return status.value() == 304 || status.value() == 401 || status.value() == 429;
+    }
+
+    private LimiteAdaptativo crearLimite(String routeId) {
+        LimiteAdaptativo limite = new LimiteAdaptativo(limiteInicial, limiteMinimo, limiteMaximo, factorReduccion, tolerancia);
+        Gauge.builder("gateway.concurrency.limit", limite, LimiteAdaptativo::getLimite)
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.inflight", limite, LimiteAdaptativo::getEnCurso)
+                .tag("route", routeId)
+                .register(meterRegistry);
+        return limite;
+    }
+
+    private Counter contadorRechazos(String routeId, PrioridadPeticion prioridad) {
+        return rechazos.computeIfAbsent(routeId + "|" + prioridad, k ->
+                Counter.builder("gateway.concurrency.rejected")
+                        .tag("route", routeId)
+                        .tag("priority", prioridad.name())
+                        .register(meterRegistry));
+    }
+
+    private Mono<Void> rechazar(ServerWebExchange exchange) {
+        exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        exchange.getResponse().getHeaders().set("Retry-After", String.valueOf(retryAfterSegundos));
+        exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return exchange.getResponse().writeWith(
+                Mono.just(exchange.getResponse().bufferFactory()
+                        .wrap("{\"error\": \"Servicio saturado, reintente en unos segundos\"}".getBytes()))
+        );
+    }
+
+    @Override
+    public int getOrder() {
+        // Justo después de PreflightCorsFilter y antes de validar el JWT: descartar es lo más barato posible
+        return Ordered.HIGHEST_PRECEDENCE + 10;
+    }
+
+    /** "METODO /patron/**" → coincide por método HTTP y PathPattern. */
+    private record ReglaPrioridad(String metodo, PathPattern patron) {
+        static ReglaPrioridad parse(String regla) {
+            String[] partes = regla.trim().split("\\s+", 2);
+            return new ReglaPrioridad(partes[0].toUpperCase(), PathPatternParser.defaultInstance.parse(partes[1]));
+        }
+
+        boolean coincide(String metodoPeticion, PathContainer path) {
+            return metodo.equals(metodoPeticion) && patron.matches(path);
+        }
+    }
+}
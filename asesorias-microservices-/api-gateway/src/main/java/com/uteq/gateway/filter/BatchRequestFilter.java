@@ -0,0 +1,290 @@
+package com.uteq.gateway.filter;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * POST /api/batch: varias peticiones en una sola llamada del frontend.
+ * <ul>
+ *   <li>El JWT se valida una vez, en la propia ruta /api/batch (default-filter JwtAuthenticationFilter);
+ *       cada sub-petición reenvía el mismo Authorization y en la ruta normal es un acierto de TokenValidationCache.</li>
+ *   <li>Las sub-peticiones se despachan en paralelo contra este mismo gateway (loopback), así pasan por la
+ *       tabla de rutas, el balanceo, los límites y la caché de respuestas igual que una llamada suelta.</li>
+ *   <li>No se admiten rutas públicas (/api/auth/**, login de ms-admin...): desde el loopback perderían la IP
+ *       del cliente con la que se limitan.</li>
+ *   <li>Cada una tiene su timeout (timeoutMs opcional, acotado por item-timeout) dentro del presupuesto total
+ *       del lote; la respuesta es un array con status y body por elemento, en el mismo orden.</li>
+ * </ul>
+ * Cuerpo: [{"method": "GET", "path": "/api/asesorias/profesor/3", "body": {...}, "timeoutMs": 1500}, ...]
+ */
+@Component
+@Slf4j
+public class BatchRequestFilter extends AbstractGatewayFilterFactory<BatchRequestFilter.Config> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Set<HttpMethod> METODOS = Set.of(HttpMethod.GET, HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+    private static final String RUTA_BATCH = "/api/batch";
+
+    private final Environment environment;
+    private final WebClient webClient;
+    private final int maxElementos;
+    private final int maxParalelo;
+    private final Duration timeoutElemento;
+    private final Duration presupuestoTotal;
+    private final int maxCuerpo;
+    private final DistributionSummary anchura;
+    private final Counter elementosOk;
+    private final Counter elementosTimeout;
+    private final Counter elementosError;
+
+    public BatchRequestFilter(Environment environment,
+                              WebClient.Builder webClientBuilder,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.batch.max-items:10}") int maxElementos,
+                              @Value("${app.batch.max-concurrency:10}") int maxParalelo,
+                              @Value("${app.batch.item-timeout:3s}") Duration timeoutElemento,
+                              @Value("${app.batch.total-budget:5s}") Duration presupuestoTotal,
+                              @Value("${app.batch.max-body-size:256KB}") DataSize maxCuerpo) {
+        super(Config.class);
+        this.environment = environment;
+        this.maxElementos = maxElementos;
+        this.maxParalelo = maxParalelo;
+        this.timeoutElemento = timeoutElemento;
+        this.presupuestoTotal = presupuestoTotal;
+        this.maxCuerpo = (int) maxCuerpo.toBytes();
+
+        ConnectionProvider pool = ConnectionProvider.builder("gateway-batch")
+                .maxConnections(maxParalelo * 10)
+                .pendingAcquireTimeout(presupuestoTotal)
+                .maxIdleTime(Duration.ofSeconds(30))
+                .build();
+        this.webClient = webClientBuilder
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(pool).keepAlive(true)))
+                .build();
+
+        this.anchura = DistributionSummary.builder("gateway.batch.fanout")
+                .description("Sub-peticiones por llamada a /api/batch")
+                .register(meterRegistry);
+        this.elementosOk = contador(meterRegistry, "ok");
+        this.elementosTimeout = contador(meterRegistry, "timeout");
+        this.elementosError = contador(meterRegistry, "error");
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("gateway.batch.items")
+                .tag("outcome", resultado)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        // No continúa la cadena: la respuesta del lote se construye aquí. Orden explícito para ir después
+        // de JwtAuthenticationFilter y UserRateLimitFilter (un filtro de ruta sin orden iría antes que el JWT).
+        return new OrderedGatewayFilter((exchange, chain) -> DataBufferUtils.join(exchange.getRequest().getBody(), maxCuerpo)
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .defaultIfEmpty(new byte[0])
+                .flatMap(bytes -> procesar(exchange, bytes))
+                .onErrorResume(DataBufferLimitException.class,
+                        e -> responder(exchange, HttpStatus.PAYLOAD_TOO_LARGE, error("Lote demasiado grande"))),
+                1000);
+    }
+
+    private Mono<Void> procesar(ServerWebExchange exchange, byte[] bytes) {
+        List<SubPeticion> peticiones;
+        try {
+            JsonNode json = MAPPER.readTree(bytes);
+            if (json == null || !json.isArray()) {
+                return responder(exchange, HttpStatus.BAD_REQUEST, error("Se esperaba un array de peticiones"));
+            }
+            peticiones = MAPPER.convertValue(json, MAPPER.getTypeFactory().constructCollectionType(List.class, SubPeticion.class));
+        } catch (Exception e) {
+            return responder(exchange, HttpStatus.BAD_REQUEST, error("Cuerpo JSON inválido"));
+        }
+        if (peticiones.isEmpty() || peticiones.size() > maxElementos) {
+            return responder(exchange, HttpStatus.BAD_REQUEST,
+                    error("El lote debe tener entre 1 y " + maxElementos + " peticiones"));
+        }
+        anchura.record(peticiones.size());
+
+        String authorization = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        long limite = System.nanoTime() + presupuestoTotal.toNanos();
+        String base = "http://127.0.0.1:" + environment.getProperty("local.server.port",
+                environment.getProperty("server.port", "8000"));
+
+        return Flux.fromIterable(peticiones)
+                .flatMapSequential(p -> despachar(base, authorization, p, limite), maxParalelo)
+                .collectList()
+                .flatMap(resultados -> {
+                    ArrayNode array = MAPPER.createArrayNode();
+                    resultados.forEach(array::add);
+                    return responder(exchange, HttpStatus.OK, array);
+                });
+    }
+
+    private Mono<ObjectNode> despachar(String base, String authorization, SubPeticion peticion, long limite) {
+        String invalida = validar(peticion);
+        if (invalida != null) {
+            return Mono.just(resultado(HttpStatus.BAD_REQUEST.value(), null, invalida));
+        }
+        return Mono.defer(() -> {
+            Duration restante = Duration.ofNanos(limite - System.nanoTime());
+            Duration timeout = timeoutElemento;
+            if (peticion.timeoutMs() != null && peticion.timeoutMs() > 0) {
+                timeout = Duration.ofMillis(Math.min(peticion.timeoutMs(), timeoutElemento.toMillis()));
+            }
+            if (restante.compareTo(timeout) < 0) {
+                timeout = restante;
+            }
+            if (timeout.isNegative() || timeout.isZero()) {
+                return Mono.error(new TimeoutException());
+            }
+            Duration plazo = timeout;
+            WebClient.RequestBodySpec spec = webClient.method(HttpMethod.valueOf(peticion.method().toUpperCase()))
+                    .uri(base + peticion.path())
+                    .accept(MediaType.APPLICATION_JSON)
+                    .headers(h -> {
+                        if (authorization != null) {
+                            h.set(HttpHeaders.AUTHORIZATION, authorization);
+                        }
+                        // DeadlineFilter convierte el timeout del elemento en el plazo de la sub-petición
+                        h.set(DeadlineFilter.CABECERA_TIMEOUT, String.valueOf(plazo.toMillis()));
+                    });
+            WebClient.RequestHeadersSpec<?> listo = peticion.body() != null && !peticion.body().isNull()
+                    ? spec.contentType(MediaType.APPLICATION_JSON).bodyValue(peticion.body().toString())
+                    : spec;
+            return listo.exchangeToMono(respuesta -> respuesta.bodyToMono(String.class)
+                            .defaultIfEmpty("")
+                            .map(cuerpo -> resultado(respuesta.statusCode().value(),
+                                    leerCuerpo(cuerpo, respuesta.headers().contentType().orElse(null)), null)))
+                    .timeout(timeout);
+        })
+                .doOnNext(r -> elementosOk.increment())
+                .onErrorResume(TimeoutException.class, e -> {
+                    elementosTimeout.increment();
+                    return Mono.just(resultado(HttpStatus.GATEWAY_TIMEOUT.value(), null, "Tiempo agotado"));
+                })
+                .onErrorResume(e -> {
+                    elementosError.increment();
+                    log.warn("[Gateway] Error en sub-petición {} {}: {}", peticion.method(), peticion.path(), e.getMessage());
+                    return Mono.just(resultado(HttpStatus.BAD_GATEWAY.value(), null, "Error al despachar la petición"));
+                });
+    }
+
+    private String validar(SubPeticion peticion) {
+        if (peticion.method() == null || !METODOS.contains(HttpMethod.valueOf(peticion.method().toUpperCase()))) {
+            return "Método no permitido";
+        }
+        String path = peticion.path();
+        if (path == null || !path.startsWith("/api/") || path.contains("://") || path.contains("#")) {
+            return "Ruta no permitida";
+        }
+        // Se comprueba la ruta ya decodificada: %2e%2e o /api//batch no deben saltarse las reglas
+        int consulta = path.indexOf('?');
+        String ruta;
+        try {
+            ruta = UriUtils.decode(consulta < 0 ? path : path.substring(0, consulta), StandardCharsets.UTF_8)
+                    .replaceAll("/{2,}", "/");
+        } catch (IllegalArgumentException e) {
+            return "Ruta no permitida";
+        }
+        if (ruta.startsWith(RUTA_BATCH) || ruta.contains("..") || path.contains("..")) {
+            return "Ruta no permitida";
+        }
+        // Las sub-peticiones salen de 127.0.0.1: login, refresh y demás rutas públicas se limitan por IP
+        // (UserRateLimitFilter, LimitadorLogin de ms-auth) y compartirían un solo cubo entre todos los clientes
+        if (JwtAuthenticationFilter.esRutaPublica(ruta)) {
+            return "Ruta pública no admitida en lotes";
+        }
+        return null;
+    }
+
+    private static JsonNode leerCuerpo(String cuerpo, MediaType tipo) {
+        if (cuerpo.isEmpty()) {
+            return null;
+        }
+        if (tipo != null && MediaType.APPLICATION_JSON.isCompatibleWith(tipo)) {
+            try {
+                return MAPPER.readTree(cuerpo);
+            } catch (Exception e) {
+                // Se devuelve como texto
+            }
+        }
+        return MAPPER.getNodeFactory().textNode(cuerpo);
+    }
+
+    private static ObjectNode resultado(int status, JsonNode cuerpo, String mensajeError) {
+        ObjectNode nodo = MAPPER.createObjectNode();
+        nodo.put("status", status);
+        if (cuerpo != null) {
+            nodo.set("body", cuerpo);
+        }
+        if (mensajeError != null) {
+            nodo.put("error", mensajeError);
+        }
+        return nodo;
+    }
+
+    private static JsonNode error(String mensaje) {
+        return MAPPER.valueToTree(Map.of("error", mensaje));
+    }
+
+    private Mono<Void> responder(ServerWebExchange exchange, HttpStatus status, JsonNode cuerpo) {
+        exchange.getResponse().setStatusCode(status);
+        exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        byte[] bytes;
+        try {
+            bytes = MAPPER.writeValueAsBytes(cuerpo);
+        } catch (Exception e) {
+            return Mono.error(e);
+        }
+        return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(bytes)));
+    }
+
+    /** Elemento del lote; timeoutMs es opcional. */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record SubPeticion(String method, String path, JsonNode body, Long timeoutMs) {
+    }
+
+    public static class Config {
+    }
+}
@@ -0,0 +1,91 @@
+package com.uteq.gateway.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.uteq.gateway.auth.IdentidadUsuario;
+import com.uteq.gateway.bff.DashboardService;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * GET /api/bff/alumno/dashboard y /api/bff/profesor/dashboard (ver DashboardService).
+ * El usuario es siempre el del JWT validado; cada dashboard sólo lo puede pedir su rol.
+ */
+@Component
+public class BffDashboardFilter extends AbstractGatewayFilterFactory<BffDashboardFilter.Config> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final DashboardService dashboardService;
+
+    public BffDashboardFilter(DashboardService dashboardService) {
+        super(Config.class);
+        this.dashboardService = dashboardService;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        // Igual que BatchRequestFilter: responde aquí, después de JwtAuthenticationFilter y UserRateLimitFilter
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            IdentidadUsuario identidad = exchange.getAttribute(IdentidadUsuario.ATRIBUTO);
+            if (identidad == null || identidad.getUsuarioId() == null) {
+                return responder(exchange, HttpStatus.UNAUTHORIZED, "{\"error\": \"Token no proporcionado\"}".getBytes());
+            }
+            String path = exchange.getRequest().getPath().value();
+            long plazo = DeadlineFilter.plazo(exchange);
+            if (path.equals("/api/bff/alumno/dashboard")) {
+                return tieneRol(identidad, "ALUMNO")
+                        ? enviar(exchange, dashboardService.dashboardAlumno(identidad, plazo))
+                        : prohibido(exchange);
+            }
+            if (path.equals("/api/bff/profesor/dashboard")) {
+                return tieneRol(identidad, "PROFESOR")
+                        ? enviar(exchange, dashboardService.dashboardProfesor(identidad, plazo))
+                        : prohibido(exchange);
+            }
+            return responder(exchange, HttpStatus.NOT_FOUND, "{\"error\": \"Recurso no encontrado\"}".getBytes());
+        }, 1000);
+    }
+
+    private static boolean tieneRol(IdentidadUsuario identidad, String rol) {
+        return identidad.getRolNombre() != null && identidad.getRolNombre().trim().equalsIgnoreCase(rol);
+    }
+
+    private static byte[] json(Object documento) {
+        try {
+            return MAPPER.writeValueAsBytes(documento);
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo serializar el dashboard", e);
+        }
+    }
+
+    private Mono<Void> enviar(ServerWebExchange exchange, Mono<ObjectNode> dashboard) {
+        return dashboard
+                .flatMap(d -> responder(exchange, HttpStatus.OK, json(d)))
+                // Venció el X-Request-Deadline de esta petición antes de tener el documento
+                .onErrorResume(TimeoutException.class,
+                        e -> responder(exchange, HttpStatus.GATEWAY_TIMEOUT, "{\"error\": \"Tiempo agotado\"}".getBytes()));
+    }
+
+    private Mono<Void> prohibido(ServerWebExchange exchange) {
+        return responder(exchange, HttpStatus.FORBIDDEN, "{\"error\": \"Acceso denegado para este rol\"}".getBytes());
+    }
+
+    private Mono<Void> responder(ServerWebExchange exchange, HttpStatus status, byte[] cuerpo) {
+        exchange.getResponse().setStatusCode(status);
+        exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        exchange.getResponse().getHeaders().setCacheControl("private, no-store");
+        return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(cuerpo)));
+    }
+
+    public static class Config {
+    }
+}
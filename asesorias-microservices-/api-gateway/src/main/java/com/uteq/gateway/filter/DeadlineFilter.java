@@ -0,0 +1,100 @@
+package com.uteq.gateway.filter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Pone a cada petición un plazo absoluto (X-Request-Deadline, epoch en ms) que los microservicios
+ * propagan en sus llamadas Feign (DeadlineFilter / DeadlineFeignConfig de cada ms-*).
+ * <ul>
+ *   <li>El valor que mande el cliente se descarta: el plazo lo decide siempre el gateway.</li>
+ *   <li>X-Request-Timeout (ms) opcional permite acortarlo, nunca alargarlo
+ *       (lo usa /api/batch con el timeout de cada elemento).</li>
+ * </ul>
+ * Es un valor absoluto: supone relojes sincronizados (NTP) entre gateway y servicios.
+ * Las llamadas que origina el propio gateway (GraphQL) mandan {@link #plazoLlamada}: su timeout, pero nunca
+ * más allá del plazo de la petición que las provocó. El BFF es la excepción: su composición es compartida.
+ */
+@Component
+public class DeadlineFilter implements GlobalFilter, Ordered {
+
+    public static final String CABECERA_DEADLINE = "X-Request-Deadline";
+    public static final String CABECERA_TIMEOUT = "X-Request-Timeout";
+
+    private final boolean habilitado;
+    private final long timeoutPorDefecto;
+
+    public DeadlineFilter(@Value("${app.deadline.enabled:true}") boolean habilitado,
+                          @Value("${app.deadline.default-timeout:15s}") Duration timeoutPorDefecto) {
+        this.habilitado = habilitado;
+        this.timeoutPorDefecto = timeoutPorDefecto.toMillis();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!habilitado) {
+            return chain.filter(exchange);
+        }
+        long timeout = timeoutPedido(exchange.getRequest());
+        String deadline = String.valueOf(System.currentTimeMillis() + timeout);
+        ServerHttpRequest request = exchange.getRequest().mutate()
+                .headers(h -> {
+                    h.remove(CABECERA_TIMEOUT);
+                    h.set(CABECERA_DEADLINE, deadline);
+                })
+                .build();
+        return chain.filter(exchange.mutate().request(request).build());
+    }
+
+    private long timeoutPedido(ServerHttpRequest request) {
+        String valor = request.getHeaders().getFirst(CABECERA_TIMEOUT);
+        if (valor != null) {
+            try {
+                long pedido = Long.parseLong(valor.trim());
+                if (pedido > 0) {
+                    return Math.min(pedido, timeoutPorDefecto);
+                }
+            } catch (NumberFormatException e) {
+                // Se ignora y se usa el plazo por defecto
+            }
+        }
+        return timeoutPorDefecto;
+    }
+
+    /** Plazo (epoch ms) que este filtro puso a la petición; Long.MAX_VALUE si está deshabilitado. */
+    public static long plazo(ServerWebExchange exchange) {
+        String valor = exchange.getRequest().getHeaders().getFirst(CABECERA_DEADLINE);
+        if (valor != null) {
+            try {
+                return Long.parseLong(valor.trim());
+            } catch (NumberFormatException e) {
+                // Sin plazo válido
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /** min(plazo entrante, ahora + timeout). */
+    public static long plazoLlamada(long plazoEntrante, Duration timeout) {
+        return Math.min(plazoEntrante, System.currentTimeMillis() + timeout.toMillis());
+    }
+
+    /** Lo que falta hasta un plazo finito (cero si ya venció). */
+    public static Duration restante(long plazo) {
+        return Duration.ofMillis(Math.max(0, plazo - System.currentTimeMillis()));
+    }
+
+    @Override
+    public int getOrder() {
+        // Antes de todo lo demás (tras el preflight CORS y el límite de concurrencia) para que cuente la espera en el gateway
+        return Ordered.HIGHEST_PRECEDENCE + 20;
+    }
+}
@@ -0,0 +1,109 @@
+package com.uteq.gateway.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uteq.gateway.auth.IdentidadUsuario;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.graphql.ExecutionGraphQlResponse;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.support.DefaultExecutionGraphQlRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * POST /api/graphql: ejecuta la consulta con el ExecutionGraphQlService de Spring GraphQL.
+ * Es una ruta del gateway (como /api/batch) para heredar JWT, CORS y rate limit; el endpoint /graphql
+ * propio de Spring GraphQL está excluido en application.yml porque quedaría sin autenticar.
+ * La identidad del JWT viaja en el GraphQLContext hasta los resolvers y DataLoaders.
+ */
+@Component
+public class GraphQlRequestFilter extends AbstractGatewayFilterFactory<GraphQlRequestFilter.Config> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ExecutionGraphQlService graphQlService;
+    private final int maxCuerpo;
+    private final AtomicLong secuencia = new AtomicLong();
+
+    public GraphQlRequestFilter(ExecutionGraphQlService graphQlService,
+                                @Value("${app.graphql.max-body-size:64KB}") DataSize maxCuerpo) {
+        super(Config.class);
+        this.graphQlService = graphQlService;
+        this.maxCuerpo = (int) maxCuerpo.toBytes();
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        // Igual que BatchRequestFilter: responde aquí, después de JwtAuthenticationFilter y UserRateLimitFilter
+        return new OrderedGatewayFilter((exchange, chain) -> DataBufferUtils.join(exchange.getRequest().getBody(), maxCuerpo)
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .defaultIfEmpty(new byte[0])
+                .flatMap(bytes -> ejecutar(exchange, bytes))
+                .onErrorResume(DataBufferLimitException.class,
+                        e -> responder(exchange, HttpStatus.PAYLOAD_TOO_LARGE, Map.of("error", "Consulta demasiado grande"))),
+                1000);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<Void> ejecutar(ServerWebExchange exchange, byte[] bytes) {
+        IdentidadUsuario identidad = exchange.getAttribute(IdentidadUsuario.ATRIBUTO);
+        if (identidad == null) {
+            return responder(exchange, HttpStatus.UNAUTHORIZED, Map.of("error", "Token no proporcionado"));
+        }
+        JsonNode json;
+        try {
+            json = MAPPER.readTree(bytes);
+        } catch (Exception e) {
+            json = null;
+        }
+        if (json == null || !json.path("query").isTextual()) {
+            return responder(exchange, HttpStatus.BAD_REQUEST, Map.of("error", "Se esperaba {\"query\": ...}"));
+        }
+        Map<String, Object> variables = json.path("variables").isObject() ? MAPPER.convertValue(json.get("variables"), Map.class) : null;
+        Map<String, Object> extensions = json.path("extensions").isObject() ? MAPPER.convertValue(json.get("extensions"), Map.class) : null;
+        String operacion = json.path("operationName").isTextual() ? json.get("operationName").asText() : null;
+
+        DefaultExecutionGraphQlRequest peticion = new DefaultExecutionGraphQlRequest(json.get("query").asText(),
+                operacion, variables, extensions, String.valueOf(secuencia.incrementAndGet()), null);
+        long plazo = DeadlineFilter.plazo(exchange);
+        // ClienteServicios lee de aquí la identidad y el plazo de la petición para sus llamadas
+        peticion.configureExecutionInput((entrada, builder) -> builder.graphQLContext(contexto -> contexto
+                .put(IdentidadUsuario.ATRIBUTO, identidad)
+                .put(DeadlineFilter.CABECERA_DEADLINE, plazo)).build());
+        return graphQlService.execute(peticion)
+                .map(ExecutionGraphQlResponse::toMap)
+                .flatMap(resultado -> responder(exchange, HttpStatus.OK, resultado));
+    }
+
+    private Mono<Void> responder(ServerWebExchange exchange, HttpStatus status, Object cuerpo) {
+        exchange.getResponse().setStatusCode(status);
+        exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        byte[] bytes;
+        try {
+            bytes = MAPPER.writeValueAsBytes(cuerpo);
+        } catch (Exception e) {
+            return Mono.error(e);
+        }
+        return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(bytes)));
+    }
+
+    public static class Config {
+    }
+}
@@ -1,8 +1,8 @@
 package com.uteq.gateway.filter;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import com.uteq.gateway.auth.IdentidadUsuario;
+import com.uteq.gateway.auth.TokenInvalidoException;
+import com.uteq.gateway.auth.TokenValidationCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
@@ -10,25 +10,18 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
-import java.util.HashMap;
-import java.util.Map;
-import reactor.util.retry.Retry;
-
 @Component
 @Slf4j
 public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAuthenticationFilter.Config> {
 
-    private final WebClient.Builder webClientBuilder;
+    private final TokenValidationCache tokenValidationCache;
 
-    public JwtAuthenticationFilter(WebClient.Builder webClientBuilder) {
+    public JwtAuthenticationFilter(TokenValidationCache tokenValidationCache) {
         super(Config.class);
-        this.webClientBuilder = webClientBuilder;
+        this.tokenValidationCache = tokenValidationCache;
     }
 
     @Override
@@ -57,70 +50,48 @@ public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAut
 
             String token = authHeader.replace("Bearer ", "");
             
-            return validarTokenConMsAuth(token, exchange, chain);
+            return validarToken(token, exchange, chain);
         };
     }
 
-    private Mono<Void> validarTokenConMsAuth(String token, ServerWebExchange exchange, org.springframework.cloud.gateway.filter.GatewayFilterChain chain) {
-        return webClientBuilder.build()
-                .post()
-                .uri("http://ms-auth:8088/api/auth/validate")
-                .bodyValue(Map.of("token", token))
-                .retrieve()
-                .onStatus(
-                        status -> status.isError(),
-                        clientResponse -> clientResponse.bodyToMono(String.class)
-                                .defaultIfEmpty("")
-                                .flatMap(body -> {
-                                    String msg = String.format("ms-auth /validate status=%s body=%s", clientResponse.statusCode(), body);
-                                    return Mono.error(new RuntimeException(msg));
-                                })
-                )
-                .bodyToMono(Map.class)
-                .timeout(Duration.ofSeconds(3))
-                .retryWhen(Retry.max(2).filter(this::esErrorTransitorio))
-                .flatMap(response -> {
-                    if (response != null && (Boolean) response.getOrDefault("valid", false)) {
-                        String uid = String.valueOf(response.get("usuarioId"));
-                        String email = String.valueOf(response.get("correoMatricula"));
-                        String role = String.valueOf(response.get("rolNombre"));
-                        if (uid == null) uid = "";
-                        if (email == null) email = "";
-                        if (role == null) role = ""; else role = role.trim();
-                        if (role.isEmpty()) {
-                            log.warn("[Gateway] Token válido pero sin rol para path={} (posible refresh token)", exchange.getRequest().getURI().getPath());
-                            return unauthorized(exchange, "Token inválido (sin rol)");
-                        }
-                        // Reducir logs a debug para trazas puntuales
-                        // log.debug("[Gateway] JWT OK → path={}, uid={}, role={}", exchange.getRequest().getURI().getPath(), uid, role);
-                        org.springframework.http.server.reactive.ServerHttpRequest mutatedRequest =
-                                exchange.getRequest().mutate()
-                                        .header("X-User-Id", uid)
-                                        .header("X-User-Email", email)
-                                        .header("X-User-Role", role)
-                                        .build();
-                        return chain.filter(exchange.mutate().request(mutatedRequest).build());
-                    } else {
-                        // log.warn("[Gateway] JWT inválido para path={} -> response={}", exchange.getRequest().getURI().getPath(), response);
-                        return unauthorized(exchange, "Token inválido o expirado");
-                    }
-                })
+    private Mono<Void> validarToken(String token, ServerWebExchange exchange, org.springframework.cloud.gateway.filter.GatewayFilterChain chain) {
+        // Se resuelve primero la identidad y después se continúa la cadena, para que los errores
+        // de los microservicios de destino no se confundan con errores de validación (401)
+        return tokenValidationCache.validar(token)
+                .map(identidad -> continuarConIdentidad(identidad, exchange, chain))
+                .onErrorResume(TokenInvalidoException.class, e -> Mono.just(unauthorized(exchange, e.getMessage())))
                 .onErrorResume(e -> {
                     // log.error("[Gateway] Error validando token para path={}: {}", exchange.getRequest().getURI().getPath(), e.getMessage());
-                    return unauthorized(exchange, "Error validando token");
-                });
+                    return Mono.just(unauthorized(exchange, "Error validando token"));
+                })
+                .flatMap(continuacion -> continuacion);
     }
 
-    private boolean esErrorTransitorio(Throwable e) {
-        if (e instanceof java.net.ConnectException) return true;
-        if (e instanceof java.util.concurrent.TimeoutException) return true;
-        if (e instanceof WebClientResponseException we) {
-            return we.getStatusCode().is5xxServerError();
+    private Mono<Void> continuarConIdentidad(IdentidadUsuario identidad, ServerWebExchange exchange, org.springframework.cloud.gateway.filter.GatewayFilterChain chain) {
+        String uid = identidad.getUsuarioId() != null ? String.valueOf(identidad.getUsuarioId()) : "";
+        String email = identidad.getCorreoMatricula() != null ? identidad.getCorreoMatricula() : "";
+        String role = identidad.getRolNombre() != null ? identidad.getRolNombre().trim() : "";
+        if (role.isEmpty()) {
+            log.warn("[Gateway] Token válido pero sin rol para path={} (posible refresh token)", exchange.getRequest().getURI().getPath());
+            return unauthorized(exchange, "Token inválido (sin rol)");
         }
-        return false;
+        // Reducir logs a debug para trazas puntuales
+        // log.debug("[Gateway] JWT OK → path={}, uid={}, role={}", exchange.getRequest().getURI().getPath(), uid, role);
+        org.springframework.http.server.reactive.ServerHttpRequest mutatedRequest =
+                exchange.getRequest().mutate()
+                        .header("X-User-Id", uid)
+                        .header("X-User-Email", email)
+                        .header("X-User-Role", role)
+                        .headers(identidad::cabecerasPerfil)
+                        .build();
+        ServerWebExchange mutatedExchange = exchange.mutate().request(mutatedRequest).build();
+        // Para filtros posteriores (rate limit, etc.): a diferencia de X-User-Id, no lo puede falsificar el cliente
+        mutatedExchange.getAttributes().put(IdentidadUsuario.ATRIBUTO, identidad);
+        return chain.filter(mutatedExchange);
     }
 
-    private boolean esRutaPublica(String path) {
+    // También la usa BatchRequestFilter para no admitir rutas públicas en un lote
+    static boolean esRutaPublica(String path) {
         return path.startsWith("/api/auth/")
             || path.startsWith("/api/admin/usuarios/login")
                 || path.startsWith("/api/admin/usuarios/bootstrap")
@@ -0,0 +1,124 @@
+package com.uteq.gateway.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uteq.gateway.loadbalancer.ConsistentHashLoadBalancer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Extrae el profesorId de la petición para el enrutado pegajoso de ConsistentHashLoadBalancer:
+ * primero del path (/api/asesorias/profesor/{profesorId}, /api/disponibilidades/profesor/{profesorId}),
+ * y si no, del cuerpo JSON de POST/PUT (campo profesorId). Sólo actúa sobre los servicios de
+ * app.loadbalancer.consistent-hash.services; sin clave, el balanceo es el normal.
+ */
+@Component
+@Slf4j
+public class ProfesorHashKeyFilter implements GlobalFilter, Ordered {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final List<PathPattern> PATRONES = List.of(
+            PathPatternParser.defaultInstance.parse("/api/asesorias/profesor/{profesorId}/**"),
+            PathPatternParser.defaultInstance.parse("/api/disponibilidades/profesor/{profesorId}/**")
+    );
+    private static final List<PathPattern> PATRONES_CUERPO = List.of(
+            PathPatternParser.defaultInstance.parse("/api/asesorias/**"),
+            PathPatternParser.defaultInstance.parse("/api/disponibilidades/**")
+    );
+
+    private final List<String> servicios;
+
+    public ProfesorHashKeyFilter(@Value("${app.loadbalancer.consistent-hash.services:}") List<String> servicios) {
+        this.servicios = servicios;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (servicios.isEmpty() || !aplica(exchange)) {
+            return chain.filter(exchange);
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        PathContainer path = request.getPath().pathWithinApplication();
+
+        for (PathPattern patron : PATRONES) {
+            PathPattern.PathMatchInfo match = patron.matchAndExtract(path);
+            if (match != null) {
+                return chain.filter(conClave(exchange, request, match.getUriVariables().get("profesorId")));
+            }
+        }
+
+        boolean conCuerpo = (request.getMethod() == HttpMethod.POST || request.getMethod() == HttpMethod.PUT)
+                && MediaType.APPLICATION_JSON.isCompatibleWith(request.getHeaders().getContentType())
+                && PATRONES_CUERPO.stream().anyMatch(p -> p.matches(path));
+        if (!conCuerpo) {
+            return chain.filter(conClave(exchange, request, null));
+        }
+        // El cuerpo se cachea para poder leerlo aquí y reenviarlo intacto al microservicio
+        return ServerWebExchangeUtils.cacheRequestBodyAndRequest(exchange, cacheada -> {
+            DataBuffer cuerpo = exchange.getAttribute(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR);
+            String clave = cuerpo != null ? leerProfesorId(cuerpo) : null;
+            return chain.filter(conClave(exchange, cacheada, clave));
+        });
+    }
+
+    private boolean aplica(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return false;
+        }
+        URI uri = route.getUri();
+        return "lb".equals(uri.getScheme()) && servicios.contains(uri.getHost());
+    }
+
+    /** Siempre se reescribe la cabecera: un cliente no puede elegir réplica enviándola él mismo. */
+    private ServerWebExchange conClave(ServerWebExchange exchange, ServerHttpRequest request, String clave) {
+        ServerHttpRequest mutada = request.mutate()
+                .headers(h -> {
+                    h.remove(ConsistentHashLoadBalancer.CABECERA_CLAVE);
+                    if (clave != null && !clave.isBlank()) {
+                        h.set(ConsistentHashLoadBalancer.CABECERA_CLAVE, "profesor:" + clave);
+                    }
+                })
+                .build();
+        return exchange.mutate().request(mutada).build();
+    }
+
+    private String leerProfesorId(DataBuffer cuerpo) {
+        try {
+            byte[] bytes = new byte[cuerpo.readableByteCount()];
+            cuerpo.toByteBuffer(cuerpo.readPosition(), ByteBuffer.wrap(bytes), 0, bytes.length);
+            JsonNode json = MAPPER.readTree(bytes);
+            JsonNode profesorId = json.get("profesorId");
+            return profesorId != null && !profesorId.isNull() ? profesorId.asText() : null;
+        } catch (Exception e) {
+            log.debug("[Gateway] No se pudo leer profesorId del cuerpo: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // Antes de que ReactiveLoadBalancerClientFilter elija la instancia
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1;
+    }
+}
@@ -0,0 +1,91 @@
+package com.uteq.gateway.filter;
+
+import com.uteq.gateway.cache.CacheRespuestas;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Mitad "de escritura" de ResponseCacheFilter. NettyWriteResponseFilter copia el cuerpo del microservicio
+ * a la respuesta que recibió, así que el decorador tiene que estar puesto antes que él; la decisión de
+ * guardar (clave con el rol) sólo existe tras validar el JWT y llega como atributo del exchange.
+ */
+@Component
+public class ResponseCacheCaptureFilter implements GlobalFilter, Ordered {
+
+    private final CacheRespuestas cacheRespuestas;
+
+    public ResponseCacheCaptureFilter(CacheRespuestas cacheRespuestas) {
+        this.cacheRespuestas = cacheRespuestas;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return chain.filter(exchange.mutate().response(new RespuestaCapturada(exchange)).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    /** Copia el cuerpo de una respuesta cacheable mientras se envía al cliente. */
+    private class RespuestaCapturada extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+
+        RespuestaCapturada(ServerWebExchange exchange) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            CacheRespuestas.Captura captura = exchange.getAttribute(ResponseCacheFilter.ATRIBUTO_CAPTURA);
+            if (captura == null || !esCacheable()) {
+                return super.writeWith(body);
+            }
+            return DataBufferUtils.join(Flux.from(body)).flatMap(buffer -> {
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                DataBufferUtils.release(buffer);
+
+                CacheRespuestas.Entrada entrada = cacheRespuestas.guardar(captura.clave(),
+                        getHeaders().getContentType().toString(), bytes, captura.generacion());
+                if (entrada != null) {
+                    getHeaders().setETag(entrada.etag());
+                    if (getHeaders().getCacheControl() == null) {
+                        getHeaders().setCacheControl("private, no-cache");
+                    }
+                    getHeaders().set(ResponseCacheFilter.CABECERA_CACHE, "MISS");
+                    if (ResponseCacheFilter.coincideEtag(exchange.getRequest(), entrada.etag())) {
+                        getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+                        setStatusCode(HttpStatus.NOT_MODIFIED);
+                        return setComplete();
+                    }
+                }
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+
+        private boolean esCacheable() {
+            MediaType tipo = getHeaders().getContentType();
+            return HttpStatus.OK.equals(getStatusCode())
+                    && tipo != null && MediaType.APPLICATION_JSON.isCompatibleWith(tipo)
+                    && !getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)
+                    && !getHeaders().containsKey(HttpHeaders.SET_COOKIE);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.uteq.gateway.filter;
+
+import com.uteq.gateway.auth.IdentidadUsuario;
+import com.uteq.gateway.cache.CacheRespuestas;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Caché de respuestas GET para catálogos que casi no cambian (divisiones, programas, roles).
+ * En un fallo de caché el cuerpo se copia al volver del microservicio (ResponseCacheCaptureFilter).
+ * <ul>
+ *   <li>Clave: ruta + query + rol del usuario; sólo se guardan respuestas 200 JSON sin Content-Encoding.</li>
+ *   <li>Los aciertos se sirven desde memoria, comprimidos con gzip si el cliente lo acepta,
+ *       y con 304 cuando If-None-Match coincide con el ETag.</li>
+ *   <li>POST/PUT/PATCH/DELETE sobre el mismo patrón invalidan sus entradas al empezar y al terminar,
+ *       junto con las de los grupos que dependen de él (app.response-cache.dependents, "origen=dependiente":
+ *       las divisiones incluyen sus programas). Escrituras que no pasen por este gateway sólo se ven al vencer el TTL.</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    private static final Set<HttpMethod> ESCRITURAS = Set.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.PATCH, HttpMethod.DELETE);
+    static final String CABECERA_CACHE = "X-Cache";
+    static final String ATRIBUTO_CAPTURA = ResponseCacheFilter.class.getName() + ".captura";
+
+    private final CacheRespuestas cacheRespuestas;
+    private final boolean habilitado;
+    private final List<PathPattern> patrones;
+    private final Map<String, List<String>> invalidaciones = new HashMap<>();
+
+    public ResponseCacheFilter(CacheRespuestas cacheRespuestas,
+                               @Value("${app.response-cache.enabled:true}") boolean habilitado,
+                               @Value("${app.response-cache.paths:/api/divisiones/**,/api/programas/**,/api/admin/roles/**}") List<String> rutas,
+                               @Value("${app.response-cache.dependents:/api/programas/**=/api/divisiones/**}") List<String> dependientes) {
+        this.cacheRespuestas = cacheRespuestas;
+        this.habilitado = habilitado;
+        this.patrones = rutas.stream().map(String::trim).map(PathPatternParser.defaultInstance::parse).toList();
+        List<String> grupos = patrones.stream().map(PathPattern::getPatternString).toList();
+        grupos.forEach(g -> invalidaciones.put(g, new ArrayList<>(List.of(g))));
+        for (String regla : dependientes) {
+            String[] partes = regla.split("=", 2);
+            String origen = partes[0].trim();
+            String dependiente = partes.length == 2 ? partes[1].trim() : "";
+            if (!grupos.contains(origen) || !grupos.contains(dependiente)) {
+                throw new IllegalStateException("app.response-cache.dependents: '" + regla
+                        + "' debe ser origen=dependiente con ambos en app.response-cache.paths");
+            }
+            invalidaciones.get(origen).add(dependiente);
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String grupo = habilitado ? grupo(request.getPath().pathWithinApplication()) : null;
+        if (grupo == null) {
+            return chain.filter(exchange);
+        }
+        if (ESCRITURAS.contains(request.getMethod())) {
+            List<String> grupos = invalidaciones.get(grupo);
+            grupos.forEach(cacheRespuestas::invalidarGrupo);
+            log.debug("[Gateway] Caché de respuestas invalidada grupos={} por {}", grupos, request.getMethod());
+            return chain.filter(exchange).doFinally(senal -> grupos.forEach(cacheRespuestas::invalidarGrupo));
+        }
+        if (request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+
+        CacheRespuestas.Clave clave = new CacheRespuestas.Clave(grupo, request.getPath().value(),
+                request.getURI().getRawQuery(), rol(exchange));
+        CacheRespuestas.Entrada entrada = cacheRespuestas.buscar(clave);
+        if (entrada != null) {
+            return servirDesdeCache(exchange, entrada);
+        }
+        // La copia del cuerpo la hace ResponseCacheCaptureFilter, que envuelve la respuesta antes de NettyWriteResponseFilter
+        exchange.getAttributes().put(ATRIBUTO_CAPTURA,
+                new CacheRespuestas.Captura(clave, cacheRespuestas.generacion(grupo)));
+        return chain.filter(exchange);
+    }
+
+    private String grupo(PathContainer path) {
+        for (PathPattern patron : patrones) {
+            if (patron.matches(path)) {
+                return patron.getPatternString();
+            }
+        }
+        return null;
+    }
+
+    private String rol(ServerWebExchange exchange) {
+        IdentidadUsuario identidad = exchange.getAttribute(IdentidadUsuario.ATRIBUTO);
+        return identidad != null ? identidad.getRolNombre() : "";
+    }
+
+    private Mono<Void> servirDesdeCache(ServerWebExchange exchange, CacheRespuestas.Entrada entrada) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.setETag(entrada.etag());
+        headers.setCacheControl("private, no-cache");
+        headers.set(CABECERA_CACHE, "HIT");
+        if (coincideEtag(exchange.getRequest(), entrada.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        headers.set(HttpHeaders.CONTENT_TYPE, entrada.contentType());
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        byte[] cuerpo;
+        if (entrada.comprimido() && aceptaGzip(exchange.getRequest())) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            cuerpo = entrada.cuerpo();
+        } else {
+            cuerpo = entrada.cuerpoPlano();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        headers.setContentLength(cuerpo.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cuerpo)));
+    }
+
+    static boolean coincideEtag(ServerHttpRequest request, String etag) {
+        for (String valor : request.getHeaders().getIfNoneMatch()) {
+            String candidato = valor.startsWith("W/") ? valor.substring(2) : valor;
+            if ("*".equals(candidato) || etag.equals(candidato)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean aceptaGzip(ServerHttpRequest request) {
+        for (String valor : request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String codificacion : valor.split(",")) {
+                String[] partes = codificacion.trim().split(";");
+                if (partes[0].trim().equalsIgnoreCase("gzip")) {
+                    return partes.length < 2 || !partes[1].replace(" ", "").equals("q=0");
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int getOrder() {
+        // Tras JwtAuthenticationFilter (identidad y rol) y UserRateLimitFilter: un acierto también consume cuota
+        return 150;
+    }
+}
@@ -0,0 +1,56 @@
+package com.uteq.gateway.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Corta en el borde las rutas pensadas sólo para llamadas entre servicios (p. ej. POST
+ * /api/auth/validate/batch o /api/asesorias/internal/**): responden 404 como si no existieran.
+ * Los servicios se las siguen llamando directamente por Eureka, sin pasar por aquí.
+ */
+@Component
+@Slf4j
+public class RutasInternasFilter implements GlobalFilter, Ordered {
+
+    private final List<PathPattern> patrones;
+
+    public RutasInternasFilter(@Value("${app.gateway.internal-paths:/api/auth/validate/batch,/api/asesorias/internal/**,/api/admin/internal/**}") List<String> rutas) {
+        PathPatternParser parser = new PathPatternParser();
+        this.patrones = rutas.stream()
+                .map(String::trim)
+                .filter(r -> !r.isEmpty())
+                .map(parser::parse)
+                .toList();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        PathContainer ruta = exchange.getRequest().getPath().pathWithinApplication();
+        for (PathPattern patron : patrones) {
+            if (patron.matches(ruta)) {
+                log.debug("[Gateway] Ruta interna bloqueada: {}", ruta.value());
+                exchange.getResponse().setStatusCode(HttpStatus.NOT_FOUND);
+                return exchange.getResponse().setComplete();
+            }
+        }
+        return chain.filter(exchange);
+    }
+
+    @Override
+    public int getOrder() {
+        // Después del preflight CORS y antes de gastar un permiso de concurrencia
+        return Ordered.HIGHEST_PRECEDENCE + 5;
+    }
+}
@@ -0,0 +1,242 @@
+package com.uteq.gateway.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.uteq.gateway.auth.IdentidadUsuario;
+import com.uteq.gateway.capture.RegistroCaptura;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Captura opcional (app.traffic-capture.enabled) del tráfico real para reproducirlo después con traffic-replay.
+ * <ul>
+ *   <li>Por petición: instante, route id, método, ruta y plantilla (/api/alumnos/{id}), query, rol, usuario
+ *       seudónimo, cuerpo JSON, status y duración. Nunca se guarda Authorization: al reproducir cada usuario
+ *       seudónimo recibe un token fijo del pool de su rol, así se conserva cuántos usuarios distintos hubo.</li>
+ *   <li>Anonimizado: los campos sensibles (correo, contraseña, nombre, teléfono, tokens...) del cuerpo y la query
+ *       se sustituyen por un seudónimo estable dentro de la ejecución (SHA-256 con sal aleatoria), así se conservan
+ *       repeticiones y cardinalidad sin poder recuperar el valor.</li>
+ *   <li>Sólo cuerpos JSON hasta max-body-size; de los demás se anota el tamaño.</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class TrafficCaptureFilter implements GlobalFilter, Ordered {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Pattern SEGMENTO_ID = Pattern.compile("\\d+|[0-9a-fA-F]{8}-[0-9a-fA-F-]{27}");
+    private static final Set<String> EXCLUIDAS = Set.of("/actuator", "/favicon.ico");
+
+    private final RegistroCaptura registro;
+    private final boolean habilitado;
+    private final double muestreo;
+    private final int maxCuerpo;
+    private final List<String> camposSensibles;
+    private final byte[] sal = new byte[16];
+
+    public TrafficCaptureFilter(RegistroCaptura registro,
+                                @Value("${app.traffic-capture.enabled:false}") boolean habilitado,
+                                @Value("${app.traffic-capture.sample-rate:1.0}") double muestreo,
+                                @Value("${app.traffic-capture.max-body-size:64KB}") DataSize maxCuerpo,
+                                @Value("${app.traffic-capture.sensitive-fields:password,contrasena,correo,email,matricula,nombre,apellido,telefono,token}") List<String> camposSensibles) {
+        this.registro = registro;
+        this.habilitado = habilitado;
+        this.muestreo = muestreo;
+        this.maxCuerpo = (int) maxCuerpo.toBytes();
+        this.camposSensibles = camposSensibles.stream().map(c -> c.trim().toLowerCase()).toList();
+        new SecureRandom().nextBytes(sal);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String ruta = request.getPath().value();
+        if (!habilitado || EXCLUIDAS.stream().anyMatch(ruta::startsWith)
+                || (muestreo < 1.0 && ThreadLocalRandom.current().nextDouble() >= muestreo)) {
+            return chain.filter(exchange);
+        }
+        long inicio = System.currentTimeMillis();
+        long inicioNanos = System.nanoTime();
+        CuerpoCapturado cuerpo = new CuerpoCapturado(request);
+        return chain.filter(exchange.mutate().request(cuerpo).build())
+                .doFinally(senal -> {
+                    try {
+                        registro.registrar(evento(exchange, cuerpo, inicio, (System.nanoTime() - inicioNanos) / 1_000_000));
+                    } catch (Exception e) {
+                        log.debug("[Gateway] Evento de captura descartado: {}", e.getMessage());
+                    }
+                });
+    }
+
+    private String evento(ServerWebExchange exchange, CuerpoCapturado cuerpo, long inicio, long duracionMs) throws Exception {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        IdentidadUsuario identidad = exchange.getAttribute(IdentidadUsuario.ATRIBUTO);
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+
+        ObjectNode nodo = MAPPER.createObjectNode();
+        nodo.put("ts", inicio);
+        nodo.put("route", route != null ? route.getId() : null);
+        nodo.put("method", request.getMethod().name());
+        nodo.put("path", request.getPath().value());
+        nodo.put("template", plantilla(request.getPath().value()));
+        String query = query(request);
+        if (query != null) {
+            nodo.put("query", query);
+        }
+        nodo.put("role", identidad != null ? identidad.getRolNombre() : null);
+        if (identidad != null && identidad.getUsuarioId() != null) {
+            nodo.put("user", seudonimo("usuario:" + identidad.getUsuarioId()));
+        }
+        MediaType tipo = request.getHeaders().getContentType();
+        if (cuerpo.tamano() > 0) {
+            nodo.put("bodySize", cuerpo.tamano());
+            if (tipo != null && MediaType.APPLICATION_JSON.isCompatibleWith(tipo) && !cuerpo.truncado()) {
+                nodo.set("body", anonimizar(MAPPER.readTree(cuerpo.bytes())));
+            }
+        }
+        nodo.put("status", status != null ? status.value() : 0);
+        nodo.put("durationMs", duracionMs);
+        return MAPPER.writeValueAsString(nodo);
+    }
+
+    /** /api/alumnos/12/perfil -> /api/alumnos/{id}/perfil, para agrupar por endpoint. */
+    static String plantilla(String ruta) {
+        StringBuilder sb = new StringBuilder();
+        for (String segmento : ruta.split("/")) {
+            if (segmento.isEmpty()) {
+                continue;
+            }
+            sb.append('/').append(SEGMENTO_ID.matcher(segmento).matches() ? "{id}" : segmento);
+        }
+        return sb.isEmpty() ? "/" : sb.toString();
+    }
+
+    private String query(ServerHttpRequest request) {
+        if (request.getURI().getRawQuery() == null) {
+            return null;
+        }
+        UriComponentsBuilder builder = UriComponentsBuilder.newInstance();
+        request.getQueryParams().forEach((clave, valores) -> valores.forEach(valor ->
+                builder.queryParam(URLEncoder.encode(clave, StandardCharsets.UTF_8),
+                        URLEncoder.encode(esSensible(clave) ? seudonimo(valor) : valor, StandardCharsets.UTF_8))));
+        String query = builder.build().getQuery();
+        return query != null ? query : "";
+    }
+
+    private JsonNode anonimizar(JsonNode nodo) {
+        if (nodo instanceof ObjectNode objeto) {
+            Iterator<Map.Entry<String, JsonNode>> campos = objeto.fields();
+            while (campos.hasNext()) {
+                Map.Entry<String, JsonNode> campo = campos.next();
+                if (esSensible(campo.getKey()) && campo.getValue().isValueNode() && !campo.getValue().isNull()) {
+                    campo.setValue(MAPPER.getNodeFactory().textNode(seudonimo(campo.getValue().asText())));
+                } else {
+                    anonimizar(campo.getValue());
+                }
+            }
+        } else if (nodo instanceof ArrayNode array) {
+            array.forEach(this::anonimizar);
+        }
+        return nodo;
+    }
+
+    private boolean esSensible(String campo) {
+        String nombre = campo.toLowerCase();
+        return camposSensibles.stream().anyMatch(nombre::contains);
+    }
+
+    private String seudonimo(String valor) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(sal);
+            byte[] hash = digest.digest(valor.getBytes(StandardCharsets.UTF_8));
+            return "anon-" + HexFormat.of().formatHex(hash, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        // Tras JwtAuthenticationFilter (rol) y antes de UserRateLimitFilter: los 429 también son carga real
+        return 50;
+    }
+
+    /** Copia (hasta maxCuerpo) los bytes del cuerpo a medida que el destino los consume. */
+    private class CuerpoCapturado extends ServerHttpRequestDecorator {
+
+        private final ByteArrayOutputStream copia = new ByteArrayOutputStream();
+        private int tamano;
+
+        CuerpoCapturado(ServerHttpRequest delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Flux<DataBuffer> getBody() {
+            return super.getBody().doOnNext(this::copiar);
+        }
+
+        private synchronized void copiar(DataBuffer buffer) {
+            int disponibles = buffer.readableByteCount();
+            tamano += disponibles;
+            if (tamano > maxCuerpo) {
+                return;
+            }
+            try (DataBuffer.ByteBufferIterator iterador = buffer.readableByteBuffers()) {
+                while (iterador.hasNext()) {
+                    ByteBuffer trozo = iterador.next();
+                    byte[] bytes = new byte[trozo.remaining()];
+                    trozo.get(bytes);
+                    copia.write(bytes, 0, bytes.length);
+                }
+            }
+        }
+
+        synchronized int tamano() {
+            return tamano;
+        }
+
+        synchronized boolean truncado() {
+            return tamano > maxCuerpo;
+        }
+
+        synchronized byte[] bytes() {
+            return copia.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.uteq.gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.uteq.gateway.auth.IdentidadUsuario;
+import com.uteq.gateway.config.RateLimitProperties;
+import com.uteq.gateway.limit.CuboTokens;
+import com.uteq.gateway.limit.RedesConfiables;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rate limiting por usuario sin almacén externo (no requiere Redis).
+ * <ul>
+ *   <li>Clave: usuarioId validado por JwtAuthenticationFilter; en rutas públicas (login...) la IP del cliente.
+ *       Si la conexión llega de un proxy de app.rate-limit.trusted-proxies, la IP real es la primera de
+ *       X-Forwarded-For leída de derecha a izquierda que no sea otro proxy de confianza.</li>
+ *   <li>Un CuboTokens (GCRA, sin bloqueos) por regla y clave; los cubos inactivos se desalojan.</li>
+ *   <li>Cuotas por route id o path en app.rate-limit.rules.</li>
+ *   <li>Cabeceras RateLimit-Limit / RateLimit-Remaining / RateLimit-Reset; 429 + Retry-After al exceder.</li>
+ * </ul>
+ */
+@Component
+public class UserRateLimitFilter implements GlobalFilter, Ordered {
+
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final RedesConfiables proxiesConfiables;
+    private final List<ReglaCompilada> reglas = new ArrayList<>();
+    private final ReglaCompilada reglaPorDefecto;
+    private final Cache<String, CuboTokens> cubos;
+    private final Map<String, Counter> rechazos = new ConcurrentHashMap<>();
+
+    public UserRateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.proxiesConfiables = new RedesConfiables(properties.getTrustedProxies());
+        for (int i = 0; i < properties.getRules().size(); i++) {
+            RateLimitProperties.Regla regla = properties.getRules().get(i);
+            String nombre = regla.getRoute() != null ? regla.getRoute() : regla.getPath();
+            reglas.add(new ReglaCompilada("r" + i, nombre, regla.getRoute(),
+                    regla.getPath() != null ? PathPatternParser.defaultInstance.parse(regla.getPath()) : null,
+                    regla.getRequestsPerSecond(), regla.getBurst()));
+        }
+        RateLimitProperties.Cuota porDefecto = properties.getDefaultQuota();
+        this.reglaPorDefecto = new ReglaCompilada("default", "default", null, null,
+                porDefecto.getRequestsPerSecond(), porDefecto.getBurst());
+        this.cubos = Caffeine.newBuilder()
+                .expireAfterAccess(properties.getIdleEviction())
+                .maximumSize(properties.getMaxBuckets())
+                .build();
+        Gauge.builder("gateway.ratelimit.buckets", cubos, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : null;
+        ReglaCompilada regla = buscarRegla(routeId, exchange.getRequest().getPath().pathWithinApplication());
+
+        String cliente = claveCliente(exchange);
+        CuboTokens cubo = cubos.get(regla.id + "|" + cliente, k -> new CuboTokens(regla.porSegundo, regla.rafaga));
+        CuboTokens.Resultado resultado = cubo.consumir(System.nanoTime());
+
+        HttpHeaders headers = exchange.getResponse().getHeaders();
+        headers.set("RateLimit-Limit", String.valueOf(cubo.getRafaga()));
+        headers.set("RateLimit-Remaining", String.valueOf(resultado.restantes()));
+        headers.set("RateLimit-Reset", String.valueOf(segundosRedondeoArriba(resultado.llenoEnNanos())));
+        if (resultado.permitido()) {
+            return chain.filter(exchange);
+        }
+
+        rechazos.computeIfAbsent(regla.nombre, n -> Counter.builder("gateway.ratelimit.rejected")
+                .tag("rule", n)
+                .register(meterRegistry)).increment();
+        exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        headers.set("Retry-After", String.valueOf(Math.max(1, segundosRedondeoArriba(resultado.esperaNanos()))));
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return exchange.getResponse().writeWith(
+                Mono.just(exchange.getResponse().bufferFactory()
+                        .wrap("{\"error\": \"Demasiadas peticiones\"}".getBytes()))
+        );
+    }
+
+    private ReglaCompilada buscarRegla(String routeId, PathContainer path) {
+        for (ReglaCompilada regla : reglas) {
+            boolean rutaOk = regla.route == null || regla.route.equals(routeId);
+            boolean pathOk = regla.path == null || regla.path.matches(path);
+            if (rutaOk && pathOk) {
+                return regla;
+            }
+        }
+        return reglaPorDefecto;
+    }
+
+    String claveCliente(ServerWebExchange exchange) {
+        IdentidadUsuario identidad = exchange.getAttribute(IdentidadUsuario.ATRIBUTO);
+        if (identidad != null && identidad.getUsuarioId() != null) {
+            return "u:" + identidad.getUsuarioId();
+        }
+        InetSocketAddress remoto = exchange.getRequest().getRemoteAddress();
+        InetAddress cliente = remoto != null ? remoto.getAddress() : null;
+        if (proxiesConfiables.contiene(cliente)) {
+            // La izquierda de X-Forwarded-For la escribe el cliente: sólo vale lo que añadieron nuestros proxies
+            List<String> saltos = exchange.getRequest().getHeaders().getValuesAsList("X-Forwarded-For");
+            for (int i = saltos.size() - 1; i >= 0; i--) {
+                InetAddress salto = RedesConfiables.literal(saltos.get(i));
+                if (salto == null) {
+                    break;
+                }
+                cliente = salto;
+                if (!proxiesConfiables.contiene(salto)) {
+                    break;
+                }
+            }
+        }
+        return "ip:" + (cliente != null ? cliente.getHostAddress() : "desconocida");
+    }
+
+    private static long segundosRedondeoArriba(long nanos) {
+        return Math.max(0, (nanos + 999_999_999L) / 1_000_000_000L);
+    }
+
+    @Override
+    public int getOrder() {
+        // Después de los default-filters (JwtAuthenticationFilter ya dejó la identidad en el exchange)
+        return 100;
+    }
+
+    private record ReglaCompilada(String id, String nombre, String route, PathPattern path, double porSegundo, int rafaga) {
+    }
+}
@@ -0,0 +1,174 @@
+package com.uteq.gateway.graphql;
+
+import com.uteq.gateway.auth.IdentidadUsuario;
+import graphql.GraphQLContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Function;
+
+/**
+ * DataLoaders por petición GraphQL: agrupan en un mismo tick todas las búsquedas de un tipo y
+ * quitan ids repetidos, así N asesorías con el mismo profesor producen una sola llamada.
+ * <ul>
+ *   <li>Usuarios (?ids=), alumnos y profesores (?usuarioIds=): una llamada por cada batch-size ids distintos,
+ *       sólo con los pedidos.</li>
+ *   <li>Por id sin endpoint de lote (disponibilidades, listas por alumno/profesor):
+ *       una llamada por id distinto, en paralelo con límite max-concurrency.</li>
+ *   <li>Divisiones y programas: el catálogo (GET /api/divisiones con sus programas) se pide una vez por petición.</li>
+ * </ul>
+ */
+@Component
+public class CargadoresDatos {
+
+    public static final String USUARIO = "usuario";
+    public static final String ALUMNO = "alumno";
+    public static final String PROFESOR = "profesor";
+    public static final String DISPONIBILIDAD = "disponibilidad";
+    public static final String ASESORIAS_DE_ALUMNO = "asesoriasDeAlumno";
+    public static final String ASESORIAS_DE_PROFESOR = "asesoriasDeProfesor";
+    public static final String DISPONIBILIDADES_DE_PROFESOR = "disponibilidadesDeProfesor";
+    public static final String DIVISION = "division";
+    public static final String PROGRAMA = "programa";
+
+    private static final String CLAVE_CATALOGO = CargadoresDatos.class.getName() + ".catalogo";
+
+    private final ClienteServicios clienteServicios;
+    private final int maxParalelo;
+    private final int tamanoLote;
+
+    public CargadoresDatos(BatchLoaderRegistry registry,
+                           ClienteServicios clienteServicios,
+                           @Value("${app.graphql.max-concurrency:8}") int maxParalelo,
+                           @Value("${app.graphql.batch-size:100}") int tamanoLote) {
+        this.clienteServicios = clienteServicios;
+        this.maxParalelo = maxParalelo;
+        this.tamanoLote = Math.max(1, tamanoLote);
+
+        porLote(registry, USUARIO, "http://ms-admin/api/admin/usuarios?ids=", "id");
+        this.<Map<String, Object>>porId(registry, DISPONIBILIDAD, id -> "http://ms-asesorias/api/disponibilidades/" + id);
+        this.<List<Map<String, Object>>>listaPorId(registry, ASESORIAS_DE_ALUMNO, id -> "http://ms-asesorias/api/asesorias/alumno/" + id);
+        this.<List<Map<String, Object>>>listaPorId(registry, ASESORIAS_DE_PROFESOR, id -> "http://ms-asesorias/api/asesorias/profesor/" + id);
+        this.<List<Map<String, Object>>>listaPorId(registry, DISPONIBILIDADES_DE_PROFESOR, id -> "http://ms-asesorias/api/disponibilidades/profesor/" + id);
+        porLote(registry, ALUMNO, "http://ms-alumnos/api/alumnos?usuarioIds=", "usuarioId");
+        porLote(registry, PROFESOR, "http://ms-profesores/api/profesores?usuarioIds=", "usuarioId");
+
+        registry.<Long, Map<String, Object>>forName(DIVISION).registerMappedBatchLoader((ids, env) ->
+                catalogo(env.getContext()).map(c -> filtrar(c.divisionesPorId(), ids)));
+        registry.<Long, Map<String, Object>>forName(PROGRAMA).registerMappedBatchLoader((ids, env) ->
+                catalogo(env.getContext()).map(c -> filtrar(c.programasPorId(), ids)));
+    }
+
+    /** Catálogo de la petición en curso; se carga la primera vez que alguien lo pide. */
+    public Mono<Catalogo> catalogo(GraphQLContext contexto) {
+        return contexto.computeIfAbsent(CLAVE_CATALOGO, k -> clienteServicios
+                .listar("http://ms-divisiones/api/divisiones", contexto)
+                .map(Catalogo::de)
+                .cache());
+    }
+
+    private void porId(BatchLoaderRegistry registry, String nombre, Function<Long, String> url) {
+        registry.<Long, Map<String, Object>>forName(nombre).registerMappedBatchLoader((ids, env) -> {
+            GraphQLContext contexto = env.getContext();
+            return Flux.fromIterable(ids)
+                    .flatMap(id -> clienteServicios.obtener(url.apply(id), contexto)
+                            .map(valor -> Map.entry(id, valor))
+                            // Un id que falla queda a null sin tumbar el resto del lote
+                            .onErrorResume(e -> Mono.empty()), maxParalelo)
+                    .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+        });
+    }
+
+    private void listaPorId(BatchLoaderRegistry registry, String nombre, Function<Long, String> url) {
+        registry.<Long, List<Map<String, Object>>>forName(nombre).registerMappedBatchLoader((ids, env) -> {
+            GraphQLContext contexto = env.getContext();
+            return Flux.fromIterable(ids)
+                    .flatMap(id -> clienteServicios.listar(url.apply(id), contexto)
+                            .map(valor -> Map.entry(id, valor))
+                            .onErrorResume(e -> Mono.empty()), maxParalelo)
+                    .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+        });
+    }
+
+    /**
+     * Listado filtrado por ids (urlLote + "1,2,3"), troceado en grupos de tamanoLote para acotar la URL.
+     * Cada elemento se indexa por campoClave; se descarta lo no pedido por si el servicio ignora el filtro.
+     */
+    private void porLote(BatchLoaderRegistry registry, String nombre, String urlLote, String campoClave) {
+        registry.<Long, Map<String, Object>>forName(nombre).registerMappedBatchLoader((ids, env) -> {
+            GraphQLContext contexto = env.getContext();
+            return Flux.fromIterable(ids)
+                    .buffer(tamanoLote)
+                    .flatMap(grupo -> clienteServicios.listar(urlLote + ids(grupo), contexto)
+                            // Un grupo que falla deja sus ids a null sin tumbar el resto
+                            .onErrorResume(e -> Mono.empty()), maxParalelo)
+                    .flatMapIterable(lista -> lista)
+                    .mapNotNull(elemento -> {
+                        Long clave = ClienteServicios.id(elemento.get(campoClave));
+                        return clave != null && ids.contains(clave) ? Map.entry(clave, elemento) : null;
+                    })
+                    .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+        });
+    }
+
+    private static String ids(List<Long> grupo) {
+        StringJoiner joiner = new StringJoiner(",");
+        grupo.forEach(id -> joiner.add(id.toString()));
+        return joiner.toString();
+    }
+
+    private static <V> Map<Long, V> filtrar(Map<Long, V> origen, Set<Long> ids) {
+        Map<Long, V> resultado = new LinkedHashMap<>();
+        for (Long id : ids) {
+            V valor = origen.get(id);
+            if (valor != null) {
+                resultado.put(id, valor);
+            }
+        }
+        return resultado;
+    }
+
+    public static IdentidadUsuario identidad(GraphQLContext contexto) {
+        return contexto.get(IdentidadUsuario.ATRIBUTO);
+    }
+
+    /** Divisiones con sus programas; cada programa lleva además divisionId para resolver Programa.division. */
+    public record Catalogo(List<Map<String, Object>> divisiones,
+                           List<Map<String, Object>> programas,
+                           Map<Long, Map<String, Object>> divisionesPorId,
+                           Map<Long, Map<String, Object>> programasPorId) {
+
+        @SuppressWarnings("unchecked")
+        static Catalogo de(List<Map<String, Object>> divisiones) {
+            List<Map<String, Object>> programas = new ArrayList<>();
+            Map<Long, Map<String, Object>> divisionesPorId = new LinkedHashMap<>();
+            Map<Long, Map<String, Object>> programasPorId = new LinkedHashMap<>();
+            for (Map<String, Object> division : divisiones) {
+                Long divisionId = ClienteServicios.id(division.get("id"));
+                divisionesPorId.put(divisionId, division);
+                Object anidados = division.get("programas");
+                if (anidados instanceof List<?> lista) {
+                    List<Map<String, Object>> conDivision = new ArrayList<>();
+                    for (Object p : lista) {
+                        Map<String, Object> programa = new LinkedHashMap<>((Map<String, Object>) p);
+                        programa.put("divisionId", divisionId);
+                        conDivision.add(programa);
+                        programas.add(programa);
+                        programasPorId.put(ClienteServicios.id(programa.get("id")), programa);
+                    }
+                    division.put("programas", conDivision);
+                }
+            }
+            return new Catalogo(divisiones, programas, divisionesPorId, programasPorId);
+        }
+    }
+}
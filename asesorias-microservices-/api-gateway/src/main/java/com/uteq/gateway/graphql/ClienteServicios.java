@@ -0,0 +1,83 @@
+package com.uteq.gateway.graphql;
+
+import com.uteq.gateway.auth.IdentidadUsuario;
+import com.uteq.gateway.filter.DeadlineFilter;
+import graphql.GraphQLContext;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Llamadas REST de los resolvers GraphQL hacia los microservicios (mismo cliente balanceado que el BFF).
+ * Los JSON se manejan como Map: GraphQL sólo lee las propiedades que pide la consulta.
+ * Identidad y plazo salen del contexto de la petición GraphQL (GraphQlRequestFilter): cada llamada espera
+ * call-timeout o, si es menos, lo que le quede a la petición entrante.
+ */
+@Component
+public class ClienteServicios {
+
+    private static final ParameterizedTypeReference<Map<String, Object>> OBJETO = new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<List<Map<String, Object>>> LISTA = new ParameterizedTypeReference<>() {};
+
+    private final WebClient webClient;
+    private final Duration timeout;
+
+    public ClienteServicios(@Qualifier("bffWebClient") WebClient webClient,
+                            @Value("${app.graphql.call-timeout:2s}") Duration timeout) {
+        this.webClient = webClient;
+        this.timeout = timeout;
+    }
+
+    /** Vacío si el recurso no existe (404). */
+    public Mono<Map<String, Object>> obtener(String url, GraphQLContext contexto) {
+        long plazo = DeadlineFilter.plazoLlamada(contexto.getOrDefault(DeadlineFilter.CABECERA_DEADLINE, Long.MAX_VALUE), timeout);
+        return peticion(url, CargadoresDatos.identidad(contexto), plazo)
+                .bodyToMono(OBJETO)
+                .timeout(DeadlineFilter.restante(plazo))
+                .onErrorResume(WebClientResponseException.class,
+                        e -> e.getStatusCode().value() == HttpStatus.NOT_FOUND.value() ? Mono.empty() : Mono.error(e));
+    }
+
+    public Mono<List<Map<String, Object>>> listar(String url, GraphQLContext contexto) {
+        long plazo = DeadlineFilter.plazoLlamada(contexto.getOrDefault(DeadlineFilter.CABECERA_DEADLINE, Long.MAX_VALUE), timeout);
+        return peticion(url, CargadoresDatos.identidad(contexto), plazo)
+                .bodyToMono(LISTA)
+                .defaultIfEmpty(List.of())
+                .timeout(DeadlineFilter.restante(plazo));
+    }
+
+    private WebClient.ResponseSpec peticion(String url, IdentidadUsuario identidad, long plazo) {
+        return webClient.get()
+                .uri(url)
+                .accept(MediaType.APPLICATION_JSON)
+                .headers(h -> {
+                    h.set("X-User-Id", String.valueOf(identidad.getUsuarioId()));
+                    h.set("X-User-Email", identidad.getCorreoMatricula() != null ? identidad.getCorreoMatricula() : "");
+                    h.set("X-User-Role", identidad.getRolNombre() != null ? identidad.getRolNombre() : "");
+                    identidad.cabecerasPerfil(h);
+                    h.set(DeadlineFilter.CABECERA_DEADLINE, String.valueOf(plazo));
+                })
+                .retrieve();
+    }
+
+    /** Los ids llegan como Integer o Long según el tamaño; las claves de los DataLoaders son Long. */
+    public static Long id(Object valor) {
+        if (valor instanceof Number numero) {
+            return numero.longValue();
+        }
+        if (valor instanceof String texto && !texto.isBlank()) {
+            return Long.valueOf(texto);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,203 @@
+package com.uteq.gateway.graphql;
+
+import com.uteq.gateway.auth.IdentidadUsuario;
+import graphql.GraphQLContext;
+import graphql.schema.DataFetchingEnvironment;
+import org.dataloader.DataLoader;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.util.UriUtils;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Resolvers del esquema graphql/schema.graphqls. Las consultas raíz llaman al REST correspondiente;
+ * las relaciones entre tipos pasan siempre por CargadoresDatos (lotes por id).
+ */
+@Controller
+public class GraphQlConsultasController {
+
+    private final ClienteServicios clienteServicios;
+    private final CargadoresDatos cargadoresDatos;
+
+    public GraphQlConsultasController(ClienteServicios clienteServicios, CargadoresDatos cargadoresDatos) {
+        this.clienteServicios = clienteServicios;
+        this.cargadoresDatos = cargadoresDatos;
+    }
+
+    // 🔹 Consultas raíz
+
+    @QueryMapping
+    public CompletableFuture<Map<String, Object>> me(DataFetchingEnvironment env) {
+        IdentidadUsuario identidad = CargadoresDatos.identidad(env.getGraphQlContext());
+        return cargar(env, CargadoresDatos.USUARIO, identidad.getUsuarioId());
+    }
+
+    @QueryMapping
+    public CompletableFuture<Map<String, Object>> usuario(@Argument Long id, DataFetchingEnvironment env) {
+        return cargar(env, CargadoresDatos.USUARIO, id);
+    }
+
+    @QueryMapping
+    public CompletableFuture<Map<String, Object>> alumno(@Argument Long usuarioId, DataFetchingEnvironment env) {
+        return cargar(env, CargadoresDatos.ALUMNO, usuarioId);
+    }
+
+    @QueryMapping
+    public CompletableFuture<Map<String, Object>> profesor(@Argument Long usuarioId, DataFetchingEnvironment env) {
+        return cargar(env, CargadoresDatos.PROFESOR, usuarioId);
+    }
+
+    @QueryMapping
+    public Mono<List<Map<String, Object>>> asesorias(@Argument Long profesorId, @Argument Long alumnoId,
+                                                     @Argument String estatus, GraphQLContext contexto) {
+        String url;
+        if (profesorId != null) {
+            url = "http://ms-asesorias/api/asesorias/profesor/" + profesorId
+                    + (estatus != null ? "?estatus=" + UriUtils.encodeQueryParam(estatus, StandardCharsets.UTF_8) : "");
+        } else if (alumnoId != null) {
+            url = "http://ms-asesorias/api/asesorias/alumno/" + alumnoId;
+        } else if (estatus != null) {
+            url = "http://ms-asesorias/api/asesorias/estatus/" + UriUtils.encodePathSegment(estatus, StandardCharsets.UTF_8);
+        } else {
+            url = "http://ms-asesorias/api/asesorias";
+        }
+        Mono<List<Map<String, Object>>> lista = clienteServicios.listar(url, contexto);
+        if (alumnoId != null && estatus != null) {
+            // /alumno/{id} no filtra por estatus
+            lista = lista.map(l -> l.stream().filter(a -> estatus.equalsIgnoreCase(String.valueOf(a.get("estatus")))).toList());
+        }
+        return lista;
+    }
+
+    @QueryMapping
+    public Mono<Map<String, Object>> asesoria(@Argument Long id, GraphQLContext contexto) {
+        return clienteServicios.obtener("http://ms-asesorias/api/asesorias/" + id, contexto);
+    }
+
+    @QueryMapping
+    public Mono<List<Map<String, Object>>> disponibilidades(@Argument Long profesorId, @Argument String fecha,
+                                                            GraphQLContext contexto) {
+        String url = "http://ms-asesorias/api/disponibilidades/profesor/" + profesorId
+                + (fecha != null ? "/fecha/" + UriUtils.encodePathSegment(fecha, StandardCharsets.UTF_8) : "");
+        return clienteServicios.listar(url, contexto);
+    }
+
+    @QueryMapping
+    public Mono<List<Map<String, Object>>> divisiones(GraphQLContext contexto) {
+        return cargadoresDatos.catalogo(contexto).map(CargadoresDatos.Catalogo::divisiones);
+    }
+
+    @QueryMapping
+    public Mono<List<Map<String, Object>>> programas(@Argument Long divisionId, GraphQLContext contexto) {
+        return cargadoresDatos.catalogo(contexto).map(c -> divisionId == null
+                ? c.programas()
+                : c.programas().stream().filter(p -> divisionId.equals(p.get("divisionId"))).toList());
+    }
+
+    // 🔹 Relaciones (vía DataLoader)
+
+    @SchemaMapping(typeName = "Usuario", field = "alumno")
+    public CompletableFuture<Map<String, Object>> alumnoDeUsuario(Map<String, Object> usuario, DataFetchingEnvironment env) {
+        return cargar(env, CargadoresDatos.ALUMNO, usuario.get("id"));
+    }
+
+    @SchemaMapping(typeName = "Usuario", field = "profesor")
+    public CompletableFuture<Map<String, Object>> profesorDeUsuario(Map<String, Object> usuario, DataFetchingEnvironment env) {
+        return cargar(env, CargadoresDatos.PROFESOR, usuario.get("id"));
+    }
+
+    @SchemaMapping(typeName = "Alumno", field = "usuario")
+    public CompletableFuture<Map<String, Object>> usuarioDeAlumno(Map<String, Object> alumno, DataFetchingEnvironment env) {
+        return cargar(env, CargadoresDatos.USUARIO, alumno.get("usuarioId"));
+    }
+
+    @SchemaMapping(typeName = "Profesor", field = "usuario")
+    public CompletableFuture<Map<String, Object>> usuarioDeProfesor(Map<String, Object> profesor, DataFetchingEnvironment env) {
+        return cargar(env, CargadoresDatos.USUARIO, profesor.get("usuarioId"));
+    }
+
+    @SchemaMapping(typeName = "Alumno", field = "division")
+    public CompletableFuture<Map<String, Object>> divisionDeAlumno(Map<String, Object> alumno, DataFetchingEnvironment env) {
+        return cargar(env, CargadoresDatos.DIVISION, alumno.get("divisionId"));
+    }
+
+    @SchemaMapping(typeName = "Alumno", field = "programa")
+    public CompletableFuture<Map<String, Object>> programaDeAlumno(Map<String, Object> alumno, DataFetchingEnvironment env) {
+        return cargar(env, CargadoresDatos.PROGRAMA, alumno.get("programaId"));
+    }
+
+    @SchemaMapping(typeName = "Profesor", field = "division")
+    public CompletableFuture<Map<String, Object>> divisionDeProfesor(Map<String, Object> profesor, DataFetchingEnvironment env) {
+        return cargar(env, CargadoresDatos.DIVISION, profesor.get("divisionId"));
+    }
+
+    @SchemaMapping(typeName = "Profesor", field = "programa")
+    public CompletableFuture<Map<String, Object>> programaDeProfesor(Map<String, Object> profesor, DataFetchingEnvironment env) {
+        return cargar(env, CargadoresDatos.PROGRAMA, profesor.get("programaId"));
+    }
+
+    @SchemaMapping(typeName = "Programa", field = "division")
+    public CompletableFuture<Map<String, Object>> divisionDePrograma(Map<String, Object> programa, DataFetchingEnvironment env) {
+        return cargar(env, CargadoresDatos.DIVISION, programa.get("divisionId"));
+    }
+
+    @SchemaMapping(typeName = "Alumno", field = "asesorias")
+    public CompletableFuture<List<Map<String, Object>>> asesoriasDeAlumno(Map<String, Object> alumno, DataFetchingEnvironment env) {
+        return cargarLista(env, CargadoresDatos.ASESORIAS_DE_ALUMNO, alumno.get("usuarioId"));
+    }
+
+    @SchemaMapping(typeName = "Profesor", field = "asesorias")
+    public CompletableFuture<List<Map<String, Object>>> asesoriasDeProfesor(Map<String, Object> profesor, DataFetchingEnvironment env) {
+        return cargarLista(env, CargadoresDatos.ASESORIAS_DE_PROFESOR, profesor.get("usuarioId"));
+    }
+
+    @SchemaMapping(typeName = "Profesor", field = "disponibilidades")
+    public CompletableFuture<List<Map<String, Object>>> disponibilidadesDeProfesor(Map<String, Object> profesor, DataFetchingEnvironment env) {
+        return cargarLista(env, CargadoresDatos.DISPONIBILIDADES_DE_PROFESOR, profesor.get("usuarioId"));
+    }
+
+    @SchemaMapping(typeName = "Asesoria", field = "profesor")
+    public CompletableFuture<Map<String, Object>> profesorDeAsesoria(Map<String, Object> asesoria, DataFetchingEnvironment env) {
+        return cargar(env, CargadoresDatos.PROFESOR, asesoria.get("profesorId"));
+    }
+
+    @SchemaMapping(typeName = "Asesoria", field = "alumno")
+    public CompletableFuture<Map<String, Object>> alumnoDeAsesoria(Map<String, Object> asesoria, DataFetchingEnvironment env) {
+        return cargar(env, CargadoresDatos.ALUMNO, asesoria.get("alumnoId"));
+    }
+
+    @SchemaMapping(typeName = "Asesoria", field = "disponibilidad")
+    public CompletableFuture<Map<String, Object>> disponibilidadDeAsesoria(Map<String, Object> asesoria, DataFetchingEnvironment env) {
+        return cargar(env, CargadoresDatos.DISPONIBILIDAD, asesoria.get("disponibilidadId"));
+    }
+
+    @SchemaMapping(typeName = "Disponibilidad", field = "profesor")
+    public CompletableFuture<Map<String, Object>> profesorDeDisponibilidad(Map<String, Object> disponibilidad, DataFetchingEnvironment env) {
+        return cargar(env, CargadoresDatos.PROFESOR, disponibilidad.get("profesorId"));
+    }
+
+    private static CompletableFuture<Map<String, Object>> cargar(DataFetchingEnvironment env, String cargador, Object id) {
+        Long clave = ClienteServicios.id(id);
+        if (clave == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        DataLoader<Long, Map<String, Object>> loader = env.getDataLoader(cargador);
+        return loader.load(clave);
+    }
+
+    private static CompletableFuture<List<Map<String, Object>>> cargarLista(DataFetchingEnvironment env, String cargador, Object id) {
+        Long clave = ClienteServicios.id(id);
+        if (clave == null) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        DataLoader<Long, List<Map<String, Object>>> loader = env.getDataLoader(cargador);
+        return loader.load(clave).thenApply(lista -> lista != null ? lista : List.of());
+    }
+}
@@ -0,0 +1,54 @@
+package com.uteq.gateway.limit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket sin bloqueos, implementado como GCRA (generic cell rate algorithm):
+ * todo el estado es un único "tiempo teórico de llegada" (TAT) actualizado por CAS.
+ * Equivale a un cubo de capacidad {@code rafaga} que se rellena a {@code porSegundo} tokens/s.
+ */
+public class CuboTokens {
+
+    private final long intervaloNanos;
+    private final long toleranciaNanos;
+    private final int rafaga;
+    private final AtomicLong tat = new AtomicLong(Long.MIN_VALUE);
+
+    public CuboTokens(double porSegundo, int rafaga) {
+        // Con 0 el intervalo sería infinito y con rafaga 0 la tolerancia negativa: el cubo rechazaría todo
+        if (!(porSegundo > 0) || rafaga < 1) {
+            throw new IllegalArgumentException("Cuota no válida: " + porSegundo + " req/s, ráfaga " + rafaga);
+        }
+        this.intervaloNanos = (long) (1_000_000_000L / porSegundo);
+        this.toleranciaNanos = intervaloNanos * (rafaga - 1L);
+        this.rafaga = rafaga;
+    }
+
+    public Resultado consumir(long ahoraNanos) {
+        while (true) {
+            long actual = tat.get();
+            long base = Math.max(actual == Long.MIN_VALUE ? ahoraNanos : actual, ahoraNanos);
+            long nuevo = base + intervaloNanos;
+            long adelanto = nuevo - ahoraNanos;
+            if (adelanto - intervaloNanos > toleranciaNanos) {
+                long espera = adelanto - intervaloNanos - toleranciaNanos;
+                return new Resultado(false, 0, espera, base - ahoraNanos);
+            }
+            if (tat.compareAndSet(actual, nuevo)) {
+                int restantes = (int) ((toleranciaNanos - (adelanto - intervaloNanos)) / intervaloNanos);
+                return new Resultado(true, restantes, 0, adelanto);
+            }
+        }
+    }
+
+    public int getRafaga() {
+        return rafaga;
+    }
+
+    /**
+     * @param esperaNanos  cuánto esperar antes de reintentar (si fue rechazada)
+     * @param llenoEnNanos cuánto falta para que el cubo vuelva a estar lleno
+     */
+    public record Resultado(boolean permitido, int restantes, long esperaNanos, long llenoEnNanos) {
+    }
+}
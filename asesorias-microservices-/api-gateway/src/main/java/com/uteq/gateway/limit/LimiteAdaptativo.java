@@ -0,0 +1,106 @@
+package com.uteq.gateway.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Límite de concurrencia aprendido para una ruta (AIMD guiado por latencia).
+ * <ul>
+ *   <li>Se mantiene una línea base de latencia (envolvente inferior: baja al instante, sube muy despacio)
+ *       y una latencia reciente (EWMA rápida).</li>
+ *   <li>Si la latencia reciente supera base × tolerancia, o la petición falla, el límite baja multiplicativamente
+ *       (como mucho una vez por cada latencia reciente, para no desplomarlo con las respuestas en vuelo).</li>
+ *   <li>Si no, y la ruta está usando al menos la mitad del límite, sube en 1/límite por petición
+ *       (≈ +1 por cada "ventana" de peticiones).</li>
+ * </ul>
+ */
+public class LimiteAdaptativo {
+
+    /** Constante de tiempo con la que la línea base puede subir (independiente del tráfico). */
+    private static final long VENTANA_BASE_NANOS = 60_000_000_000L;
+    private static final double ALFA_RECIENTE = 0.2;
+
+    private final int limiteMinimo;
+    private final int limiteMaximo;
+    private final double factorReduccion;
+    private final double tolerancia;
+
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private volatile double limite;
+    private double latenciaBaseNanos = -1;
+    private double latenciaRecienteNanos = -1;
+    private long ultimaReduccionNanos;
+    private long ultimaMuestraNanos;
+
+    public LimiteAdaptativo(int limiteInicial, int limiteMinimo, int limiteMaximo, double factorReduccion, double tolerancia) {
+        this.limite = limiteInicial;
+        this.limiteMinimo = limiteMinimo;
+        this.limiteMaximo = limiteMaximo;
+        this.factorReduccion = factorReduccion;
+        this.tolerancia = tolerancia;
+    }
+
+    /**
+     * Intenta reservar un hueco. La prioridad decide qué fracción del límite puede ocupar.
+     * @return true si la petición puede continuar; debe liberarse con {@link #liberar}.
+     */
+    public boolean intentarAdquirir(double fraccionPermitida) {
+        int tope = Math.max(1, (int) Math.floor(limite * fraccionPermitida));
+        while (true) {
+            int actual = enCurso.get();
+            if (actual >= tope) {
+                return false;
+            }
+            if (enCurso.compareAndSet(actual, actual + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera el hueco y ajusta el límite con la latencia observada.
+     * @param sobrecarga true si la petición falló por saturación (5xx, timeout).
+     */
+    public void liberar(long latenciaNanos, boolean sobrecarga) {
+        int enCursoAlTerminar = enCurso.getAndDecrement();
+        synchronized (this) {
+            long ahora = System.nanoTime();
+            if (latenciaBaseNanos < 0) {
+                latenciaBaseNanos = latenciaNanos;
+                latenciaRecienteNanos = latenciaNanos;
+            } else {
+                latenciaRecienteNanos += ALFA_RECIENTE * (latenciaNanos - latenciaRecienteNanos);
+                // La línea base sube muy despacio para no "aprender" la congestión
+                if (latenciaNanos < latenciaBaseNanos) {
+                    latenciaBaseNanos = latenciaNanos;
+                } else {
+                    double peso = Math.min(1.0, (double) (ahora - ultimaMuestraNanos) / VENTANA_BASE_NANOS);
+                    latenciaBaseNanos += peso * (latenciaNanos - latenciaBaseNanos);
+                }
+            }
+            ultimaMuestraNanos = ahora;
+            double nuevo = limite;
+            if (sobrecarga || latenciaRecienteNanos > latenciaBaseNanos * tolerancia) {
+                if (ahora - ultimaReduccionNanos >= latenciaRecienteNanos) {
+                    nuevo = limite * factorReduccion;
+                    ultimaReduccionNanos = ahora;
+                }
+            } else if (enCursoAlTerminar * 2 >= limite) {
+                nuevo = limite + 1.0 / limite;
+            }
+            limite = Math.max(limiteMinimo, Math.min(limiteMaximo, nuevo));
+        }
+    }
+
+    /** Libera el hueco sin tocar el límite: la petición no llegó al servicio (caché, 401, 429...). */
+    public void liberarSinMuestra() {
+        enCurso.decrementAndGet();
+    }
+
+    public int getLimite() {
+        return (int) limite;
+    }
+
+    public int getEnCurso() {
+        return enCurso.get();
+    }
+}
@@ -0,0 +1,13 @@
+package com.uteq.gateway.limit;
+
+/**
+ * Clases de prioridad para el descarte de carga. Cada clase sólo puede ocupar una fracción
+ * del límite de concurrencia de la ruta: las de menor prioridad se rechazan antes.
+ */
+public enum PrioridadPeticion {
+    /** Listados pesados (GET de colecciones completas). */
+    BAJA,
+    NORMAL,
+    /** Escrituras de reserva: POST /api/asesorias, PUT /api/asesorias/{id}/asignar/... */
+    CRITICA
+}
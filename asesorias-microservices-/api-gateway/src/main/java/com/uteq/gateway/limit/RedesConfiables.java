@@ -0,0 +1,83 @@
+package com.uteq.gateway.limit;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Lista de IPs o redes CIDR (10.0.0.0/8, 2001:db8::/32, 192.168.1.10) de proxies de confianza.
+ * Sólo acepta literales: nunca resuelve nombres por DNS.
+ */
+public class RedesConfiables {
+
+    private static final Pattern LITERAL_IP = Pattern.compile("[0-9.]+|[0-9a-fA-F:.]*:[0-9a-fA-F:.]*");
+
+    private final List<Red> redes = new ArrayList<>();
+
+    public RedesConfiables(List<String> cidrs) {
+        for (String cidr : cidrs) {
+            String valor = cidr.trim();
+            int barra = valor.indexOf('/');
+            InetAddress direccion = literal(barra < 0 ? valor : valor.substring(0, barra));
+            if (direccion == null) {
+                throw new IllegalArgumentException("Proxy de confianza no válido: " + cidr);
+            }
+            int bits = direccion.getAddress().length * 8;
+            int prefijo = barra < 0 ? bits : Integer.parseInt(valor.substring(barra + 1));
+            if (prefijo < 0 || prefijo > bits) {
+                throw new IllegalArgumentException("Prefijo fuera de rango: " + cidr);
+            }
+            redes.add(new Red(direccion.getAddress(), prefijo));
+        }
+    }
+
+    public boolean isEmpty() {
+        return redes.isEmpty();
+    }
+
+    public boolean contiene(InetAddress direccion) {
+        if (direccion == null) {
+            return false;
+        }
+        byte[] bytes = direccion.getAddress();
+        return redes.stream().anyMatch(red -> red.contiene(bytes));
+    }
+
+    /** IP literal de una entrada de X-Forwarded-For; null si no lo es (nombre, "unknown", basura). */
+    public static InetAddress literal(String valor) {
+        String ip = valor.trim();
+        if (ip.startsWith("[") && ip.endsWith("]")) {
+            ip = ip.substring(1, ip.length() - 1);
+        }
+        if (ip.isEmpty() || !LITERAL_IP.matcher(ip).matches()) {
+            return null;
+        }
+        try {
+            return InetAddress.getByName(ip);
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private record Red(byte[] direccion, int prefijo) {
+        boolean contiene(byte[] otra) {
+            if (otra.length != direccion.length) {
+                return false;
+            }
+            int completos = prefijo / 8;
+            for (int i = 0; i < completos; i++) {
+                if (otra[i] != direccion[i]) {
+                    return false;
+                }
+            }
+            int resto = prefijo % 8;
+            if (resto == 0) {
+                return true;
+            }
+            int mascara = 0xFF << (8 - resto);
+            return (otra[completos] & mascara) == (direccion[completos] & mascara);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.uteq.gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Anillo de hash consistente con nodos virtuales. Inmutable: cuando cambia la membresía en
+ * Eureka se construye uno nuevo, y sólo las claves que caían en los nodos de la instancia
+ * añadida/retirada cambian de destino (≈ 1/N de las claves).
+ */
+public final class AnilloHashConsistente {
+
+    private final NavigableMap<Long, ServiceInstance> anillo = new TreeMap<>();
+    private final Set<String> miembros;
+
+    public AnilloHashConsistente(List<ServiceInstance> instancias, int nodosVirtuales) {
+        this.miembros = instancias.stream().map(RegistroLatencias::clave).collect(Collectors.toSet());
+        for (ServiceInstance instancia : instancias) {
+            String id = RegistroLatencias.clave(instancia);
+            for (int v = 0; v < nodosVirtuales; v++) {
+                anillo.put(hash(id + "#" + v), instancia);
+            }
+        }
+    }
+
+    /** true si el anillo se construyó exactamente con estas instancias. */
+    public boolean mismosMiembros(List<ServiceInstance> instancias) {
+        if (instancias.size() != miembros.size()) {
+            return false;
+        }
+        for (ServiceInstance instancia : instancias) {
+            if (!miembros.contains(RegistroLatencias.clave(instancia))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public ServiceInstance buscar(String clave) {
+        if (anillo.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, ServiceInstance> entrada = anillo.ceilingEntry(hash(clave));
+        return (entrada != null ? entrada : anillo.firstEntry()).getValue();
+    }
+
+    /** FNV-1a de 64 bits con mezcla final (SplitMix64) para repartir bien claves numéricas cortas. */
+    static long hash(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 30;
+        h *= 0xbf58476d1ce4e5b9L;
+        h ^= h >>> 27;
+        h *= 0x94d049bb133111ebL;
+        h ^= h >>> 31;
+        return h;
+    }
+}
@@ -0,0 +1,69 @@
+package com.uteq.gateway.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Enrutado pegajoso por clave: si la petición trae {@link #CABECERA_CLAVE} (la pone
+ * ProfesorHashKeyFilter con el profesorId), se elige la instancia en un anillo de hash consistente;
+ * si no, se delega en el balanceador normal.
+ */
+public class ConsistentHashLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    public static final String CABECERA_CLAVE = "X-LB-Hash-Key";
+
+    private final ObjectProvider<ServiceInstanceListSupplier> proveedorInstancias;
+    private final ReactorServiceInstanceLoadBalancer respaldo;
+    private final int nodosVirtuales;
+    private volatile AnilloHashConsistente anillo;
+
+    public ConsistentHashLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> proveedorInstancias,
+                                      ReactorServiceInstanceLoadBalancer respaldo,
+                                      int nodosVirtuales) {
+        this.proveedorInstancias = proveedorInstancias;
+        this.respaldo = respaldo;
+        this.nodosVirtuales = nodosVirtuales;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        String clave = extraerClave(request);
+        if (clave == null) {
+            return respaldo.choose(request);
+        }
+        ServiceInstanceListSupplier supplier = proveedorInstancias.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(instancias -> elegir(instancias, clave));
+    }
+
+    private Response<ServiceInstance> elegir(List<ServiceInstance> instancias, String clave) {
+        if (instancias.isEmpty()) {
+            return new EmptyResponse();
+        }
+        AnilloHashConsistente actual = anillo;
+        if (actual == null || !actual.mismosMiembros(instancias)) {
+            actual = new AnilloHashConsistente(instancias, nodosVirtuales);
+            anillo = actual;
+        }
+        return new DefaultResponse(actual.buscar(clave));
+    }
+
+    private String extraerClave(Request request) {
+        if (request != null && request.getContext() instanceof RequestDataContext contexto
+                && contexto.getClientRequest() != null && contexto.getClientRequest().getHeaders() != null) {
+            String clave = contexto.getClientRequest().getHeaders().getFirst(CABECERA_CLAVE);
+            return clave != null && !clave.isBlank() ? clave : null;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,60 @@
+package com.uteq.gateway.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Balanceo "power of two choices": se toman dos instancias al azar y se elige la de menor
+ * coste según RegistroLatencias (peticiones en curso × latencia peak-EWMA, con arranque lento
+ * para instancias recién registradas). Evita seguir mandando tráfico a una réplica en pausa de GC
+ * o con el JIT frío, que es lo que hace el round-robin por defecto.
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> proveedorInstancias;
+    private final RegistroLatencias registro;
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> proveedorInstancias,
+                                    RegistroLatencias registro) {
+        this.proveedorInstancias = proveedorInstancias;
+        this.registro = registro;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = proveedorInstancias.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::elegir);
+    }
+
+    Response<ServiceInstance> elegir(List<ServiceInstance> instancias) {
+        if (instancias.isEmpty()) {
+            return new EmptyResponse();
+        }
+        // También con una sola instancia: si no, las réplicas ya desaparecidas nunca se olvidarían
+        registro.retener(instancias);
+        if (instancias.size() == 1) {
+            return new DefaultResponse(instancias.get(0));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(instancias.size());
+        int j = random.nextInt(instancias.size() - 1);
+        if (j >= i) {
+            j++;
+        }
+        ServiceInstance a = instancias.get(i);
+        ServiceInstance b = instancias.get(j);
+        double latenciaPorDefecto = registro.latenciaMedia(instancias);
+        return new DefaultResponse(registro.costo(a, latenciaPorDefecto) <= registro.costo(b, latenciaPorDefecto) ? a : b);
+    }
+}
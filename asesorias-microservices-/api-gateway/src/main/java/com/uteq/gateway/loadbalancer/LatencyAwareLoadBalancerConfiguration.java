@@ -0,0 +1,58 @@
+package com.uteq.gateway.loadbalancer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+/**
+ * Configuración por servicio (contexto hijo de cada lb://ms-*), registrada desde LoadBalancerConfig.
+ * No lleva @Configuration a propósito: no debe cargarse en el contexto principal. El contexto hijo
+ * no tiene el ConversionService de Spring Boot, por eso las propiedades se leen como String.
+ * <ul>
+ *   <li>app.loadbalancer.latency-aware.enabled=false vuelve al RoundRobinLoadBalancer por defecto.</li>
+ *   <li>Los servicios de app.loadbalancer.consistent-hash.services usan además hash consistente
+ *       cuando la petición trae clave (ver ProfesorHashKeyFilter).</li>
+ * </ul>
+ */
+public class LatencyAwareLoadBalancerConfiguration {
+
+    @Bean
+    public RegistroLatencias registroLatencias(
+            Environment environment,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${app.loadbalancer.latency-aware.decay:10s}") String decaimiento,
+            @Value("${app.loadbalancer.latency-aware.slow-start:30s}") String arranqueLento) {
+        return new RegistroLatencias(DurationStyle.detectAndParse(decaimiento).toNanos(),
+                DurationStyle.detectAndParse(arranqueLento).toNanos(),
+                meterRegistry.getIfAvailable(),
+                environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME));
+    }
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(
+            Environment environment,
+            ObjectProvider<ServiceInstanceListSupplier> proveedorInstancias,
+            RegistroLatencias registroLatencias,
+            @Value("${app.loadbalancer.latency-aware.enabled:true}") boolean latencyAware,
+            @Value("${app.loadbalancer.consistent-hash.services:}") String serviciosHash,
+            @Value("${app.loadbalancer.consistent-hash.virtual-nodes:160}") int nodosVirtuales) {
+        String servicio = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        ReactorServiceInstanceLoadBalancer balanceador = latencyAware
+                ? new LatencyAwareLoadBalancer(proveedorInstancias, registroLatencias)
+                : new RoundRobinLoadBalancer(proveedorInstancias, servicio);
+        if (servicio != null && StringUtils.commaDelimitedListToSet(serviciosHash).contains(servicio)) {
+            return new ConsistentHashLoadBalancer(proveedorInstancias, balanceador, nodosVirtuales);
+        }
+        return balanceador;
+    }
+}
@@ -0,0 +1,214 @@
+package com.uteq.gateway.loadbalancer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.cloud.netflix.eureka.EurekaServiceInstance;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Estadísticas por instancia para LatencyAwareLoadBalancer: peticiones en curso y latencia
+ * peak-EWMA (sube de golpe ante un pico, baja con constante de tiempo {@code decaimientoNanos}).
+ * Se alimenta como LoadBalancerLifecycle, igual que las métricas loadbalancer.requests.*.
+ * Las estadísticas van por id de instancia con una huella (metadata y, en Eureka, hora de alta del servicio):
+ * si la huella cambia es una réplica reiniciada y empieza de cero, con su arranque lento.
+ * Con MeterRegistry publica por instancia gateway.loadbalancer.instance.latency (peak-EWMA) y
+ * gateway.loadbalancer.instance.inflight, etiquetadas con service e instance.
+ */
+public class RegistroLatencias implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final long decaimientoNanos;
+    private final long arranqueLentoNanos;
+    private final LongSupplier reloj;
+    private final MeterRegistry meterRegistry;
+    private final String servicio;
+    private final Map<String, Estadistica> porInstancia = new ConcurrentHashMap<>();
+    private final Map<String, List<Meter>> medidores = new ConcurrentHashMap<>();
+
+    public RegistroLatencias(long decaimientoNanos, long arranqueLentoNanos, MeterRegistry meterRegistry, String servicio) {
+        this(decaimientoNanos, arranqueLentoNanos, System::nanoTime, meterRegistry, servicio);
+    }
+
+    /** reloj en nanosegundos; los tests lo sustituyen para simular en tiempo virtual. meterRegistry puede ser null. */
+    RegistroLatencias(long decaimientoNanos, long arranqueLentoNanos, LongSupplier reloj,
+                      MeterRegistry meterRegistry, String servicio) {
+        this.decaimientoNanos = decaimientoNanos;
+        this.arranqueLentoNanos = arranqueLentoNanos;
+        this.reloj = reloj;
+        this.meterRegistry = meterRegistry;
+        this.servicio = servicio;
+    }
+
+    /**
+     * Coste esperado de enviar una petición más a la instancia: latencia × (en curso + 1),
+     * dividido por el peso de arranque lento (una instancia recién registrada parece más cara).
+     */
+    public double costo(ServiceInstance instancia, double latenciaPorDefectoNanos) {
+        Estadistica e = estadistica(instancia);
+        double latencia = e.latenciaNanos > 0 ? e.latenciaNanos : latenciaPorDefectoNanos;
+        return latencia * (e.enCurso.get() + 1) / pesoArranque(e);
+    }
+
+    /** Media de las latencias conocidas; se usa para instancias aún sin muestras. */
+    public double latenciaMedia(Collection<ServiceInstance> instancias) {
+        return instancias.stream()
+                .map(this::estadistica)
+                .filter(e -> e.latenciaNanos > 0)
+                .mapToDouble(e -> e.latenciaNanos)
+                .average()
+                .orElse(1_000_000d);
+    }
+
+    /** Descarta estadísticas de instancias que ya no están en Eureka. */
+    public void retener(Collection<ServiceInstance> instancias) {
+        if (porInstancia.size() <= instancias.size()) {
+            return;
+        }
+        Set<String> vigentes = instancias.stream().map(RegistroLatencias::clave).collect(Collectors.toSet());
+        porInstancia.keySet().retainAll(vigentes);
+        medidores.entrySet().removeIf(entrada -> {
+            if (vigentes.contains(entrada.getKey())) {
+                return false;
+            }
+            entrada.getValue().forEach(meterRegistry::remove);
+            return true;
+        });
+    }
+
+    private double pesoArranque(Estadistica e) {
+        if (arranqueLentoNanos <= 0) {
+            return 1.0;
+        }
+        double edad = reloj.getAsLong() - e.vistaPorPrimeraVez;
+        return Math.max(0.1, Math.min(1.0, edad / arranqueLentoNanos));
+    }
+
+    private Estadistica estadistica(ServiceInstance instancia) {
+        String clave = clave(instancia);
+        Huella huella = huella(instancia);
+        Estadistica e = porInstancia.get(clave);
+        if (e != null && e.huella.equals(huella)) {
+            return e;
+        }
+        if (meterRegistry != null) {
+            medidores.computeIfAbsent(clave, this::registrarMedidores);
+        }
+        // Las peticiones que la réplica anterior tenga en curso descuentan de la nueva (con suelo en 0)
+        return porInstancia.compute(clave, (k, actual) -> actual != null && actual.huella.equals(huella)
+                ? actual
+                : new Estadistica(reloj.getAsLong(), huella));
+    }
+
+    // Leen la estadística vigente por clave: una réplica reiniciada (otra huella) sigue en las mismas series
+    private List<Meter> registrarMedidores(String clave) {
+        Gauge latencia = Gauge.builder("gateway.loadbalancer.instance.latency", porInstancia, m -> {
+                    Estadistica e = m.get(clave);
+                    return e != null && e.latenciaNanos > 0 ? e.latenciaNanos / 1e9 : Double.NaN;
+                })
+                .description("Latencia peak-EWMA por instancia que usa el balanceador")
+                .baseUnit("seconds")
+                .tag("service", String.valueOf(servicio))
+                .tag("instance", clave)
+                .register(meterRegistry);
+        Gauge enCurso = Gauge.builder("gateway.loadbalancer.instance.inflight", porInstancia, m -> {
+                    Estadistica e = m.get(clave);
+                    return e != null ? e.enCurso.get() : 0;
+                })
+                .description("Peticiones en curso por instancia")
+                .tag("service", String.valueOf(servicio))
+                .tag("instance", clave)
+                .register(meterRegistry);
+        return List.of(latencia, enCurso);
+    }
+
+    static Huella huella(ServiceInstance instancia) {
+        Map<String, String> metadata = instancia.getMetadata() != null ? instancia.getMetadata() : Map.of();
+        long alta = 0;
+        if (instancia instanceof EurekaServiceInstance eureka && eureka.getInstanceInfo().getLeaseInfo() != null) {
+            alta = eureka.getInstanceInfo().getLeaseInfo().getServiceUpTimestamp();
+        }
+        return new Huella(metadata, alta);
+    }
+
+    static String clave(ServiceInstance instancia) {
+        return instancia.getInstanceId() != null
+                ? instancia.getInstanceId()
+                : instancia.getHost() + ":" + instancia.getPort();
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        if (request.getContext() instanceof TimedRequestContext timed && timed.getRequestStartTime() == 0) {
+            timed.setRequestStartTime(reloj.getAsLong());
+        }
+        estadistica(lbResponse.getServer()).enCurso.incrementAndGet();
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completion) {
+        Response<ServiceInstance> lbResponse = completion.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        Estadistica e = estadistica(lbResponse.getServer());
+        e.enCurso.updateAndGet(n -> Math.max(0, n - 1));
+        Object contexto = completion.getLoadBalancerRequest() != null ? completion.getLoadBalancerRequest().getContext() : null;
+        if (contexto instanceof TimedRequestContext timed && timed.getRequestStartTime() > 0) {
+            long ahora = reloj.getAsLong();
+            long latencia = ahora - timed.getRequestStartTime();
+            // Un fallo cuenta como lento: la instancia debe dejar de recibir tráfico
+            if (completion.status() == CompletionContext.Status.FAILED) {
+                latencia = Math.max(latencia, (long) e.latenciaNanos * 2);
+            }
+            e.registrar(latencia, ahora, decaimientoNanos);
+        }
+    }
+
+    record Huella(Map<String, String> metadata, long alta) {
+    }
+
+    private static final class Estadistica {
+        private final AtomicInteger enCurso = new AtomicInteger();
+        private final long vistaPorPrimeraVez;
+        private final Huella huella;
+        private volatile double latenciaNanos;
+        private volatile long ultimaMuestraNanos;
+
+        private Estadistica(long ahora, Huella huella) {
+            this.vistaPorPrimeraVez = ahora;
+            this.huella = huella;
+        }
+
+        private synchronized void registrar(long muestra, long ahora, long decaimientoNanos) {
+            if (latenciaNanos <= 0 || muestra > latenciaNanos) {
+                // Peak-EWMA: los picos se reflejan de inmediato
+                latenciaNanos = muestra;
+            } else {
+                double peso = Math.exp(-(double) (ahora - ultimaMuestraNanos) / decaimientoNanos);
+                latenciaNanos = latenciaNanos * peso + muestra * (1 - peso);
+            }
+            ultimaMuestraNanos = ahora;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.uteq.gateway.auth;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Single-flight de TokenValidationCache: una ráfaga concurrente con el mismo token debe producir
+ * exactamente una validación aguas arriba, tanto si el validador tarda como si responde al instante.
+ */
+class TokenValidationCacheTest {
+
+    private static final int HILOS = 32;
+
+    private final ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+
+    @AfterEach
+    void cerrar() {
+        hilos.shutdownNow();
+    }
+
+    @Test
+    void rafagaConcurrenteValidaUnaSolaVez() throws Exception {
+        ValidadorContado validador = new ValidadorContado(Duration.ofMillis(200), false);
+        TokenValidationCache cache = nuevaCache(validador);
+
+        List<IdentidadUsuario> resultados = rafaga(cache, "token-a", 256);
+
+        assertThat(validador.llamadas.get()).isEqualTo(1);
+        assertThat(resultados).hasSize(256).allSatisfy(identidad -> assertThat(identidad.getUsuarioId()).isEqualTo(7L));
+        // Terminado el vuelo, lo siguiente sale de la caché
+        cache.validar("token-a").block(Duration.ofSeconds(1));
+        assertThat(validador.llamadas.get()).isEqualTo(1);
+    }
+
+    @Test
+    void validadorInstantaneoTampocoDuplicaLlamadas() throws Exception {
+        // Sin retardo el vuelo puede terminar entre la consulta a la caché y la suscripción de otro hilo
+        ValidadorContado validador = new ValidadorContado(Duration.ZERO, false);
+        TokenValidationCache cache = nuevaCache(validador);
+
+        for (int i = 0; i < 200; i++) {
+            rafaga(cache, "token-" + i, HILOS);
+        }
+
+        assertThat(validador.llamadas.get()).isEqualTo(200);
+    }
+
+    @Test
+    void rechazoConcurrenteSeCompartePorTodos() throws Exception {
+        ValidadorContado validador = new ValidadorContado(Duration.ofMillis(100), true);
+        TokenValidationCache cache = nuevaCache(validador);
+
+        List<Mono<IdentidadUsuario>> peticiones = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            peticiones.add(cache.validar("token-malo"));
+        }
+        StepVerifier.create(Mono.zipDelayError(peticiones, resultados -> resultados))
+                .expectErrorSatisfies(e -> assertThat(e.getSuppressed()).hasSize(50)
+                        .allSatisfy(s -> assertThat(s).isInstanceOf(TokenInvalidoException.class)))
+                .verify(Duration.ofSeconds(5));
+        StepVerifier.create(cache.validar("token-malo"))
+                .expectError(TokenInvalidoException.class)
+                .verify(Duration.ofSeconds(1));
+
+        assertThat(validador.llamadas.get()).isEqualTo(1);
+    }
+
+    private List<IdentidadUsuario> rafaga(TokenValidationCache cache, String token, int peticiones) throws Exception {
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<IdentidadUsuario>> futuros = new ArrayList<>();
+        for (int i = 0; i < peticiones; i++) {
+            futuros.add(hilos.submit(() -> {
+                salida.await();
+                return cache.validar(token).block(Duration.ofSeconds(5));
+            }));
+        }
+        salida.countDown();
+        List<IdentidadUsuario> resultados = new ArrayList<>();
+        for (Future<IdentidadUsuario> futuro : futuros) {
+            resultados.add(futuro.get(10, TimeUnit.SECONDS));
+        }
+        return resultados;
+    }
+
+    private static TokenValidationCache nuevaCache(TokenValidator validador) {
+        return new TokenValidationCache(validador, new SimpleMeterRegistry(), true, 1000,
+                Duration.ofMinutes(5), Duration.ofSeconds(10));
+    }
+
+    /** Cuenta suscripciones, que es lo que costaría una validación real (firma o llamada a ms-auth). */
+    private static final class ValidadorContado implements TokenValidator {
+        private final AtomicInteger llamadas = new AtomicInteger();
+        private final Duration retardo;
+        private final boolean rechazar;
+
+        private ValidadorContado(Duration retardo, boolean rechazar) {
+            this.retardo = retardo;
+            this.rechazar = rechazar;
+        }
+
+        @Override
+        public Mono<IdentidadUsuario> validar(String token) {
+            return Mono.defer(() -> {
+                llamadas.incrementAndGet();
+                Mono<IdentidadUsuario> resultado = rechazar
+                        ? Mono.error(new TokenInvalidoException("Token expirado"))
+                        : Mono.just(new IdentidadUsuario(7L, "alumno@uteq.edu", "ALUMNO",
+                                Instant.now().plus(Duration.ofHours(1)), null, null, null));
+                return retardo.isZero() ? resultado : Mono.delay(retardo).then(resultado);
+            });
+        }
+    }
+}
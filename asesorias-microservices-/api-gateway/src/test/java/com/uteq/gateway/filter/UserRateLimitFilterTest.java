@@ -0,0 +1,70 @@
+package com.uteq.gateway.filter;
+
+import com.uteq.gateway.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Clave por IP de UserRateLimitFilter: X-Forwarded-For sólo cuenta si lo añadió un proxy de confianza,
+ * y las cuotas imposibles se rechazan al arrancar.
+ */
+class UserRateLimitFilterTest {
+
+    @Test
+    void sinProxyDeConfianzaIgnoraForwardedFor() {
+        UserRateLimitFilter filtro = filtro(List.of());
+
+        assertThat(filtro.claveCliente(peticion("203.0.113.7", "1.1.1.1"))).isEqualTo("ip:203.0.113.7");
+    }
+
+    @Test
+    void trasProxyDeConfianzaUsaLaIpRealAunqueElClienteFalseeLaCabecera() {
+        UserRateLimitFilter filtro = filtro(List.of("10.0.0.0/8"));
+
+        // El cliente manda "X-Forwarded-For: 1.1.1.1"; el balanceador añade su IP real
+        assertThat(filtro.claveCliente(peticion("10.0.0.5", "1.1.1.1, 203.0.113.7"))).isEqualTo("ip:203.0.113.7");
+        // Dos saltos internos: se descartan ambos
+        assertThat(filtro.claveCliente(peticion("10.0.0.5", "198.51.100.4, 10.1.2.3"))).isEqualTo("ip:198.51.100.4");
+        // Entrada que no es una IP: se queda en el último salto fiable
+        assertThat(filtro.claveCliente(peticion("10.0.0.5", "unknown"))).isEqualTo("ip:10.0.0.5");
+        // Desde fuera de la red de confianza la cabecera no vale
+        assertThat(filtro.claveCliente(peticion("192.0.2.1", "1.1.1.1"))).isEqualTo("ip:192.0.2.1");
+    }
+
+    @Test
+    void cuotaNoPositivaImpideArrancar() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(ConfigurationPropertiesAutoConfiguration.class,
+                        ValidationAutoConfiguration.class))
+                .withUserConfiguration(RateLimitProperties.class)
+                .withPropertyValues("app.rate-limit.rules[0].route=ms-auth",
+                        "app.rate-limit.rules[0].requests-per-second=0",
+                        "app.rate-limit.rules[0].burst=0")
+                .run(contexto -> assertThat(contexto).hasFailed()
+                        .getFailure().rootCause().message()
+                        .contains("rules[0].requestsPerSecond", "rules[0].burst"));
+    }
+
+    private static UserRateLimitFilter filtro(List<String> proxies) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setTrustedProxies(proxies);
+        return new UserRateLimitFilter(properties, new SimpleMeterRegistry());
+    }
+
+    private static MockServerWebExchange peticion(String remoto, String forwardedFor) {
+        return MockServerWebExchange.from(MockServerHttpRequest.post("/api/auth/login")
+                .remoteAddress(new InetSocketAddress(remoto, 40000))
+                .header("X-Forwarded-For", forwardedFor));
+    }
+}
@@ -0,0 +1,161 @@
+package com.uteq.gateway.loadbalancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Simulación en tiempo virtual: cinco réplicas, una de ellas 20 veces más lenta (GC, JIT frío, vecino ruidoso).
+ * El round-robin le sigue mandando una quinta parte del tráfico y su cola arrastra el p99; P2C con peak-EWMA
+ * la ve cara y la evita.
+ */
+class LatencyAwareLoadBalancerTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int PETICIONES = 20_000;
+    private static final double PETICIONES_POR_SEGUNDO = 800;
+    private static final int HILOS_POR_REPLICA = 8;
+
+    private final List<ServiceInstance> instancias = List.of(
+            instancia("r1", "1"), instancia("r2", "1"), instancia("r3", "1"), instancia("r4", "1"), instancia("lenta", "1"));
+    private final double[] servicioMedioNanos = {10 * MS, 10 * MS, 10 * MS, 10 * MS, 200 * MS};
+
+    @Test
+    void p2cConPeakEwmaEsquivaLaReplicaLenta() {
+        int[] turno = {0};
+        Resultado roundRobin = simular(new RegistroLatencias(10_000 * MS, 0, () -> 0, null, null),
+                (lista, registro) -> lista.get(turno[0]++ % lista.size()), new AtomicLong());
+
+        AtomicLong reloj = new AtomicLong();
+        RegistroLatencias registro = new RegistroLatencias(10_000 * MS, 0, reloj::get, null, null);
+        LatencyAwareLoadBalancer balanceador = new LatencyAwareLoadBalancer(null, registro);
+        Resultado p2c = simular(registro, (lista, r) -> balanceador.elegir(lista).getServer(), reloj);
+
+        assertThat(roundRobin.fraccionLenta()).isBetween(0.19, 0.21);
+        assertThat(p2c.fraccionLenta()).isLessThan(0.02);
+        assertThat(p2c.percentil(0.99)).isLessThan(roundRobin.percentil(0.99) / 10);
+        assertThat(p2c.percentil(0.50)).isLessThanOrEqualTo(roundRobin.percentil(0.50));
+    }
+
+    @Test
+    void replicaReiniciadaNoHeredaLaLatencia() {
+        // Un instante de inicio 0 se toma como "sin medir": el reloj virtual empieza después
+        AtomicLong reloj = new AtomicLong(MS);
+        RegistroLatencias registro = new RegistroLatencias(10_000 * MS, 0, reloj::get, null, null);
+        ServiceInstance antes = instancia("r1", "1");
+        completar(registro, antes, reloj, 500 * MS);
+        assertThat(registro.costo(antes, MS)).isEqualTo(500d * MS);
+
+        // Mismo id, otra huella: se reinició y vuelve a la latencia por defecto
+        ServiceInstance despues = instancia("r1", "2");
+        assertThat(registro.costo(despues, MS)).isEqualTo((double) MS);
+    }
+
+    @Test
+    void publicaLatenciaYEnCursoPorInstancia() {
+        AtomicLong reloj = new AtomicLong(MS);
+        SimpleMeterRegistry metricas = new SimpleMeterRegistry();
+        RegistroLatencias registro = new RegistroLatencias(10_000 * MS, 0, reloj::get, metricas, "ms-asesorias");
+        ServiceInstance r1 = instancia("r1", "1");
+        completar(registro, r1, reloj, 40 * MS);
+        registro.onStartRequest(new DefaultRequest<>(new RequestDataContext()), new DefaultResponse(r1));
+
+        assertThat(metricas.get("gateway.loadbalancer.instance.latency").tag("instance", "r1").gauge().value()).isEqualTo(0.04);
+        assertThat(metricas.get("gateway.loadbalancer.instance.inflight").tag("service", "ms-asesorias").gauge().value()).isEqualTo(1);
+
+        // r1 sale del registro de servicios: sus series también
+        registro.costo(instancia("r2", "1"), MS);
+        registro.retener(List.of(instancia("r2", "1")));
+        assertThat(metricas.find("gateway.loadbalancer.instance.latency").tag("instance", "r1").gauge()).isNull();
+        assertThat(metricas.find("gateway.loadbalancer.instance.latency").tag("instance", "r2").gauge()).isNotNull();
+    }
+
+    @FunctionalInterface
+    private interface Politica {
+        ServiceInstance elegir(List<ServiceInstance> instancias, RegistroLatencias registro);
+    }
+
+    private Resultado simular(RegistroLatencias registro, Politica politica, AtomicLong reloj) {
+        Random azar = new Random(42);
+        long[][] hilosLibres = new long[instancias.size()][HILOS_POR_REPLICA];
+        PriorityQueue<Fin> pendientes = new PriorityQueue<>((a, b) -> Long.compare(a.tiempo, b.tiempo));
+        long[] latencias = new long[PETICIONES];
+        int[] porInstancia = new int[instancias.size()];
+        long ahora = 0;
+
+        for (int n = 0; n < PETICIONES; n++) {
+            ahora += exponencial(azar, 1e9 / PETICIONES_POR_SEGUNDO);
+            while (!pendientes.isEmpty() && pendientes.peek().tiempo <= ahora) {
+                Fin fin = pendientes.poll();
+                reloj.set(fin.tiempo);
+                registro.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, fin.peticion, fin.respuesta));
+            }
+            reloj.set(ahora);
+            ServiceInstance elegida = politica.elegir(instancias, registro);
+            int i = instancias.indexOf(elegida);
+            porInstancia[i]++;
+
+            Request<Object> peticion = new DefaultRequest<>(new RequestDataContext());
+            Response<ServiceInstance> respuesta = new DefaultResponse(elegida);
+            registro.onStartRequest(peticion, respuesta);
+
+            // Réplica con HILOS_POR_REPLICA hilos y cola FIFO: empieza en el primer hilo libre
+            long[] hilos = hilosLibres[i];
+            int hilo = 0;
+            for (int h = 1; h < hilos.length; h++) {
+                if (hilos[h] < hilos[hilo]) {
+                    hilo = h;
+                }
+            }
+            long inicio = Math.max(ahora, hilos[hilo]);
+            long termina = inicio + exponencial(azar, servicioMedioNanos[i]);
+            hilos[hilo] = termina;
+            latencias[n] = termina - ahora;
+            pendientes.add(new Fin(termina, peticion, respuesta));
+        }
+        Arrays.sort(latencias);
+        return new Resultado(latencias, (double) porInstancia[instancias.size() - 1] / PETICIONES);
+    }
+
+    private static void completar(RegistroLatencias registro, ServiceInstance instancia, AtomicLong reloj, long latencia) {
+        Request<Object> peticion = new DefaultRequest<>(new RequestDataContext());
+        Response<ServiceInstance> respuesta = new DefaultResponse(instancia);
+        registro.onStartRequest(peticion, respuesta);
+        reloj.addAndGet(latencia);
+        registro.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, peticion, respuesta));
+    }
+
+    private static long exponencial(Random azar, double media) {
+        return (long) (-media * Math.log(1 - azar.nextDouble()));
+    }
+
+    private static ServiceInstance instancia(String id, String arranque) {
+        return new DefaultServiceInstance(id, "ms-asesorias", id + ".local", 8080, false, Map.of("arranque", arranque));
+    }
+
+    private record Fin(long tiempo, Request<Object> peticion, Response<ServiceInstance> respuesta) {
+    }
+
+    private record Resultado(long[] latencias, double fraccionLenta) {
+        long percentil(double p) {
+            return latencias[(int) Math.min(latencias.length - 1, Math.ceil(p * latencias.length) - 1)];
+        }
+    }
+}
@@ -8,11 +8,13 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.DependsOn;
 
 import java.time.LocalDate;
 
 @SpringBootApplication
 @EnableFeignClients
+@DependsOn("secuenciaUsuarios")  // el admin semilla toma id de la secuencia ya alineada
 @RequiredArgsConstructor
 public class MsAdminApplication {
   private final UsuarioRepository usuarioRepository;
@@ -0,0 +1,23 @@
+package com.uteq.admin.client;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+/**
+ * Snapshot de asignaciones en ms-asesorias (InternalSyncController).
+ * Llamada de servicio a servicio: el RoleInterceptor de ms-asesorias exige X-User-Role.
+ */
+@FeignClient(name = "ms-asesorias", contextId = "adminAsesoriasSyncClient")
+public interface MsAsesoriasClient {
+
+    @PostMapping(value = "/api/asesorias/internal/sync/perfil-profesor/{usuarioId}", headers = "X-User-Role=ADMIN")
+    void sincronizarPerfilProfesor(@PathVariable("usuarioId") Long usuarioId, @RequestBody PerfilAsignacion asignacion);
+
+    @PostMapping(value = "/api/asesorias/internal/sync/perfil-alumno/{usuarioId}", headers = "X-User-Role=ADMIN")
+    void sincronizarPerfilAlumno(@PathVariable("usuarioId") Long usuarioId, @RequestBody PerfilAsignacion asignacion);
+
+    record PerfilAsignacion(Long divisionId, Long programaId, Long version) {
+    }
+}
@@ -0,0 +1,72 @@
+package com.uteq.admin.config;
+
+import feign.Capability;
+import feign.Client;
+import feign.Request;
+import feign.RequestInterceptor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Propagación del plazo de DeadlineFilter a las llamadas Feign:
+ * se reenvía X-Request-Deadline y el read timeout de cada llamada se recorta a lo que queda del plazo.
+ * Con el plazo ya vencido la llamada no se hace (504).
+ */
+@Configuration
+public class DeadlineFeignConfig {
+
+    @Bean
+    public RequestInterceptor deadlineInterceptor() {
+        return template -> {
+            Long deadline = deadlineActual();
+            if (deadline != null) {
+                template.header(DeadlineFilter.CABECERA, String.valueOf(deadline));
+            }
+        };
+    }
+
+    /** Envuelve el Client de Feign (también el balanceado) para ajustar Request.Options por llamada. */
+    @Bean
+    public Capability deadlineCapability() {
+        return new DeadlineCapability();
+    }
+
+    /** Clase pública con nombre: Feign invoca enrich(...) por reflexión y no puede hacerlo sobre una anónima. */
+    public static class DeadlineCapability implements Capability {
+
+        @Override
+        public Client enrich(Client client) {
+            return (request, options) -> {
+                Long deadline = deadlineActual();
+                if (deadline == null) {
+                    return client.execute(request, options);
+                }
+                long restante = deadline - System.currentTimeMillis();
+                if (restante <= 0) {
+                    throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT,
+                            "Plazo vencido antes de llamar a " + request.url());
+                }
+                int lectura = (int) Math.min(options.readTimeoutMillis(), restante);
+                return client.execute(request, new Request.Options(
+                        options.connectTimeoutMillis(), TimeUnit.MILLISECONDS,
+                        lectura, TimeUnit.MILLISECONDS,
+                        options.isFollowRedirects()));
+            };
+        }
+    }
+
+    private static Long deadlineActual() {
+        RequestAttributes attrs = RequestContextHolder.getRequestAttributes();
+        if (attrs == null) {
+            return null;
+        }
+        Object valor = attrs.getAttribute(DeadlineFilter.ATRIBUTO, RequestAttributes.SCOPE_REQUEST);
+        return valor instanceof Long deadline ? deadline : null;
+    }
+}
@@ -0,0 +1,76 @@
+package com.uteq.admin.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Plazo absoluto de la petición (X-Request-Deadline, epoch en ms, lo pone el api-gateway).
+ * Si ya venció al llegar se responde 504 sin hacer el trabajo; si no, queda como atributo de la petición
+ * para que DeadlineFeignConfig lo propague y recorte los timeouts de las llamadas Feign.
+ * Métricas: http.deadline.expired{stage=on_arrival|in_flight}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    public static final String CABECERA = "X-Request-Deadline";
+    public static final String ATRIBUTO = DeadlineFilter.class.getName() + ".deadline";
+
+    private final Counter expiradasAlLlegar;
+    private final Counter expiradasEnCurso;
+
+    public DeadlineFilter(MeterRegistry meterRegistry) {
+        this.expiradasAlLlegar = Counter.builder("http.deadline.expired")
+                .description("Peticiones cuyo plazo ya había vencido al llegar")
+                .tag("stage", "on_arrival")
+                .register(meterRegistry);
+        this.expiradasEnCurso = Counter.builder("http.deadline.expired")
+                .description("Peticiones que terminaron después de su plazo")
+                .tag("stage", "in_flight")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Long deadline = leer(request.getHeader(CABECERA));
+        if (deadline == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (System.currentTimeMillis() >= deadline) {
+            expiradasAlLlegar.increment();
+            response.sendError(HttpServletResponse.SC_GATEWAY_TIMEOUT, "Plazo de la petición vencido");
+            return;
+        }
+        request.setAttribute(ATRIBUTO, deadline);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (System.currentTimeMillis() > deadline) {
+                expiradasEnCurso.increment();
+            }
+        }
+    }
+
+    private static Long leer(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(valor.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.uteq.admin.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool dedicado a BCrypt (cifrar y verificar contraseñas): tantos hilos como núcleos y cola acotada.
+ * Con la cola llena la tarea se rechaza al momento (AbortPolicy) y el login responde 503,
+ * en vez de ocupar más CPU o dejar hilos de Tomcat esperando.
+ */
+@Configuration
+public class HashExecutorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor hashExecutor(
+            @Value("${app.security.hash.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int hilos,
+            @Value("${app.security.hash.queue-size:64}") int tamanoCola) {
+        AtomicInteger contador = new AtomicInteger();
+        return new ThreadPoolExecutor(hilos, hilos, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(tamanoCola),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "admin-hash-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
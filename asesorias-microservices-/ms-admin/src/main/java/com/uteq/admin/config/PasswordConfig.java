@@ -0,0 +1,16 @@
+package com.uteq.admin.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+@Configuration
+public class PasswordConfig {
+
+    @Bean
+    public PasswordEncoder passwordEncoder(@Value("${app.security.bcrypt-strength:10}") int fuerza) {
+        return new BCryptPasswordEncoder(fuerza);
+    }
+}
@@ -2,6 +2,7 @@ package com.uteq.admin.config;
 
 import com.uteq.admin.repository.AlumnoPerfilRepository;
 import com.uteq.admin.repository.ProfesorPerfilRepository;
+import com.uteq.admin.service.ClaimsPerfilService;
 import com.uteq.admin.service.PerfilService;
 import com.uteq.admin.service.PerfilServiceImpl;
 import org.springframework.context.annotation.Bean;
@@ -13,7 +14,8 @@ public class PerfilAutoConfig {
 
     @Bean
     @Primary
-    public PerfilService perfilService(ProfesorPerfilRepository profRepo, AlumnoPerfilRepository alumRepo) {
-        return new PerfilServiceImpl(profRepo, alumRepo);
+    public PerfilService perfilService(ProfesorPerfilRepository profRepo, AlumnoPerfilRepository alumRepo,
+                                      ClaimsPerfilService claimsPerfil) {
+        return new PerfilServiceImpl(profRepo, alumRepo, claimsPerfil);
     }
 }
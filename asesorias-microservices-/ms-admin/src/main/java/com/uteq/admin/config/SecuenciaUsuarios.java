@@ -0,0 +1,45 @@
+package com.uteq.admin.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Alinea usuarios_seq con los ids ya existentes. Las bases creadas cuando Usuario usaba IDENTITY tienen filas
+ * pero la secuencia nueva empieza en 1, y el primer bloque chocaría con ellas.
+ * <p>
+ * Con el optimizador pooled el valor de la secuencia es el extremo alto del bloque (ids v-49..v), así que
+ * se reinicia en max(id) + ASIGNACION. Si la secuencia ya va por delante no se toca: otra réplica puede
+ * estar usando bloques suyos.
+ */
+@Component
+@Slf4j
+public class SecuenciaUsuarios {
+
+    public static final int ASIGNACION = 50;
+    private static final String SECUENCIA = "usuarios_seq";
+
+    private final JdbcTemplate jdbc;
+    private final EntityManagerFactory entityManagerFactory;
+
+    // Depender de la EntityManagerFactory asegura que Hibernate ya creó la secuencia (ddl-auto)
+    public SecuenciaUsuarios(JdbcTemplate jdbc, EntityManagerFactory entityManagerFactory) {
+        this.jdbc = jdbc;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    void alinear() {
+        String siguienteSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport().getSequenceNextValString(SECUENCIA);
+        long siguiente = jdbc.queryForObject(siguienteSql, Long.class);
+        long maximo = jdbc.queryForObject("select coalesce(max(id), 0) from usuarios", Long.class);
+        if (siguiente - ASIGNACION + 1 <= maximo) {
+            jdbc.execute("alter sequence " + SECUENCIA + " restart with " + (maximo + ASIGNACION));
+            log.info("{} reiniciada tras el id {}", SECUENCIA, maximo);
+        }
+    }
+}
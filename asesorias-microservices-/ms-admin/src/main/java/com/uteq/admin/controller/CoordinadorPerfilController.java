@@ -7,7 +7,6 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -15,6 +14,7 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class CoordinadorPerfilController {
     private final CoordinadorPerfilService service;
+    private final Paginacion paginacion;
 
     @PostMapping
     public ResponseEntity<CoordinadorPerfil> crear(@RequestBody CoordinadorPerfilDTO dto) {
@@ -36,24 +36,54 @@ public class CoordinadorPerfilController {
         return ResponseEntity.ok(service.obtenerPorUsuarioId(usuarioId));
     }
 
+    // Listados por cursor (limit, after); completo=true devuelve las entidades enteras como antes
     @GetMapping
-    public ResponseEntity<List<CoordinadorPerfil>> listarTodos() {
-        return ResponseEntity.ok(service.listarTodos());
+    public ResponseEntity<?> listarTodos(@RequestParam(required = false) Long divisionId,
+                                         @RequestParam(required = false) Long programaId,
+                                         @RequestParam(required = false) Boolean activo,
+                                         @RequestParam(required = false) Long after,
+                                         @RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) Boolean completo) {
+        if (paginacion.completo(completo)) {
+            return ResponseEntity.ok(service.listarTodos());
+        }
+        return paginacion.respuesta(service.pagina(divisionId, programaId, activo,
+                paginacion.despuesDe(after), paginacion.limite(limit)));
     }
 
     @GetMapping("/activos/listar")
-    public ResponseEntity<List<CoordinadorPerfil>> listarActivos() {
-        return ResponseEntity.ok(service.listarActivos());
+    public ResponseEntity<?> listarActivos(@RequestParam(required = false) Long after,
+                                           @RequestParam(required = false) Integer limit,
+                                           @RequestParam(required = false) Boolean completo) {
+        if (paginacion.completo(completo)) {
+            return ResponseEntity.ok(service.listarActivos());
+        }
+        return paginacion.respuesta(service.pagina(null, null, true,
+                paginacion.despuesDe(after), paginacion.limite(limit)));
     }
 
     @GetMapping("/division/{divisionId}")
-    public ResponseEntity<List<CoordinadorPerfil>> listarPorDivision(@PathVariable Long divisionId) {
-        return ResponseEntity.ok(service.listarPorDivision(divisionId));
+    public ResponseEntity<?> listarPorDivision(@PathVariable Long divisionId,
+                                               @RequestParam(required = false) Long after,
+                                               @RequestParam(required = false) Integer limit,
+                                               @RequestParam(required = false) Boolean completo) {
+        if (paginacion.completo(completo)) {
+            return ResponseEntity.ok(service.listarPorDivision(divisionId));
+        }
+        return paginacion.respuesta(service.pagina(divisionId, null, null,
+                paginacion.despuesDe(after), paginacion.limite(limit)));
     }
 
     @GetMapping("/programa/{programaId}")
-    public ResponseEntity<List<CoordinadorPerfil>> listarPorPrograma(@PathVariable Long programaId) {
-        return ResponseEntity.ok(service.listarPorPrograma(programaId));
+    public ResponseEntity<?> listarPorPrograma(@PathVariable Long programaId,
+                                               @RequestParam(required = false) Long after,
+                                               @RequestParam(required = false) Integer limit,
+                                               @RequestParam(required = false) Boolean completo) {
+        if (paginacion.completo(completo)) {
+            return ResponseEntity.ok(service.listarPorPrograma(programaId));
+        }
+        return paginacion.respuesta(service.pagina(null, programaId, null,
+                paginacion.despuesDe(after), paginacion.limite(limit)));
     }
 
     @DeleteMapping("/{id}")
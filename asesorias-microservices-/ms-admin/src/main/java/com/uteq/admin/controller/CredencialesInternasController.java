@@ -0,0 +1,34 @@
+package com.uteq.admin.controller;
+
+import com.uteq.admin.dto.CredencialesPaginaDTO;
+import com.uteq.admin.service.CredencialesService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Endpoints sólo para ms-auth (el gateway los bloquea): proyección de credenciales y ultimoAcceso
+ * de los logins que ms-auth resolvió sin llamar aquí.
+ */
+@RestController
+@RequestMapping("/api/admin/internal")
+@RequiredArgsConstructor
+public class CredencialesInternasController {
+
+    private final CredencialesService service;
+
+    // Sin "desde": carga completa paginada por id. Con "desde" (epoch ms): cambios posteriores
+    @GetMapping("/credenciales")
+    public ResponseEntity<CredencialesPaginaDTO> credenciales(@RequestParam(required = false) Long desde,
+                                                              @RequestParam(defaultValue = "0") Long despuesDeId,
+                                                              @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(service.pagina(desde, despuesDeId, limit));
+    }
+
+    @PostMapping("/usuarios/ultimo-acceso")
+    public ResponseEntity<Integer> registrarAccesos(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(service.registrarAccesos(ids));
+    }
+}
@@ -0,0 +1,63 @@
+package com.uteq.admin.controller;
+
+import com.uteq.admin.service.ExportacionService;
+import com.uteq.admin.service.ExportacionService.Formato;
+import com.uteq.admin.service.ExportacionService.TipoPerfil;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Exportación completa en NDJSON (por defecto) o CSV (?formato=csv), escrita en la respuesta según
+ * se lee de la base de datos. Para pantallas usar los listados paginados.
+ */
+@RestController
+@RequiredArgsConstructor
+public class ExportacionController {
+
+    private final ExportacionService service;
+
+    @GetMapping("/api/admin/usuarios/export")
+    public void exportarUsuarios(@RequestParam(required = false) Long rolId,
+                                 @RequestParam(required = false) Boolean activo,
+                                 @RequestParam(defaultValue = "ndjson") String formato,
+                                 HttpServletResponse response) throws IOException {
+        Formato f = Formato.de(formato);
+        exportar(response, f, "usuarios", destino -> service.exportarUsuarios(rolId, activo, f, destino));
+    }
+
+    @GetMapping("/api/admin/perfiles/export")
+    public void exportarPerfiles(@RequestParam(required = false) String tipo,
+                                 @RequestParam(defaultValue = "ndjson") String formato,
+                                 HttpServletResponse response) throws IOException {
+        Formato f = Formato.de(formato);
+        TipoPerfil t = TipoPerfil.de(tipo);
+        exportar(response, f, "perfiles", destino -> service.exportarPerfiles(t, f, destino));
+    }
+
+    private void exportar(HttpServletResponse response, Formato formato, String nombre,
+                          Consumer<Writer> exportacion) throws IOException {
+        service.reservar();
+        try {
+            response.setContentType(formato.tipoContenido());
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + nombre + "." + formato.extension() + "\"");
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+            exportacion.accept(response.getWriter());
+        } catch (RuntimeException e) {
+            // Sin nada enviado aún, se quitan las cabeceras de descarga para que el error salga como JSON normal
+            if (!response.isCommitted()) {
+                response.reset();
+            }
+            throw e;
+        } finally {
+            service.liberar();
+        }
+    }
+}
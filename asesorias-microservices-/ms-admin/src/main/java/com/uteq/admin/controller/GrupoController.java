@@ -7,13 +7,13 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/grupos")
 @RequiredArgsConstructor
 public class GrupoController {
     private final GrupoService service;
+    private final Paginacion paginacion;
 
     @PostMapping
     public ResponseEntity<Grupo> crear(@RequestBody GrupoDTO dto) {
@@ -30,29 +30,67 @@ public class GrupoController {
         return ResponseEntity.ok(service.obtenerPorId(id));
     }
 
+    // Listados por cursor (limit, after); completo=true devuelve las entidades enteras como antes
     @GetMapping
-    public ResponseEntity<List<Grupo>> listarTodos() {
-        return ResponseEntity.ok(service.listarTodos());
+    public ResponseEntity<?> listarTodos(@RequestParam(required = false) Long profesorId,
+                                         @RequestParam(required = false) Long divisionId,
+                                         @RequestParam(required = false) Long programaId,
+                                         @RequestParam(required = false) Boolean activo,
+                                         @RequestParam(required = false) Long after,
+                                         @RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) Boolean completo) {
+        if (paginacion.completo(completo)) {
+            return ResponseEntity.ok(service.listarTodos());
+        }
+        return paginacion.respuesta(service.pagina(profesorId, divisionId, programaId, activo,
+                paginacion.despuesDe(after), paginacion.limite(limit)));
     }
 
     @GetMapping("/activos/listar")
-    public ResponseEntity<List<Grupo>> listarActivos() {
-        return ResponseEntity.ok(service.listarActivos());
+    public ResponseEntity<?> listarActivos(@RequestParam(required = false) Long after,
+                                           @RequestParam(required = false) Integer limit,
+                                           @RequestParam(required = false) Boolean completo) {
+        if (paginacion.completo(completo)) {
+            return ResponseEntity.ok(service.listarActivos());
+        }
+        return paginacion.respuesta(service.pagina(null, null, null, true,
+                paginacion.despuesDe(after), paginacion.limite(limit)));
     }
 
     @GetMapping("/profesor/{profesorId}")
-    public ResponseEntity<List<Grupo>> listarPorProfesor(@PathVariable Long profesorId) {
-        return ResponseEntity.ok(service.listarPorProfesor(profesorId));
+    public ResponseEntity<?> listarPorProfesor(@PathVariable Long profesorId,
+                                               @RequestParam(required = false) Long after,
+                                               @RequestParam(required = false) Integer limit,
+                                               @RequestParam(required = false) Boolean completo) {
+        if (paginacion.completo(completo)) {
+            return ResponseEntity.ok(service.listarPorProfesor(profesorId));
+        }
+        return paginacion.respuesta(service.pagina(profesorId, null, null, null,
+                paginacion.despuesDe(after), paginacion.limite(limit)));
     }
 
     @GetMapping("/division/{divisionId}")
-    public ResponseEntity<List<Grupo>> listarPorDivision(@PathVariable Long divisionId) {
-        return ResponseEntity.ok(service.listarPorDivision(divisionId));
+    public ResponseEntity<?> listarPorDivision(@PathVariable Long divisionId,
+                                               @RequestParam(required = false) Long after,
+                                               @RequestParam(required = false) Integer limit,
+                                               @RequestParam(required = false) Boolean completo) {
+        if (paginacion.completo(completo)) {
+            return ResponseEntity.ok(service.listarPorDivision(divisionId));
+        }
+        return paginacion.respuesta(service.pagina(null, divisionId, null, null,
+                paginacion.despuesDe(after), paginacion.limite(limit)));
     }
 
     @GetMapping("/programa/{programaId}")
-    public ResponseEntity<List<Grupo>> listarPorPrograma(@PathVariable Long programaId) {
-        return ResponseEntity.ok(service.listarPorPrograma(programaId));
+    public ResponseEntity<?> listarPorPrograma(@PathVariable Long programaId,
+                                               @RequestParam(required = false) Long after,
+                                               @RequestParam(required = false) Integer limit,
+                                               @RequestParam(required = false) Boolean completo) {
+        if (paginacion.completo(completo)) {
+            return ResponseEntity.ok(service.listarPorPrograma(programaId));
+        }
+        return paginacion.respuesta(service.pagina(null, null, programaId, null,
+                paginacion.despuesDe(after), paginacion.limite(limit)));
     }
 
     @DeleteMapping("/{id}")
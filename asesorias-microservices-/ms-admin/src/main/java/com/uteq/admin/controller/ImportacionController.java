@@ -0,0 +1,57 @@
+package com.uteq.admin.controller;
+
+import com.uteq.admin.dto.ImportacionDTO;
+import com.uteq.admin.service.ImportacionUsuariosService;
+import com.uteq.admin.service.ImportacionUsuariosService.Formato;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Alta masiva de usuarios. El archivo va como multipart (campo "archivo") o como cuerpo text/csv,
+ * application/json o application/x-ndjson; se responde 202 con la URL de estado en Location.
+ */
+@RestController
+@RequestMapping("/api/admin/importaciones")
+@RequiredArgsConstructor
+public class ImportacionController {
+
+    private final ImportacionUsuariosService service;
+
+    @PostMapping(path = "/usuarios", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportacionDTO> importarArchivo(@RequestParam("archivo") MultipartFile archivo,
+                                                          @RequestParam(required = false) String formato) throws IOException {
+        Formato f = Formato.de(formato, archivo.getOriginalFilename(), archivo.getContentType());
+        return aceptada(service.encolar(archivo.getInputStream(), f));
+    }
+
+    @PostMapping(path = "/usuarios", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ImportacionDTO> importarCuerpo(@RequestParam(required = false) String formato,
+                                                         HttpServletRequest request) throws IOException {
+        Formato f = Formato.de(formato, null, request.getContentType());
+        return aceptada(service.encolar(request.getInputStream(), f));
+    }
+
+    @GetMapping("/{id}")
+    public ImportacionDTO estado(@PathVariable String id) {
+        return service.estado(id);
+    }
+
+    @GetMapping
+    public List<ImportacionDTO> listar() {
+        return service.listar();
+    }
+
+    private static ResponseEntity<ImportacionDTO> aceptada(ImportacionDTO importacion) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/admin/importaciones/" + importacion.getId()))
+                .body(importacion);
+    }
+}
@@ -0,0 +1,71 @@
+package com.uteq.admin.controller;
+
+import com.uteq.admin.dto.PaginaDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.Collection;
+
+/**
+ * Parámetros comunes de los listados: limit/after por cursor y completo=true para la respuesta
+ * antigua (lista entera, sin paginar). La página siguiente va también en la cabecera Link (rel="next").
+ */
+@Component
+public class Paginacion {
+
+    @Value("${app.listados.limit-default:100}")
+    private int limiteDefecto;
+
+    @Value("${app.listados.limit-max:1000}")
+    private int limiteMaximo;
+
+    // Sólo para clientes antiguos durante la migración: sin el parámetro completo se responde la lista entera
+    @Value("${app.listados.completo-por-defecto:false}")
+    private boolean completoPorDefecto;
+
+    public boolean completo(Boolean completo) {
+        return completo != null ? completo : completoPorDefecto;
+    }
+
+    public int limite(Integer limit) {
+        if (limit == null) {
+            return limiteDefecto;
+        }
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit debe ser >= 1");
+        }
+        return Math.min(limit, limiteMaximo);
+    }
+
+    /** Consulta por lote de ids (?ids=1,2,3): como mucho limit-max, igual que una página. */
+    public void comprobarIds(Collection<Long> ids) {
+        if (ids.size() > limiteMaximo) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Como mucho " + limiteMaximo + " ids por consulta");
+        }
+    }
+
+    public long despuesDe(Long after) {
+        return after != null ? after : 0L;
+    }
+
+    public <T> ResponseEntity<PaginaDTO<T>> respuesta(PaginaDTO<T> pagina) {
+        if (pagina.getSiguiente() == null) {
+            return ResponseEntity.ok(pagina);
+        }
+        // Relativa: detrás del gateway el host de la petición es el de la instancia, no el público
+        String siguiente = ServletUriComponentsBuilder.fromCurrentRequest()
+                .scheme(null).host(null).port(-1)
+                .replaceQueryParam("after", pagina.getSiguiente())
+                .replaceQueryParam("limit", pagina.getLimit())
+                .build()
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, "<" + siguiente + ">; rel=\"next\"")
+                .body(pagina);
+    }
+}
@@ -4,16 +4,16 @@ import com.uteq.admin.entity.AlumnoPerfil;
 import com.uteq.admin.entity.ProfesorPerfil;
 import com.uteq.admin.service.PerfilService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/admin/perfiles")
 @RequiredArgsConstructor
 public class PerfilController {
 
     private final PerfilService service;
+    private final Paginacion paginacion;
 
     // 🔹 Crear perfil de profesor
     @PostMapping("/profesor")
@@ -39,14 +39,32 @@ public class PerfilController {
         return service.porAlumnoUsuario(usuarioId);
     }
 
-    // ✅ NUEVOS MÉTODOS: Listar todos los perfiles
+    // ✅ Listar perfiles: por cursor (limit, after) con filtros; completo=true devuelve las entidades como antes
     @GetMapping("/profesor")
-    public List<ProfesorPerfil> listarProfesores() {
-        return service.listarProfesores();
+    public ResponseEntity<?> listarProfesores(@RequestParam(required = false) Long divisionId,
+                                              @RequestParam(required = false) Long programaId,
+                                              @RequestParam(required = false) Boolean activo,
+                                              @RequestParam(required = false) Long after,
+                                              @RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) Boolean completo) {
+        if (paginacion.completo(completo)) {
+            return ResponseEntity.ok(service.listarProfesores());
+        }
+        return paginacion.respuesta(service.paginaProfesores(divisionId, programaId, activo,
+                paginacion.despuesDe(after), paginacion.limite(limit)));
     }
 
     @GetMapping("/alumno")
-    public List<AlumnoPerfil> listarAlumnos() {
-        return service.listarAlumnos();
+    public ResponseEntity<?> listarAlumnos(@RequestParam(required = false) Long divisionId,
+                                           @RequestParam(required = false) Long programaId,
+                                           @RequestParam(required = false) Boolean activo,
+                                           @RequestParam(required = false) Long after,
+                                           @RequestParam(required = false) Integer limit,
+                                           @RequestParam(required = false) Boolean completo) {
+        if (paginacion.completo(completo)) {
+            return ResponseEntity.ok(service.listarAlumnos());
+        }
+        return paginacion.respuesta(service.paginaAlumnos(divisionId, programaId, activo,
+                paginacion.despuesDe(after), paginacion.limite(limit)));
     }
 }
@@ -3,12 +3,15 @@ package com.uteq.admin.controller;
 import com.uteq.admin.dto.UsuarioDTO;
 import com.uteq.admin.dto.UsuarioCrearDTO;
 import com.uteq.admin.entity.Usuario;
+import com.uteq.admin.service.ClaimsPerfilService;
 import com.uteq.admin.service.UsuarioService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/admin/usuarios")
@@ -16,15 +19,31 @@ import java.util.List;
 public class UsuarioController {
 
     private final UsuarioService service;
+    private final ClaimsPerfilService claimsPerfil;
+    private final Paginacion paginacion;
 
     @PostMapping
     public ResponseEntity<UsuarioDTO> crear(@RequestBody UsuarioCrearDTO dto) {
         return ResponseEntity.status(HttpStatus.CREATED).body(service.crearDTO(dto));
     }
 
+    // Por cursor (limit, after) con filtros opcionales; completo=true devuelve la lista entera como antes.
+    // ids=1,2,3 devuelve sólo esos usuarios (los que existan), sin paginar: para cargas por lote
     @GetMapping
-    public ResponseEntity<List<UsuarioDTO>> listar() {
-        return ResponseEntity.ok(service.listar());
+    public ResponseEntity<?> listar(@RequestParam(required = false) Long rolId,
+                                    @RequestParam(required = false) Boolean activo,
+                                    @RequestParam(required = false) Long after,
+                                    @RequestParam(required = false) Integer limit,
+                                    @RequestParam(required = false) Boolean completo,
+                                    @RequestParam(required = false) Set<Long> ids) {
+        if (ids != null) {
+            paginacion.comprobarIds(ids);
+            return ResponseEntity.ok(service.porIds(ids));
+        }
+        if (paginacion.completo(completo)) {
+            return ResponseEntity.ok(service.listar());
+        }
+        return paginacion.respuesta(service.pagina(rolId, activo, paginacion.despuesDe(after), paginacion.limite(limit)));
     }
 
     @GetMapping("/{id}")
@@ -71,8 +90,12 @@ public class UsuarioController {
                 dto.setRolId(null);
                 dto.setRolNombre("SIN_ROL");
             }
-            
+            claimsPerfil.completar(dto, usuario);
+
             return ResponseEntity.ok(dto);
+        } catch (ResponseStatusException e) {
+            // 503 del pool de BCrypt saturado: no es un error de credenciales
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("{\"error\":\"" + (e.getMessage() != null ? e.getMessage() : "Unknown") + "\"}");
         }
@@ -103,13 +126,24 @@ public class UsuarioController {
     }
 
     @GetMapping("/rol/{rolId}")
-    public ResponseEntity<List<UsuarioDTO>> listarPorRol(@PathVariable Long rolId) {
-        return ResponseEntity.ok(service.listarPorRol(rolId));
+    public ResponseEntity<?> listarPorRol(@PathVariable Long rolId,
+                                          @RequestParam(required = false) Long after,
+                                          @RequestParam(required = false) Integer limit,
+                                          @RequestParam(required = false) Boolean completo) {
+        if (paginacion.completo(completo)) {
+            return ResponseEntity.ok(service.listarPorRol(rolId));
+        }
+        return paginacion.respuesta(service.pagina(rolId, null, paginacion.despuesDe(after), paginacion.limite(limit)));
     }
 
     @GetMapping("/activos/listar")
-    public ResponseEntity<List<UsuarioDTO>> listarActivos() {
-        return ResponseEntity.ok(service.listarActivos());
+    public ResponseEntity<?> listarActivos(@RequestParam(required = false) Long after,
+                                          @RequestParam(required = false) Integer limit,
+                                          @RequestParam(required = false) Boolean completo) {
+        if (paginacion.completo(completo)) {
+            return ResponseEntity.ok(service.listarActivos());
+        }
+        return paginacion.respuesta(service.pagina(null, true, paginacion.despuesDe(after), paginacion.limite(limit)));
     }
 }
 
@@ -0,0 +1,28 @@
+package com.uteq.admin.dto;
+
+import lombok.*;
+
+/**
+ * Fila de la proyección de credenciales que ms-auth mantiene para responder el login sin llamar aquí.
+ * passwordHash va en null mientras la fila conserve la contraseña antigua en claro: esa cuenta
+ * se sigue autenticando contra ms-admin.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CredencialDTO {
+    private Long id;
+    private String correoMatricula;
+    private String passwordHash;
+    private String nombre;
+    private String apellido;
+    private Boolean activo;
+    private Long rolId;
+    private String rolNombre;
+    private Long divisionId;
+    private Long programaId;
+    private Long versionPerfil;
+    // Cursor del pull incremental (epoch ms); null en filas sin cambios desde que existe la columna
+    private Long actualizada;
+}
@@ -0,0 +1,17 @@
+package com.uteq.admin.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CredencialesPaginaDTO {
+    private List<CredencialDTO> credenciales;
+    // Ids eliminados desde "desde" (sólo en el pull incremental)
+    private List<Long> borrados;
+    // Usuarios existentes en total: ms-auth lo compara con su proyección como red de seguridad si se pierde una lápida
+    private long totalUsuarios;
+}
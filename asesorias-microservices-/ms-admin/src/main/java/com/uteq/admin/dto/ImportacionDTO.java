@@ -0,0 +1,42 @@
+package com.uteq.admin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Estado de una importación masiva de usuarios. errores trae como mucho app.import.max-errors filas;
+ * totalErrores las cuenta todas.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportacionDTO {
+    private String id;
+    private String estado;          // EN_COLA, PROCESANDO, COMPLETADA, FALLIDA
+    private String formato;
+    private long leidas;
+    private long insertadas;
+    private long duplicadas;        // ya existían o repetidas en el propio archivo
+    private long totalErrores;
+    private double filasPorSegundo;
+    private Instant creada;
+    private Instant inicio;
+    private Instant fin;
+    private String mensaje;         // causa si FALLIDA
+    private List<ErrorFila> errores;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ErrorFila {
+        private long fila;          // línea de datos, 1 = la primera tras la cabecera
+        private String correoMatricula;
+        private String motivo;
+    }
+}
@@ -0,0 +1,29 @@
+package com.uteq.admin.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de un listado por cursor (keyset sobre id). "siguiente" es el valor de after para pedir
+ * la página siguiente; null en la última.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaginaDTO<T> {
+    private List<T> items;
+    private Long siguiente;
+    private int limit;
+
+    /** filas se pidió con limite + 1: la fila sobrante sólo indica que hay más. */
+    public static <T> PaginaDTO<T> de(List<T> filas, int limite, Function<T, Long> id) {
+        if (filas.size() <= limite) {
+            return new PaginaDTO<>(filas, null, limite);
+        }
+        List<T> items = filas.subList(0, limite);
+        return new PaginaDTO<>(items, id.apply(items.get(limite - 1)), limite);
+    }
+}
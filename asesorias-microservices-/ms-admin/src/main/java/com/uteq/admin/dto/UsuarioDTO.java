@@ -15,4 +15,8 @@ public class UsuarioDTO {
     private String rolNombre;
     private Long rolId;
     private Boolean activo;
+    // Claims de perfil para ms-auth (sólo en login y GET /usuarios/{id})
+    private Long divisionId;
+    private Long programaId;
+    private Long versionPerfil;
 }
@@ -1,7 +1,9 @@
 package com.uteq.admin.entity;
 
+import com.uteq.admin.config.SecuenciaUsuarios;
 import jakarta.persistence.*;
 import lombok.*;
+import java.time.Instant;
 import java.time.LocalDate;
 
 @Entity
@@ -11,8 +13,13 @@ import java.time.LocalDate;
 @Builder
 @Table(name = "usuarios")
 public class Usuario {
+    /**
+     * Secuencia con bloques de 50 (optimizador pooled): permite insertar en lotes JDBC, cosa que IDENTITY impide.
+     * SecuenciaUsuarios la adelanta al arrancar si hay filas con ids anteriores a ella.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "usuarios_seq")
+    @SequenceGenerator(name = "usuarios_seq", sequenceName = "usuarios_seq", allocationSize = SecuenciaUsuarios.ASIGNACION)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -38,4 +45,13 @@ public class Usuario {
     private LocalDate fechaActualizacion;
 
     private LocalDate ultimoAcceso;
+
+    /** Se incrementa en cada reasignación de división/programa; viaja en el token como claim "pv". */
+    private Long versionPerfil;
+
+    /**
+     * Último cambio en lo que ms-auth proyecta para el login (correo, contraseña, rol, estado, asignación).
+     * Es el cursor del pull incremental de GET /api/admin/internal/credenciales.
+     */
+    private Instant credencialActualizada;
 }
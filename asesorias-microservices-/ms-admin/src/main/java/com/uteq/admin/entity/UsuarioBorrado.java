@@ -0,0 +1,22 @@
+package com.uteq.admin.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/** Lápida de un usuario eliminado: el pull incremental de credenciales de ms-auth la recibe como borrado. */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "usuarios_borrados")
+public class UsuarioBorrado {
+    @Id
+    @Column(name = "usuario_id")
+    private Long usuarioId;  // ID del usuario eliminado (la secuencia no lo reutiliza)
+
+    @Column(nullable = false)
+    private Instant borrado;
+}
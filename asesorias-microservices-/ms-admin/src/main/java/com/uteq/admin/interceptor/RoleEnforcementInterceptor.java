@@ -15,7 +15,8 @@ public class RoleEnforcementInterceptor implements HandlerInterceptor {
     private boolean esPublica(String path) {
         // Endpoints que deben ser accesibles sin autenticación previa
         return path.startsWith("/api/auth/") // cualquier auth público que se enrute por error
-                || path.startsWith("/api/admin/usuarios") // permitir bootstrap de usuarios
+                || (path.startsWith("/api/admin/usuarios") // permitir bootstrap de usuarios
+                    && !path.startsWith("/api/admin/usuarios/export")) // la exportación completa sí exige ADMIN
                 || path.startsWith("/actuator")
                 || path.startsWith("/eureka");
     }
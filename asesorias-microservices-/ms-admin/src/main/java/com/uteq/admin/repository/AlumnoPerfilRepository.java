@@ -1,7 +1,38 @@
 package com.uteq.admin.repository;
+import com.uteq.admin.dto.AlumnoPerfilDTO;
 import com.uteq.admin.entity.AlumnoPerfil;
+import com.uteq.admin.repository.proyeccion.PerfilFila;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 public interface AlumnoPerfilRepository extends JpaRepository<AlumnoPerfil, Long> {
   Optional<AlumnoPerfil> findByUsuarioId(Long usuarioId);
+  List<AlumnoPerfil> findByUsuarioIdIn(Collection<Long> usuarioIds);
+
+  // Listado por cursor sin cargar División ni Programa (sólo sus ids, que son la FK)
+  @Query("select new com.uteq.admin.dto.AlumnoPerfilDTO(p.id, p.usuarioId, p.division.id, p.programa.id, p.activo)"
+      + " from AlumnoPerfil p where p.id > :despuesDe"
+      + " and (:divisionId is null or p.division.id = :divisionId)"
+      + " and (:programaId is null or p.programa.id = :programaId)"
+      + " and (:activo is null or p.activo = :activo)"
+      + " order by p.id")
+  List<AlumnoPerfilDTO> pagina(@Param("despuesDe") long despuesDe, @Param("divisionId") Long divisionId,
+                  @Param("programaId") Long programaId, @Param("activo") Boolean activo, Pageable limite);
+
+  // Exportación: cursor de sólo avance leído por bloques de fetch size
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("select new com.uteq.admin.repository.proyeccion.PerfilFila('ALUMNO', p.id, p.usuarioId, p.division.id, p.programa.id, p.activo)"
+      + " from AlumnoPerfil p order by p.id")
+  Stream<PerfilFila> exportar();
 }
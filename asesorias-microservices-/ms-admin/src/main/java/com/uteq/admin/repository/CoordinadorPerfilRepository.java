@@ -1,17 +1,33 @@
 package com.uteq.admin.repository;
 
+import com.uteq.admin.dto.CoordinadorPerfilDTO;
 import com.uteq.admin.entity.CoordinadorPerfil;
 import com.uteq.admin.entity.Division;
 import com.uteq.admin.entity.Programa;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CoordinadorPerfilRepository extends JpaRepository<CoordinadorPerfil, Long> {
     Optional<CoordinadorPerfil> findByUsuarioId(Long usuarioId);
+    List<CoordinadorPerfil> findByUsuarioIdIn(Collection<Long> usuarioIds);
     List<CoordinadorPerfil> findByDivision(Division division);
     List<CoordinadorPerfil> findByPrograma(Programa programa);
     List<CoordinadorPerfil> findByActivo(Boolean activo);
+
+    // Listado por cursor sin cargar División ni Programa (sólo sus ids, que son la FK)
+    @Query("select new com.uteq.admin.dto.CoordinadorPerfilDTO(c.id, c.usuarioId, c.division.id, c.programa.id, c.activo)"
+            + " from CoordinadorPerfil c where c.id > :despuesDe"
+            + " and (:divisionId is null or c.division.id = :divisionId)"
+            + " and (:programaId is null or c.programa.id = :programaId)"
+            + " and (:activo is null or c.activo = :activo)"
+            + " order by c.id")
+    List<CoordinadorPerfilDTO> pagina(@Param("despuesDe") long despuesDe, @Param("divisionId") Long divisionId,
+                                      @Param("programaId") Long programaId, @Param("activo") Boolean activo, Pageable limite);
 }
@@ -1,10 +1,14 @@
 package com.uteq.admin.repository;
 
+import com.uteq.admin.dto.GrupoDTO;
 import com.uteq.admin.entity.Grupo;
 import com.uteq.admin.entity.Division;
 import com.uteq.admin.entity.Programa;
 import com.uteq.admin.entity.ProfesorPerfil;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
@@ -17,4 +21,16 @@ public interface GrupoRepository extends JpaRepository<Grupo, Long> {
     List<Grupo> findByProfesorAndDivision(ProfesorPerfil profesor, Division division);
     List<Grupo> findByActivo(Boolean activo);
     Optional<Grupo> findByNombreAndProfesor(String nombre, ProfesorPerfil profesor);
+
+    // Listado por cursor sin cargar Profesor, División ni Programa (sólo sus ids, que son la FK)
+    @Query("select new com.uteq.admin.dto.GrupoDTO(g.id, g.nombre, g.descripcion, g.profesor.id, g.division.id, g.programa.id, g.activo)"
+            + " from Grupo g where g.id > :despuesDe"
+            + " and (:profesorId is null or g.profesor.id = :profesorId)"
+            + " and (:divisionId is null or g.division.id = :divisionId)"
+            + " and (:programaId is null or g.programa.id = :programaId)"
+            + " and (:activo is null or g.activo = :activo)"
+            + " order by g.id")
+    List<GrupoDTO> pagina(@Param("despuesDe") long despuesDe, @Param("profesorId") Long profesorId,
+                          @Param("divisionId") Long divisionId, @Param("programaId") Long programaId,
+                          @Param("activo") Boolean activo, Pageable limite);
 }
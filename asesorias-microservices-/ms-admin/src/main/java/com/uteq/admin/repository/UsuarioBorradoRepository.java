@@ -0,0 +1,21 @@
+package com.uteq.admin.repository;
+
+import com.uteq.admin.entity.UsuarioBorrado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface UsuarioBorradoRepository extends JpaRepository<UsuarioBorrado, Long> {
+
+    // Pull incremental de ms-auth: mismos instantes que credencialActualizada (reloj de ms-admin)
+    @Query("select b.usuarioId from UsuarioBorrado b where b.borrado >= :desde order by b.usuarioId")
+    List<Long> borradosDesde(@Param("desde") Instant desde);
+
+    @Modifying
+    @Query("delete from UsuarioBorrado b where b.borrado < :limite")
+    int purgarAnteriores(@Param("limite") Instant limite);
+}
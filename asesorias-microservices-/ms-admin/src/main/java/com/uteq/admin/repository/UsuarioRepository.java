@@ -2,13 +2,75 @@ package com.uteq.admin.repository;
 
 import com.uteq.admin.entity.Usuario;
 import com.uteq.admin.entity.Rol;
+import com.uteq.admin.repository.proyeccion.UsuarioFila;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Optional<Usuario> findByCorreoMatricula(String correoMatricula);
     List<Usuario> findByRol(Rol rol);
     List<Usuario> findByActivo(Boolean activo);
-}
 
+    // Listados por cursor: sólo las columnas de UsuarioDTO, filtros opcionales
+    @Query("select u.id as id, u.correoMatricula as correoMatricula, u.nombre as nombre, u.apellido as apellido,"
+            + " u.activo as activo, r.id as rolId, r.nombre as rolNombre"
+            + " from Usuario u join u.rol r"
+            + " where u.id > :despuesDe"
+            + " and (:rolId is null or r.id = :rolId)"
+            + " and (:activo is null or u.activo = :activo)"
+            + " order by u.id")
+    List<UsuarioFila> pagina(@Param("despuesDe") long despuesDe, @Param("rolId") Long rolId,
+                             @Param("activo") Boolean activo, Pageable limite);
+
+    // Carga por lote de ids (DataLoaders del gateway): mismas columnas que el listado
+    @Query("select u.id as id, u.correoMatricula as correoMatricula, u.nombre as nombre, u.apellido as apellido,"
+            + " u.activo as activo, r.id as rolId, r.nombre as rolNombre"
+            + " from Usuario u join u.rol r"
+            + " where u.id in :ids"
+            + " order by u.id")
+    List<UsuarioFila> porIds(@Param("ids") Collection<Long> ids);
+
+    // Exportación: cursor de sólo avance leído por bloques de fetch size (en PostgreSQL exige transacción abierta)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u.id as id, u.correoMatricula as correoMatricula, u.nombre as nombre, u.apellido as apellido,"
+            + " u.activo as activo, r.id as rolId, r.nombre as rolNombre"
+            + " from Usuario u join u.rol r"
+            + " where (:rolId is null or r.id = :rolId)"
+            + " and (:activo is null or u.activo = :activo)"
+            + " order by u.id")
+    Stream<UsuarioFila> exportar(@Param("rolId") Long rolId, @Param("activo") Boolean activo);
+
+    // Proyección de credenciales de ms-auth: carga completa por id y pull incremental por (credencialActualizada, id)
+    @Query("select u from Usuario u join fetch u.rol where u.id > :despuesDeId order by u.id")
+    List<Usuario> paginaCredenciales(@Param("despuesDeId") Long despuesDeId, Pageable pagina);
+
+    @Query("select u from Usuario u join fetch u.rol"
+            + " where u.credencialActualizada > :desde or (u.credencialActualizada = :desde and u.id > :despuesDeId)"
+            + " order by u.credencialActualizada, u.id")
+    List<Usuario> cambiosCredenciales(@Param("desde") Instant desde, @Param("despuesDeId") Long despuesDeId, Pageable pagina);
+
+    // Importación masiva: qué correos de un lote ya existen, en una sola consulta
+    @Query("select u.correoMatricula from Usuario u where u.correoMatricula in :correos")
+    List<String> correosExistentes(@Param("correos") Collection<String> correos);
+
+    /** Como mucho una escritura por usuario y día: ultimoAcceso es una fecha. */
+    @Modifying
+    @Query("update Usuario u set u.ultimoAcceso = :hoy where u.id in :ids and (u.ultimoAcceso is null or u.ultimoAcceso < :hoy)")
+    int registrarAccesos(@Param("ids") Collection<Long> ids, @Param("hoy") LocalDate hoy);
+}
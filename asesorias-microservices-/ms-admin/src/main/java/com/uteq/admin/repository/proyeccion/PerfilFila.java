@@ -0,0 +1,5 @@
+package com.uteq.admin.repository.proyeccion;
+
+/** Fila de la exportación de perfiles; tipo = PROFESOR | ALUMNO. */
+public record PerfilFila(String tipo, Long id, Long usuarioId, Long divisionId, Long programaId, Boolean activo) {
+}
@@ -0,0 +1,12 @@
+package com.uteq.admin.repository.proyeccion;
+
+/** Columnas de UsuarioDTO en los listados: sin password ni cargar la entidad Rol. */
+public interface UsuarioFila {
+    Long getId();
+    String getCorreoMatricula();
+    String getNombre();
+    String getApellido();
+    Boolean getActivo();
+    Long getRolId();
+    String getRolNombre();
+}
@@ -0,0 +1,138 @@
+package com.uteq.admin.service;
+
+import com.uteq.admin.client.MsAsesoriasClient;
+import com.uteq.admin.dto.UsuarioDTO;
+import com.uteq.admin.entity.Division;
+import com.uteq.admin.entity.Programa;
+import com.uteq.admin.entity.Usuario;
+import com.uteq.admin.repository.AlumnoPerfilRepository;
+import com.uteq.admin.repository.CoordinadorPerfilRepository;
+import com.uteq.admin.repository.ProfesorPerfilRepository;
+import com.uteq.admin.repository.UsuarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Asignación académica (división/programa) que ms-auth mete como claims en el access token,
+ * y su versión: cada reasignación incrementa Usuario.versionPerfil para que los tokens emitidos
+ * antes se detecten como obsoletos y el cliente tenga que refrescar.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClaimsPerfilService {
+
+    private final UsuarioRepository usuarioRepo;
+    private final AlumnoPerfilRepository alumRepo;
+    private final ProfesorPerfilRepository profRepo;
+    private final CoordinadorPerfilRepository coordRepo;
+    private final MsAsesoriasClient msAsesoriasClient;
+
+    /** Completa divisionId/programaId/versionPerfil según el rol; sin perfil quedan en null. */
+    public UsuarioDTO completar(UsuarioDTO dto, Usuario usuario) {
+        String rol = usuario.getRol() != null ? usuario.getRol().getNombre() : "";
+        Division division = null;
+        Programa programa = null;
+        switch (rol.toUpperCase()) {
+            case "ALUMNO" -> {
+                var perfil = alumRepo.findByUsuarioId(usuario.getId()).orElse(null);
+                if (perfil != null) { division = perfil.getDivision(); programa = perfil.getPrograma(); }
+            }
+            case "PROFESOR" -> {
+                var perfil = profRepo.findByUsuarioId(usuario.getId()).orElse(null);
+                if (perfil != null) { division = perfil.getDivision(); programa = perfil.getPrograma(); }
+            }
+            case "COORDINADOR" -> {
+                var perfil = coordRepo.findByUsuarioId(usuario.getId()).orElse(null);
+                if (perfil != null) { division = perfil.getDivision(); programa = perfil.getPrograma(); }
+            }
+            default -> { }
+        }
+        dto.setDivisionId(id(division));
+        dto.setProgramaId(id(programa));
+        dto.setVersionPerfil(version(usuario));
+        return dto;
+    }
+
+    /** División y programa de un usuario, tal como van en el token. */
+    public record Asignacion(Long divisionId, Long programaId) { }
+
+    /**
+     * Versión por lotes de {@link #completar}: tres consultas (una por tipo de perfil) para toda la página,
+     * en vez de una por usuario. Los usuarios sin perfil no aparecen en el mapa.
+     */
+    public Map<Long, Asignacion> asignaciones(Collection<Usuario> usuarios) {
+        Map<String, List<Long>> idsPorRol = new HashMap<>();
+        for (Usuario usuario : usuarios) {
+            String rol = usuario.getRol() != null ? usuario.getRol().getNombre().toUpperCase() : "";
+            idsPorRol.computeIfAbsent(rol, r -> new ArrayList<>()).add(usuario.getId());
+        }
+        Map<Long, Asignacion> resultado = new HashMap<>();
+        List<Long> alumnos = idsPorRol.get("ALUMNO");
+        if (alumnos != null) {
+            alumRepo.findByUsuarioIdIn(alumnos).forEach(p -> resultado.put(p.getUsuarioId(),
+                    new Asignacion(id(p.getDivision()), id(p.getPrograma()))));
+        }
+        List<Long> profesores = idsPorRol.get("PROFESOR");
+        if (profesores != null) {
+            profRepo.findByUsuarioIdIn(profesores).forEach(p -> resultado.put(p.getUsuarioId(),
+                    new Asignacion(id(p.getDivision()), id(p.getPrograma()))));
+        }
+        List<Long> coordinadores = idsPorRol.get("COORDINADOR");
+        if (coordinadores != null) {
+            coordRepo.findByUsuarioIdIn(coordinadores).forEach(p -> resultado.put(p.getUsuarioId(),
+                    new Asignacion(id(p.getDivision()), id(p.getPrograma()))));
+        }
+        return resultado;
+    }
+
+    /** Nada que hacer si la asignación no cambió. */
+    public void asignacionGuardada(Long usuarioId, String rol, Division antes, Programa programaAntes,
+                                   Division despues, Programa programaDespues) {
+        if (Objects.equals(id(antes), id(despues)) && Objects.equals(id(programaAntes), id(programaDespues))) {
+            return;
+        }
+        Usuario usuario = usuarioRepo.findById(usuarioId).orElse(null);
+        if (usuario == null) {
+            return;
+        }
+        usuario.setVersionPerfil(version(usuario) + 1);
+        usuario.setCredencialActualizada(Instant.now());
+        usuarioRepo.save(usuario);
+
+        // Best effort: si ms-asesorias no está, sus comprobaciones de versión siguen con la anterior
+        var asignacion = new MsAsesoriasClient.PerfilAsignacion(
+                id(despues), id(programaDespues),
+                usuario.getVersionPerfil());
+        try {
+            if ("ALUMNO".equals(rol)) {
+                msAsesoriasClient.sincronizarPerfilAlumno(usuarioId, asignacion);
+            } else if ("PROFESOR".equals(rol)) {
+                msAsesoriasClient.sincronizarPerfilProfesor(usuarioId, asignacion);
+            }
+        } catch (Exception e) {
+            log.warn("No se pudo sincronizar la asignación del usuario {} con ms-asesorias: {}", usuarioId, e.getMessage());
+        }
+    }
+
+    private static long version(Usuario usuario) {
+        return usuario.getVersionPerfil() != null ? usuario.getVersionPerfil() : 0L;
+    }
+
+    private static Long id(Division division) {
+        return division != null ? division.getId() : null;
+    }
+
+    private static Long id(Programa programa) {
+        return programa != null ? programa.getId() : null;
+    }
+}
@@ -0,0 +1,131 @@
+package com.uteq.admin.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Cifrado y comprobación de contraseñas. BCrypt se ejecuta en el pool acotado hashExecutor
+ * (HashExecutorConfig): si está saturado se responde 503 al momento.
+ * Las filas antiguas guardan la contraseña en claro; se distinguen por no tener formato BCrypt,
+ * se comparan tal cual y el login las vuelve a guardar cifradas ({@link #requiereRehash}).
+ */
+@Service
+public class ContrasenaService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor hashExecutor;
+    private final long esperaMaximaMs;
+    private final Timer tiempoCifrar;
+    private final Timer tiempoVerificar;
+    private final Timer tiempoEnCola;
+    private final Counter rechazos;
+    private final Counter migradas;
+
+    public ContrasenaService(PasswordEncoder passwordEncoder,
+                             ThreadPoolExecutor hashExecutor,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.security.hash.timeout:5s}") Duration esperaMaxima) {
+        this.passwordEncoder = passwordEncoder;
+        this.hashExecutor = hashExecutor;
+        this.esperaMaximaMs = esperaMaxima.toMillis();
+        this.tiempoCifrar = Timer.builder("admin.password.hash")
+                .description("Tiempo de BCrypt en el pool")
+                .tag("operacion", "cifrar")
+                .register(meterRegistry);
+        this.tiempoVerificar = Timer.builder("admin.password.hash")
+                .description("Tiempo de BCrypt en el pool")
+                .tag("operacion", "verificar")
+                .register(meterRegistry);
+        this.tiempoEnCola = Timer.builder("admin.password.hash.espera")
+                .description("Tiempo en cola hasta que un hilo del pool toma la tarea")
+                .register(meterRegistry);
+        this.rechazos = Counter.builder("admin.password.hash.rechazos")
+                .description("Tareas rechazadas con el pool saturado (503)")
+                .register(meterRegistry);
+        this.migradas = Counter.builder("admin.password.migradas")
+                .description("Contraseñas en claro cifradas al hacer login")
+                .register(meterRegistry);
+        Gauge.builder("admin.password.hash.cola", hashExecutor, e -> e.getQueue().size())
+                .description("Tareas BCrypt en cola")
+                .register(meterRegistry);
+        Gauge.builder("admin.password.hash.activos", hashExecutor, ThreadPoolExecutor::getActiveCount)
+                .description("Hilos del pool calculando BCrypt")
+                .register(meterRegistry);
+    }
+
+    public String cifrar(String contrasena) {
+        return ejecutar(tiempoCifrar, () -> passwordEncoder.encode(contrasena));
+    }
+
+    public boolean coincide(String contrasena, String almacenada) {
+        if (contrasena == null || almacenada == null) {
+            return false;
+        }
+        if (!esHash(almacenada)) {
+            // Fila antigua en claro: comparación en tiempo constante, sin pasar por el pool
+            return MessageDigest.isEqual(almacenada.getBytes(StandardCharsets.UTF_8),
+                    contrasena.getBytes(StandardCharsets.UTF_8));
+        }
+        return ejecutar(tiempoVerificar, () -> passwordEncoder.matches(contrasena, almacenada));
+    }
+
+    /** En claro, o BCrypt con menos coste que app.security.bcrypt-strength. */
+    public boolean requiereRehash(String almacenada) {
+        return !esHash(almacenada) || passwordEncoder.upgradeEncoding(almacenada);
+    }
+
+    public void migracionRegistrada() {
+        migradas.increment();
+    }
+
+    /** true si el valor guardado ya es un hash BCrypt ($2a$, $2b$, $2y$). */
+    public static boolean esHash(String almacenada) {
+        return almacenada != null && almacenada.length() == 60
+                && almacenada.startsWith("$2") && almacenada.charAt(3) == '$';
+    }
+
+    private <T> T ejecutar(Timer timer, Callable<T> tarea) {
+        long encolada = System.nanoTime();
+        Future<T> resultado;
+        try {
+            resultado = hashExecutor.submit(() -> {
+                tiempoEnCola.record(System.nanoTime() - encolada, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(tarea);
+            });
+        } catch (RejectedExecutionException e) {
+            rechazos.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Demasiados inicios de sesión simultáneos, reintente");
+        }
+        try {
+            return resultado.get(esperaMaximaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            resultado.cancel(true);
+            rechazos.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Demasiados inicios de sesión simultáneos, reintente");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            resultado.cancel(true);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Comprobación de contraseña interrumpida");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error calculando BCrypt", e.getCause());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.uteq.admin.service;
 
 import com.uteq.admin.dto.CoordinadorPerfilDTO;
+import com.uteq.admin.dto.PaginaDTO;
 import com.uteq.admin.entity.CoordinadorPerfil;
 import java.util.List;
 import java.util.Optional;
@@ -14,6 +15,7 @@ public interface CoordinadorPerfilService {
     List<CoordinadorPerfil> listarActivos();
     List<CoordinadorPerfil> listarPorDivision(Long divisionId);
     List<CoordinadorPerfil> listarPorPrograma(Long programaId);
+    PaginaDTO<CoordinadorPerfilDTO> pagina(Long divisionId, Long programaId, Boolean activo, long despuesDe, int limite);
     void eliminar(Long id);
     void desactivar(Long id);
 }
@@ -0,0 +1,97 @@
+package com.uteq.admin.service;
+
+import com.uteq.admin.dto.CredencialDTO;
+import com.uteq.admin.dto.CredencialesPaginaDTO;
+import com.uteq.admin.entity.Usuario;
+import com.uteq.admin.entity.UsuarioBorrado;
+import com.uteq.admin.repository.UsuarioBorradoRepository;
+import com.uteq.admin.repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Alimenta la proyección de credenciales de ms-auth: páginas por id para la carga completa y
+ * por (credencialActualizada, id) para el pull incremental, y el registro diferido de ultimoAcceso.
+ * Los usuarios eliminados dejan una lápida que el pull incremental devuelve en "borrados"; se purgan
+ * pasado borrados-retention (ms-auth aún compara el total y recarga entera si no cuadra).
+ */
+@Service
+public class CredencialesService {
+
+    private static final int LIMITE_MAXIMO = 1000;
+
+    private final UsuarioRepository repo;
+    private final UsuarioBorradoRepository borradoRepo;
+    private final ClaimsPerfilService claimsPerfil;
+    private final Duration retencionBorrados;
+
+    public CredencialesService(UsuarioRepository repo,
+                               UsuarioBorradoRepository borradoRepo,
+                               ClaimsPerfilService claimsPerfil,
+                               @Value("${app.credenciales.borrados-retention:7d}") Duration retencionBorrados) {
+        this.repo = repo;
+        this.borradoRepo = borradoRepo;
+        this.claimsPerfil = claimsPerfil;
+        this.retencionBorrados = retencionBorrados;
+    }
+
+    @Transactional(readOnly = true)
+    public CredencialesPaginaDTO pagina(Long desde, Long despuesDeId, int limite) {
+        PageRequest pagina = PageRequest.of(0, Math.max(1, Math.min(limite, LIMITE_MAXIMO)));
+        long ultimoId = despuesDeId != null ? despuesDeId : 0L;
+        List<Usuario> usuarios = desde == null
+                ? repo.paginaCredenciales(ultimoId, pagina)
+                : repo.cambiosCredenciales(Instant.ofEpochMilli(desde), ultimoId, pagina);
+        Map<Long, ClaimsPerfilService.Asignacion> asignaciones = claimsPerfil.asignaciones(usuarios);
+        List<CredencialDTO> credenciales = usuarios.stream()
+                .map(u -> convertir(u, asignaciones.get(u.getId())))
+                .toList();
+        return CredencialesPaginaDTO.builder()
+                .credenciales(credenciales)
+                .borrados(desde == null ? List.of() : borradoRepo.borradosDesde(Instant.ofEpochMilli(desde)))
+                .totalUsuarios(repo.count())
+                .build();
+    }
+
+    /** Se llama en la misma transacción que el borrado del usuario. */
+    @Transactional
+    public void registrarBorrado(Long usuarioId) {
+        Instant ahora = Instant.now();
+        borradoRepo.purgarAnteriores(ahora.minus(retencionBorrados));
+        borradoRepo.save(UsuarioBorrado.builder().usuarioId(usuarioId).borrado(ahora).build());
+    }
+
+    @Transactional
+    public int registrarAccesos(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        return repo.registrarAccesos(ids, LocalDate.now());
+    }
+
+    private CredencialDTO convertir(Usuario u, ClaimsPerfilService.Asignacion asignacion) {
+        return CredencialDTO.builder()
+                .id(u.getId())
+                .correoMatricula(u.getCorreoMatricula())
+                .passwordHash(ContrasenaService.esHash(u.getPassword()) ? u.getPassword() : null)
+                .nombre(u.getNombre())
+                .apellido(u.getApellido())
+                .activo(u.getActivo())
+                .rolId(u.getRol() != null ? u.getRol().getId() : null)
+                .rolNombre(u.getRol() != null ? u.getRol().getNombre() : "SIN_ROL")
+                .divisionId(asignacion != null ? asignacion.divisionId() : null)
+                .programaId(asignacion != null ? asignacion.programaId() : null)
+                .versionPerfil(u.getVersionPerfil() != null ? u.getVersionPerfil() : 0L)
+                .actualizada(u.getCredencialActualizada() != null ? u.getCredencialActualizada().toEpochMilli() : null)
+                .build();
+    }
+}
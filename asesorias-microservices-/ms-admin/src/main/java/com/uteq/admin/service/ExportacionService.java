@@ -0,0 +1,282 @@
+package com.uteq.admin.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uteq.admin.repository.AlumnoPerfilRepository;
+import com.uteq.admin.repository.ProfesorPerfilRepository;
+import com.uteq.admin.repository.UsuarioRepository;
+import com.uteq.admin.repository.proyeccion.PerfilFila;
+import com.uteq.admin.repository.proyeccion.UsuarioFila;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Exportación completa de usuarios y perfiles en NDJSON o CSV.
+ * <ul>
+ *   <li>Las filas salen de un cursor de sólo avance (fetch size en la consulta, transacción de sólo lectura)
+ *       y se escriben según llegan: la memoria no depende del número de filas.</li>
+ *   <li>Son proyecciones, no entidades: no se acumulan en el contexto de persistencia.</li>
+ *   <li>Cada flush-every filas se vacía el buffer hacia el cliente.</li>
+ *   <li>Cada exportación ocupa una conexión del pool mientras dura: como mucho max-concurrent a la vez,
+ *       el resto recibe 503.</li>
+ * </ul>
+ */
+@Service
+@Slf4j
+public class ExportacionService {
+
+    public enum Formato {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String tipoContenido;
+
+        Formato(String tipoContenido) {
+            this.tipoContenido = tipoContenido;
+        }
+
+        public String tipoContenido() {
+            return tipoContenido;
+        }
+
+        public String extension() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        public static Formato de(String valor) {
+            try {
+                return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "formato debe ser ndjson o csv");
+            }
+        }
+    }
+
+    public enum TipoPerfil {
+        PROFESOR, ALUMNO;
+
+        /** null o vacío = ambos. */
+        public static TipoPerfil de(String valor) {
+            if (valor == null || valor.isBlank()) {
+                return null;
+            }
+            try {
+                return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "tipo debe ser profesor o alumno");
+            }
+        }
+    }
+
+    private record Columna<T>(String nombre, Function<T, Object> valor) {
+    }
+
+    private static final List<Columna<UsuarioFila>> COLUMNAS_USUARIO = List.of(
+            new Columna<>("id", UsuarioFila::getId),
+            new Columna<>("correoMatricula", UsuarioFila::getCorreoMatricula),
+            new Columna<>("nombre", UsuarioFila::getNombre),
+            new Columna<>("apellido", UsuarioFila::getApellido),
+            new Columna<>("activo", UsuarioFila::getActivo),
+            new Columna<>("rolId", UsuarioFila::getRolId),
+            new Columna<>("rolNombre", UsuarioFila::getRolNombre));
+
+    private static final List<Columna<PerfilFila>> COLUMNAS_PERFIL = List.of(
+            new Columna<>("tipo", PerfilFila::tipo),
+            new Columna<>("id", PerfilFila::id),
+            new Columna<>("usuarioId", PerfilFila::usuarioId),
+            new Columna<>("divisionId", PerfilFila::divisionId),
+            new Columna<>("programaId", PerfilFila::programaId),
+            new Columna<>("activo", PerfilFila::activo));
+
+    private final UsuarioRepository usuarioRepo;
+    private final ProfesorPerfilRepository profesorRepo;
+    private final AlumnoPerfilRepository alumnoRepo;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaccionLectura;
+    private final Semaphore exportaciones;
+    private final int filasPorFlush;
+    private final Counter filasUsuarios;
+    private final Counter filasPerfiles;
+    private final Counter rechazos;
+
+    public ExportacionService(UsuarioRepository usuarioRepo,
+                              ProfesorPerfilRepository profesorRepo,
+                              AlumnoPerfilRepository alumnoRepo,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.export.max-concurrent:2}") int maxConcurrentes,
+                              @Value("${app.export.flush-every:1000}") int filasPorFlush) {
+        this.usuarioRepo = usuarioRepo;
+        this.profesorRepo = profesorRepo;
+        this.alumnoRepo = alumnoRepo;
+        this.objectMapper = objectMapper;
+        this.transaccionLectura = new TransactionTemplate(transactionManager);
+        this.transaccionLectura.setReadOnly(true);
+        this.exportaciones = new Semaphore(Math.max(1, maxConcurrentes));
+        this.filasPorFlush = Math.max(1, filasPorFlush);
+        this.filasUsuarios = filas(meterRegistry, "usuarios");
+        this.filasPerfiles = filas(meterRegistry, "perfiles");
+        this.rechazos = Counter.builder("admin.export.rechazos")
+                .description("Exportaciones rechazadas (503) con max-concurrent en curso")
+                .register(meterRegistry);
+    }
+
+    private static Counter filas(MeterRegistry registry, String tipo) {
+        return Counter.builder("admin.export.filas")
+                .description("Filas escritas por las exportaciones")
+                .tag("tipo", tipo)
+                .register(registry);
+    }
+
+    /** Lanza 503 sin tocar la respuesta si ya hay max-concurrent exportaciones; llamar antes de escribir cabeceras. */
+    public void reservar() {
+        if (!exportaciones.tryAcquire()) {
+            rechazos.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Hay otras exportaciones en curso, reintente");
+        }
+    }
+
+    /** Devuelve el permiso tomado con {@link #reservar}. */
+    public void liberar() {
+        exportaciones.release();
+    }
+
+    public long exportarUsuarios(Long rolId, Boolean activo, Formato formato, Writer destino) {
+        long filas = enTransaccion(() -> {
+            try (Stream<UsuarioFila> cursor = usuarioRepo.exportar(rolId, activo)) {
+                return escribir(cursor, COLUMNAS_USUARIO, formato, destino, filasUsuarios);
+            }
+        });
+        log.info("Exportación de usuarios ({}): {} filas", formato, filas);
+        return filas;
+    }
+
+    /** tipo null exporta ambos, profesores primero. */
+    public long exportarPerfiles(TipoPerfil tipo, Formato formato, Writer destino) {
+        List<Supplier<Stream<PerfilFila>>> origenes;
+        if (tipo == null) {
+            origenes = List.of(profesorRepo::exportar, alumnoRepo::exportar);
+        } else if (tipo == TipoPerfil.PROFESOR) {
+            origenes = List.of(profesorRepo::exportar);
+        } else {
+            origenes = List.of(alumnoRepo::exportar);
+        }
+        long filas = enTransaccion(() -> {
+            // flatMap abre cada consulta al llegar a ella y la cierra al agotarla: un solo cursor abierto a la vez
+            try (Stream<PerfilFila> cursor = origenes.stream().flatMap(Supplier::get)) {
+                return escribir(cursor, COLUMNAS_PERFIL, formato, destino, filasPerfiles);
+            }
+        });
+        log.info("Exportación de perfiles ({}): {} filas", formato, filas);
+        return filas;
+    }
+
+    private long enTransaccion(Supplier<Long> exportacion) {
+        Long filas = transaccionLectura.execute(estado -> exportacion.get());
+        return filas != null ? filas : 0L;
+    }
+
+    private <T> long escribir(Stream<T> filas, List<Columna<T>> columnas, Formato formato,
+                              Writer destino, Counter contador) {
+        try {
+            JsonGenerator json = null;
+            if (formato == Formato.NDJSON) {
+                json = objectMapper.getFactory().createGenerator(destino);
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                // Sin separador entre valores raíz: cada objeto termina con su propio salto de línea
+                json.setRootValueSeparator(null);
+            } else {
+                escribirCabeceraCsv(destino, columnas);
+            }
+            long escritas = 0;
+            Iterator<T> it = filas.iterator();
+            while (it.hasNext()) {
+                T fila = it.next();
+                if (json != null) {
+                    escribirJson(json, fila, columnas);
+                } else {
+                    escribirCsv(destino, fila, columnas);
+                }
+                if (++escritas % filasPorFlush == 0) {
+                    if (json != null) {
+                        json.flush();
+                    } else {
+                        destino.flush();
+                    }
+                    contador.increment(filasPorFlush);
+                }
+            }
+            if (json != null) {
+                json.close();
+            }
+            destino.flush();
+            contador.increment(escritas % filasPorFlush);
+            return escritas;
+        } catch (IOException e) {
+            // Normalmente el cliente cortó la descarga; el cursor y la transacción se cierran al salir
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> void escribirJson(JsonGenerator json, T fila, List<Columna<T>> columnas) throws IOException {
+        json.writeStartObject();
+        for (Columna<T> columna : columnas) {
+            json.writeFieldName(columna.nombre());
+            json.writeObject(columna.valor().apply(fila));
+        }
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private static <T> void escribirCabeceraCsv(Writer destino, List<Columna<T>> columnas) throws IOException {
+        for (int i = 0; i < columnas.size(); i++) {
+            if (i > 0) {
+                destino.write(',');
+            }
+            destino.write(columnas.get(i).nombre());
+        }
+        destino.write("\r\n");
+    }
+
+    private static <T> void escribirCsv(Writer destino, T fila, List<Columna<T>> columnas) throws IOException {
+        for (int i = 0; i < columnas.size(); i++) {
+            if (i > 0) {
+                destino.write(',');
+            }
+            Object valor = columnas.get(i).valor().apply(fila);
+            if (valor != null) {
+                destino.write(campoCsv(valor.toString()));
+            }
+        }
+        destino.write("\r\n");
+    }
+
+    // RFC 4180; además se neutralizan los textos que una hoja de cálculo ejecutaría como fórmula
+    private static String campoCsv(String valor) {
+        if (!valor.isEmpty() && "=+-@".indexOf(valor.charAt(0)) >= 0) {
+            valor = "'" + valor;
+        }
+        boolean comillas = valor.indexOf(',') >= 0 || valor.indexOf('"') >= 0
+                || valor.indexOf('\n') >= 0 || valor.indexOf('\r') >= 0;
+        return comillas ? '"' + valor.replace("\"", "\"\"") + '"' : valor;
+    }
+}
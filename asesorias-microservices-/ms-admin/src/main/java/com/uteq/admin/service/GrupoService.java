@@ -1,6 +1,7 @@
 package com.uteq.admin.service;
 
 import com.uteq.admin.dto.GrupoDTO;
+import com.uteq.admin.dto.PaginaDTO;
 import com.uteq.admin.entity.Grupo;
 import java.util.List;
 
@@ -13,6 +14,7 @@ public interface GrupoService {
     List<Grupo> listarPorProfesor(Long profesorId);
     List<Grupo> listarPorDivision(Long divisionId);
     List<Grupo> listarPorPrograma(Long programaId);
+    PaginaDTO<GrupoDTO> pagina(Long profesorId, Long divisionId, Long programaId, Boolean activo, long despuesDe, int limite);
     void eliminar(Long id);
     void desactivar(Long id);
 }
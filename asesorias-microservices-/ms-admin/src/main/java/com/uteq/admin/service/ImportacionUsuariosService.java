@@ -0,0 +1,670 @@
+package com.uteq.admin.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uteq.admin.dto.ImportacionDTO;
+import com.uteq.admin.entity.Rol;
+import com.uteq.admin.entity.Usuario;
+import com.uteq.admin.repository.RolRepository;
+import com.uteq.admin.repository.UsuarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Alta masiva de usuarios desde CSV o JSON, como trabajo en segundo plano.
+ * <ul>
+ *   <li>El archivo se copia a disco y la petición vuelve con 202; el estado (progreso, errores por fila,
+ *       filas/s) se consulta por id. Un trabajo a la vez, con cola acotada (max-queued, el resto 503).</li>
+ *   <li>Los roles se leen una vez y se resuelven en memoria por id o por nombre.</li>
+ *   <li>Por lotes de batch-size: los correos repetidos en el archivo se descartan con un conjunto en memoria
+ *       y los ya existentes con una sola consulta IN por lote.</li>
+ *   <li>BCrypt en un pool propio (hash-threads), aparte del de login; los valores que ya son BCrypt se
+ *       guardan tal cual.</li>
+ *   <li>Cada lote se inserta en su transacción con inserts JDBC en lote (ids de usuarios_seq). Si otro alta
+ *       gana la carrera por un correo, ese lote se repite fila a fila para aislar el conflicto.</li>
+ * </ul>
+ * Los lotes ya confirmados se quedan aunque el trabajo falle después (p. ej. JSON mal formado a mitad).
+ */
+@Service
+@Slf4j
+public class ImportacionUsuariosService {
+
+    public enum Formato {
+        CSV, JSON;
+
+        /** formato explícito; si no, por la extensión del archivo o el tipo de contenido. */
+        public static Formato de(String valor, String nombreArchivo, String tipoContenido) {
+            if (valor != null && !valor.isBlank()) {
+                return switch (valor.trim().toLowerCase(Locale.ROOT)) {
+                    case "csv" -> CSV;
+                    case "json", "ndjson" -> JSON;
+                    default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "formato debe ser csv o json");
+                };
+            }
+            String nombre = nombreArchivo != null ? nombreArchivo.toLowerCase(Locale.ROOT) : "";
+            String tipo = tipoContenido != null ? tipoContenido.toLowerCase(Locale.ROOT) : "";
+            if (nombre.endsWith(".csv") || tipo.contains("csv")) {
+                return CSV;
+            }
+            if (nombre.endsWith(".json") || nombre.endsWith(".ndjson") || tipo.contains("json")) {
+                return JSON;
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Indique formato=csv o formato=json");
+        }
+    }
+
+    private enum Estado { EN_COLA, PROCESANDO, COMPLETADA, FALLIDA }
+
+    /** Fila tal como viene en el archivo; numero es la posición del registro de datos (1 = el primero). */
+    private record Fila(long numero, String correoMatricula, String password, String nombre,
+                        String apellido, String rolId, String rol) {
+    }
+
+    private record Validada(Fila fila, long rolId) {
+    }
+
+    private record Cifrada(Fila fila, long rolId, String hash) {
+    }
+
+    private final UsuarioRepository usuarioRepo;
+    private final RolRepository rolRepo;
+    private final PasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaccion;
+    private final ThreadPoolExecutor trabajos;
+    private final ExecutorService cifrado;
+    private final Path directorio;
+    private final long maxBytes;
+    private final int tamanoLote;
+    private final int maxErrores;
+    private final int historial;
+    private final Map<String, Importacion> importaciones = new LinkedHashMap<>();
+
+    private final Counter insertadas;
+    private final Counter duplicadas;
+    private final Counter errores;
+    private final Timer tiempoLote;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ImportacionUsuariosService(UsuarioRepository usuarioRepo,
+                                      RolRepository rolRepo,
+                                      PasswordEncoder passwordEncoder,
+                                      ObjectMapper objectMapper,
+                                      PlatformTransactionManager transactionManager,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${app.import.batch-size:500}") int tamanoLote,
+                                      @Value("${app.import.max-queued:4}") int maxEnCola,
+                                      @Value("${app.import.hash-threads:#{T(java.lang.Math).max(1, T(java.lang.Runtime).getRuntime().availableProcessors() / 2)}}") int hilosCifrado,
+                                      @Value("${app.import.max-size:50MB}") DataSize maxTamano,
+                                      @Value("${app.import.max-errors:1000}") int maxErrores,
+                                      @Value("${app.import.history:20}") int historial,
+                                      @Value("${app.import.temp-dir:#{systemProperties['java.io.tmpdir']}}") String directorio) {
+        this.usuarioRepo = usuarioRepo;
+        this.rolRepo = rolRepo;
+        this.passwordEncoder = passwordEncoder;
+        this.objectMapper = objectMapper;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.tamanoLote = Math.max(1, tamanoLote);
+        this.maxErrores = Math.max(0, maxErrores);
+        this.historial = Math.max(1, historial);
+        this.maxBytes = maxTamano.toBytes();
+        this.directorio = Path.of(directorio);
+        this.trabajos = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxEnCola)),
+                tarea -> hilo(tarea, "admin-import"),
+                new ThreadPoolExecutor.AbortPolicy());
+        AtomicInteger contador = new AtomicInteger();
+        this.cifrado = Executors.newFixedThreadPool(Math.max(1, hilosCifrado),
+                tarea -> hilo(tarea, "admin-import-hash-" + contador.incrementAndGet()));
+        this.insertadas = filas(meterRegistry, "insertada");
+        this.duplicadas = filas(meterRegistry, "duplicada");
+        this.errores = filas(meterRegistry, "error");
+        this.tiempoLote = Timer.builder("admin.import.lote")
+                .description("Tiempo por lote: consulta de existentes, BCrypt e insert")
+                .register(meterRegistry);
+        Gauge.builder("admin.import.en_cola", trabajos, e -> e.getQueue().size())
+                .description("Importaciones esperando turno")
+                .register(meterRegistry);
+    }
+
+    private static Thread hilo(Runnable tarea, String nombre) {
+        Thread hilo = new Thread(tarea, nombre);
+        hilo.setDaemon(true);
+        return hilo;
+    }
+
+    private static Counter filas(MeterRegistry registry, String resultado) {
+        return Counter.builder("admin.import.filas")
+                .description("Filas procesadas por la importación masiva de usuarios")
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+
+    /**
+     * Copia el contenido a un temporal y encola el trabajo. 413 si supera max-size, 503 si la cola está llena
+     * (se comprueba antes de copiar para no leer el archivo en balde).
+     */
+    public ImportacionDTO encolar(InputStream contenido, Formato formato) {
+        if (trabajos.getQueue().remainingCapacity() == 0) {
+            throw colaLlena();
+        }
+        Path archivo = copiar(contenido);
+        Importacion importacion = new Importacion(formato, archivo);
+        registrar(importacion);
+        try {
+            trabajos.execute(() -> ejecutar(importacion));
+        } catch (RejectedExecutionException e) {
+            synchronized (importaciones) {
+                importaciones.remove(importacion.id);
+            }
+            borrar(archivo);
+            throw colaLlena();
+        }
+        log.info("Importación {} ({}) en cola", importacion.id, formato);
+        return importacion.aDto(true);
+    }
+
+    public ImportacionDTO estado(String id) {
+        Importacion importacion;
+        synchronized (importaciones) {
+            importacion = importaciones.get(id);
+        }
+        if (importacion == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Importación no encontrada");
+        }
+        return importacion.aDto(true);
+    }
+
+    /** Las últimas importaciones (app.import.history), más recientes primero y sin el detalle de errores. */
+    public List<ImportacionDTO> listar() {
+        List<ImportacionDTO> lista = new ArrayList<>();
+        synchronized (importaciones) {
+            importaciones.values().forEach(i -> lista.add(i.aDto(false)));
+        }
+        Collections.reverse(lista);
+        return lista;
+    }
+
+    @PreDestroy
+    void detener() {
+        trabajos.shutdownNow();
+        cifrado.shutdownNow();
+    }
+
+    private ResponseStatusException colaLlena() {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Hay demasiadas importaciones pendientes, reintente");
+    }
+
+    private Path copiar(InputStream contenido) {
+        Path archivo = null;
+        try {
+            Files.createDirectories(directorio);
+            archivo = Files.createTempFile(directorio, "importacion-", ".tmp");
+            try (InputStream entrada = contenido; OutputStream salida = Files.newOutputStream(archivo)) {
+                byte[] buffer = new byte[64 * 1024];
+                long total = 0;
+                int leidos;
+                while ((leidos = entrada.read(buffer)) != -1) {
+                    total += leidos;
+                    if (total > maxBytes) {
+                        throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                                "El archivo supera " + DataSize.ofBytes(maxBytes).toMegabytes() + "MB");
+                    }
+                    salida.write(buffer, 0, leidos);
+                }
+            }
+            return archivo;
+        } catch (IOException | RuntimeException e) {
+            if (archivo != null) {
+                borrar(archivo);
+            }
+            if (e instanceof IOException io) {
+                throw new UncheckedIOException(io);
+            }
+            throw (RuntimeException) e;
+        }
+    }
+
+    private void registrar(Importacion importacion) {
+        synchronized (importaciones) {
+            importaciones.put(importacion.id, importacion);
+            // Se olvidan las terminadas más antiguas; las pendientes nunca
+            Iterator<Importacion> it = importaciones.values().iterator();
+            while (importaciones.size() > historial && it.hasNext()) {
+                if (it.next().terminada()) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private void ejecutar(Importacion importacion) {
+        importacion.empezar();
+        try (BufferedReader lector = Files.newBufferedReader(importacion.archivo, StandardCharsets.UTF_8)) {
+            Procesador procesador = new Procesador(importacion, rolRepo.findAll());
+            if (importacion.formato == Formato.CSV) {
+                leerCsv(lector, procesador);
+            } else {
+                leerJson(lector, procesador);
+            }
+            procesador.terminar();
+            importacion.terminar(Estado.COMPLETADA, null);
+        } catch (Exception e) {
+            log.warn("Importación {} fallida: {}", importacion.id, e.getMessage());
+            importacion.terminar(Estado.FALLIDA, e.getMessage());
+        } finally {
+            borrar(importacion.archivo);
+        }
+        log.info("Importación {} {}: {} leídas, {} insertadas, {} duplicadas, {} errores ({} filas/s)",
+                importacion.id, importacion.estado, importacion.leidas, importacion.insertadas,
+                importacion.duplicadas, importacion.totalErrores, String.format(Locale.ROOT, "%.1f", importacion.filasPorSegundo()));
+    }
+
+    /** Valida y agrupa en lotes; guarda cada lote al llenarse. */
+    private final class Procesador implements Consumer<Fila> {
+
+        private final Importacion importacion;
+        private final Map<Long, Rol> rolesPorId = new HashMap<>();
+        private final Map<String, Rol> rolesPorNombre = new HashMap<>();
+        private final Set<String> vistos = new HashSet<>();
+        private final List<Validada> lote = new ArrayList<>();
+
+        Procesador(Importacion importacion, List<Rol> roles) {
+            this.importacion = importacion;
+            for (Rol rol : roles) {
+                rolesPorId.put(rol.getId(), rol);
+                rolesPorNombre.put(rol.getNombre().toUpperCase(Locale.ROOT), rol);
+            }
+        }
+
+        @Override
+        public void accept(Fila fila) {
+            importacion.leidas++;
+            String motivo = validar(fila);
+            if (motivo != null) {
+                error(importacion, fila, motivo);
+                return;
+            }
+            Rol rol = resolverRol(fila);
+            if (rol == null) {
+                error(importacion, fila, fila.rolId() != null ? "rolId no encontrado: " + fila.rolId() : "rol no encontrado: " + fila.rol());
+                return;
+            }
+            if (!vistos.add(fila.correoMatricula())) {
+                duplicada(importacion, fila, "repetido en el archivo");
+                return;
+            }
+            lote.add(new Validada(fila, rol.getId()));
+            if (lote.size() >= tamanoLote) {
+                procesarLote(importacion, List.copyOf(lote));
+                lote.clear();
+            }
+        }
+
+        void terminar() {
+            if (!lote.isEmpty()) {
+                procesarLote(importacion, List.copyOf(lote));
+                lote.clear();
+            }
+        }
+
+        private Rol resolverRol(Fila fila) {
+            if (fila.rolId() != null) {
+                try {
+                    return rolesPorId.get(Long.parseLong(fila.rolId()));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return rolesPorNombre.get(fila.rol().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static String validar(Fila fila) {
+        if (fila.correoMatricula() == null) {
+            return "correoMatricula vacío";
+        }
+        if (fila.correoMatricula().length() > 255) {
+            return "correoMatricula demasiado largo";
+        }
+        if (fila.password() == null) {
+            return "password vacío";
+        }
+        if (fila.nombre() == null) {
+            return "nombre vacío";
+        }
+        if (fila.rolId() == null && fila.rol() == null) {
+            return "falta rolId o rol";
+        }
+        return null;
+    }
+
+    private void procesarLote(Importacion importacion, List<Validada> lote) {
+        tiempoLote.record(() -> {
+            Set<String> existentes = new HashSet<>(usuarioRepo.correosExistentes(
+                    lote.stream().map(v -> v.fila().correoMatricula()).toList()));
+            List<Validada> nuevos = new ArrayList<>(lote.size());
+            for (Validada v : lote) {
+                if (existentes.contains(v.fila().correoMatricula())) {
+                    duplicada(importacion, v.fila(), "ya existe");
+                } else {
+                    nuevos.add(v);
+                }
+            }
+            List<Cifrada> cifradas = cifrar(nuevos);
+            try {
+                insertar(cifradas);
+                importacion.insertadas += cifradas.size();
+                insertadas.increment(cifradas.size());
+            } catch (DataIntegrityViolationException e) {
+                // Caso raro (alta concurrente del mismo correo): fila a fila para saber cuál choca
+                for (Cifrada c : cifradas) {
+                    try {
+                        insertar(List.of(c));
+                        importacion.insertadas++;
+                        insertadas.increment();
+                    } catch (DataIntegrityViolationException conflicto) {
+                        duplicada(importacion, c.fila(), "ya existe");
+                    }
+                }
+            }
+        });
+    }
+
+    private List<Cifrada> cifrar(List<Validada> filas) {
+        List<Callable<String>> tareas = filas.stream()
+                .<Callable<String>>map(v -> () -> ContrasenaService.esHash(v.fila().password())
+                        ? v.fila().password()
+                        : passwordEncoder.encode(v.fila().password()))
+                .toList();
+        try {
+            List<Future<String>> hashes = cifrado.invokeAll(tareas);
+            List<Cifrada> cifradas = new ArrayList<>(filas.size());
+            for (int i = 0; i < filas.size(); i++) {
+                Validada v = filas.get(i);
+                cifradas.add(new Cifrada(v.fila(), v.rolId(), hashes.get(i).get()));
+            }
+            return cifradas;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Importación interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error calculando BCrypt", e.getCause());
+        }
+    }
+
+    // El flush del commit agrupa los INSERT en lotes JDBC de batch-size; el contexto se descarta al cerrar
+    private void insertar(List<Cifrada> filas) {
+        if (filas.isEmpty()) {
+            return;
+        }
+        transaccion.executeWithoutResult(estado -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(tamanoLote);
+            Instant ahora = Instant.now();
+            LocalDate hoy = LocalDate.now();
+            for (Cifrada c : filas) {
+                entityManager.persist(Usuario.builder()
+                        .correoMatricula(c.fila().correoMatricula())
+                        .password(c.hash())
+                        .nombre(c.fila().nombre())
+                        .apellido(c.fila().apellido())
+                        .rol(entityManager.getReference(Rol.class, c.rolId()))
+                        .activo(true)
+                        .fechaCreacion(hoy)
+                        .credencialActualizada(ahora)
+                        .build());
+            }
+        });
+    }
+
+    private void duplicada(Importacion importacion, Fila fila, String motivo) {
+        importacion.duplicadas++;
+        duplicadas.increment();
+        importacion.anotar(fila, motivo, maxErrores);
+    }
+
+    private void error(Importacion importacion, Fila fila, String motivo) {
+        importacion.totalErrores++;
+        errores.increment();
+        importacion.anotar(fila, motivo, maxErrores);
+    }
+
+    // RFC 4180 con cabecera; columnas por nombre sin distinguir mayúsculas: correoMatricula, password,
+    // nombre, apellido y rolId o rol (nombre del rol)
+    private static void leerCsv(BufferedReader lector, Consumer<Fila> destino) throws IOException {
+        List<String> cabecera = registroCsv(lector);
+        if (cabecera == null) {
+            return;
+        }
+        Map<String, Integer> columnas = new HashMap<>();
+        for (int i = 0; i < cabecera.size(); i++) {
+            String nombre = cabecera.get(i).trim().toLowerCase(Locale.ROOT);
+            columnas.put(i == 0 && nombre.startsWith("\uFEFF") ? nombre.substring(1) : nombre, i);
+        }
+        for (String requerida : List.of("correomatricula", "password", "nombre")) {
+            if (!columnas.containsKey(requerida)) {
+                throw new IllegalArgumentException("Falta la columna " + requerida);
+            }
+        }
+        if (!columnas.containsKey("rolid") && !columnas.containsKey("rol")) {
+            throw new IllegalArgumentException("Falta la columna rolId o rol");
+        }
+        long numero = 0;
+        List<String> registro;
+        while ((registro = registroCsv(lector)) != null) {
+            numero++;
+            if (registro.stream().allMatch(String::isBlank)) {
+                continue;
+            }
+            destino.accept(new Fila(numero,
+                    campo(registro, columnas.get("correomatricula")),
+                    campo(registro, columnas.get("password")),
+                    campo(registro, columnas.get("nombre")),
+                    campo(registro, columnas.get("apellido")),
+                    campo(registro, columnas.get("rolid")),
+                    campo(registro, columnas.get("rol"))));
+        }
+    }
+
+    /** Un registro CSV (los campos entre comillas pueden llevar comas y saltos de línea); null al final. */
+    private static List<String> registroCsv(BufferedReader lector) throws IOException {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        boolean leido = false;
+        int c;
+        while ((c = lector.read()) != -1) {
+            leido = true;
+            if (entreComillas) {
+                if (c == '"') {
+                    lector.mark(1);
+                    int siguiente = lector.read();
+                    if (siguiente == '"') {
+                        campo.append('"');
+                    } else {
+                        entreComillas = false;
+                        if (siguiente != -1) {
+                            lector.reset();
+                        }
+                    }
+                } else {
+                    campo.append((char) c);
+                }
+            } else if (c == '"' && campo.isEmpty()) {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\n') {
+                campos.add(campo.toString());
+                return campos;
+            } else if (c != '\r') {
+                campo.append((char) c);
+            }
+        }
+        if (!leido) {
+            return null;
+        }
+        campos.add(campo.toString());
+        return campos;
+    }
+
+    private static String campo(List<String> registro, Integer indice) {
+        return indice != null && indice < registro.size() ? limpio(registro.get(indice)) : null;
+    }
+
+    // Array JSON de objetos o un objeto por línea (NDJSON), con los mismos nombres de campo que el CSV
+    private void leerJson(BufferedReader lector, Consumer<Fila> destino) throws IOException {
+        try (MappingIterator<JsonNode> it = objectMapper.readerFor(JsonNode.class).readValues(lector)) {
+            long numero = 0;
+            while (it.hasNextValue()) {
+                JsonNode nodo = it.nextValue();
+                numero++;
+                destino.accept(new Fila(numero,
+                        texto(nodo, "correoMatricula"),
+                        texto(nodo, "password"),
+                        texto(nodo, "nombre"),
+                        texto(nodo, "apellido"),
+                        texto(nodo, "rolId"),
+                        texto(nodo, "rol")));
+            }
+        }
+    }
+
+    private static String texto(JsonNode nodo, String campo) {
+        JsonNode valor = nodo.get(campo);
+        return valor == null || valor.isNull() || valor.isContainerNode() ? null : limpio(valor.asText());
+    }
+
+    private static String limpio(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        String recortado = valor.trim();
+        return recortado.isEmpty() ? null : recortado;
+    }
+
+    private static void borrar(Path archivo) {
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException e) {
+            log.warn("No se pudo borrar {}: {}", archivo, e.getMessage());
+        }
+    }
+
+    /** Estado de un trabajo; sólo lo escribe el hilo admin-import, el resto lo lee. */
+    private static final class Importacion {
+        final String id = UUID.randomUUID().toString();
+        final Formato formato;
+        final Path archivo;
+        final Instant creada = Instant.now();
+        final List<ImportacionDTO.ErrorFila> errores = new ArrayList<>();
+        volatile Estado estado = Estado.EN_COLA;
+        volatile Instant inicio;
+        volatile Instant fin;
+        volatile long inicioNanos;
+        volatile long finNanos;
+        volatile long leidas;
+        volatile long insertadas;
+        volatile long duplicadas;
+        volatile long totalErrores;
+        volatile String mensaje;
+
+        Importacion(Formato formato, Path archivo) {
+            this.formato = formato;
+            this.archivo = archivo;
+        }
+
+        void empezar() {
+            inicio = Instant.now();
+            inicioNanos = System.nanoTime();
+            estado = Estado.PROCESANDO;
+        }
+
+        void terminar(Estado estadoFinal, String causa) {
+            finNanos = System.nanoTime();
+            fin = Instant.now();
+            mensaje = causa;
+            estado = estadoFinal;
+        }
+
+        boolean terminada() {
+            return estado == Estado.COMPLETADA || estado == Estado.FALLIDA;
+        }
+
+        void anotar(Fila fila, String motivo, int maximo) {
+            synchronized (errores) {
+                if (errores.size() < maximo) {
+                    errores.add(new ImportacionDTO.ErrorFila(fila.numero(), fila.correoMatricula(), motivo));
+                }
+            }
+        }
+
+        double filasPorSegundo() {
+            if (inicio == null) {
+                return 0;
+            }
+            long hasta = terminada() ? finNanos : System.nanoTime();
+            double segundos = (hasta - inicioNanos) / 1e9;
+            return segundos > 0 ? leidas / segundos : 0;
+        }
+
+        ImportacionDTO aDto(boolean conErrores) {
+            List<ImportacionDTO.ErrorFila> copia = null;
+            if (conErrores) {
+                synchronized (errores) {
+                    copia = new ArrayList<>(errores);
+                }
+            }
+            return ImportacionDTO.builder()
+                    .id(id)
+                    .estado(estado.name())
+                    .formato(formato.name())
+                    .leidas(leidas)
+                    .insertadas(insertadas)
+                    .duplicadas(duplicadas)
+                    .totalErrores(totalErrores)
+                    .filasPorSegundo(Math.round(filasPorSegundo() * 10) / 10.0)
+                    .creada(creada)
+                    .inicio(inicio)
+                    .fin(fin)
+                    .mensaje(mensaje)
+                    .errores(copia)
+                    .build();
+        }
+    }
+}
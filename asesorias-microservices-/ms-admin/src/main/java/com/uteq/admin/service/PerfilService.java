@@ -1,5 +1,8 @@
 package com.uteq.admin.service;
 
+import com.uteq.admin.dto.AlumnoPerfilDTO;
+import com.uteq.admin.dto.PaginaDTO;
+import com.uteq.admin.dto.ProfesorPerfilDTO;
 import com.uteq.admin.entity.AlumnoPerfil;
 import com.uteq.admin.entity.ProfesorPerfil;
 import java.util.List;
@@ -15,4 +18,7 @@ public interface PerfilService {
     // ✅ Nuevos métodos para listar todos
     List<ProfesorPerfil> listarProfesores();
     List<AlumnoPerfil> listarAlumnos();
+
+    PaginaDTO<ProfesorPerfilDTO> paginaProfesores(Long divisionId, Long programaId, Boolean activo, long despuesDe, int limite);
+    PaginaDTO<AlumnoPerfilDTO> paginaAlumnos(Long divisionId, Long programaId, Boolean activo, long despuesDe, int limite);
 }
@@ -1,10 +1,14 @@
 package com.uteq.admin.service;
 
+import com.uteq.admin.dto.AlumnoPerfilDTO;
+import com.uteq.admin.dto.PaginaDTO;
+import com.uteq.admin.dto.ProfesorPerfilDTO;
 import com.uteq.admin.entity.AlumnoPerfil;
 import com.uteq.admin.entity.ProfesorPerfil;
 import com.uteq.admin.repository.AlumnoPerfilRepository;
 import com.uteq.admin.repository.ProfesorPerfilRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -15,27 +19,42 @@ public class PerfilServiceImpl implements PerfilService {
 
     private final ProfesorPerfilRepository profRepo;
     private final AlumnoPerfilRepository alumRepo;
+    private final ClaimsPerfilService claimsPerfil;
 
     @Override
     public ProfesorPerfil guardarProfesor(ProfesorPerfil p) {
-        return profRepo.findByUsuarioId(p.getUsuarioId())
-                .map(existente -> {
-                    existente.setDivision(p.getDivision());
-                    existente.setPrograma(p.getPrograma());
-                    return profRepo.save(existente);
-                })
-                .orElseGet(() -> profRepo.save(p));
+        ProfesorPerfil anterior = profRepo.findByUsuarioId(p.getUsuarioId()).orElse(null);
+        var divisionAntes = anterior != null ? anterior.getDivision() : null;
+        var programaAntes = anterior != null ? anterior.getPrograma() : null;
+        ProfesorPerfil guardado;
+        if (anterior != null) {
+            anterior.setDivision(p.getDivision());
+            anterior.setPrograma(p.getPrograma());
+            guardado = profRepo.save(anterior);
+        } else {
+            guardado = profRepo.save(p);
+        }
+        claimsPerfil.asignacionGuardada(guardado.getUsuarioId(), "PROFESOR", divisionAntes, programaAntes,
+                guardado.getDivision(), guardado.getPrograma());
+        return guardado;
     }
 
     @Override
     public AlumnoPerfil guardarAlumno(AlumnoPerfil p) {
-        return alumRepo.findByUsuarioId(p.getUsuarioId())
-                .map(existente -> {
-                    existente.setDivision(p.getDivision());
-                    existente.setPrograma(p.getPrograma());
-                    return alumRepo.save(existente);
-                })
-                .orElseGet(() -> alumRepo.save(p));
+        AlumnoPerfil anterior = alumRepo.findByUsuarioId(p.getUsuarioId()).orElse(null);
+        var divisionAntes = anterior != null ? anterior.getDivision() : null;
+        var programaAntes = anterior != null ? anterior.getPrograma() : null;
+        AlumnoPerfil guardado;
+        if (anterior != null) {
+            anterior.setDivision(p.getDivision());
+            anterior.setPrograma(p.getPrograma());
+            guardado = alumRepo.save(anterior);
+        } else {
+            guardado = alumRepo.save(p);
+        }
+        claimsPerfil.asignacionGuardada(guardado.getUsuarioId(), "ALUMNO", divisionAntes, programaAntes,
+                guardado.getDivision(), guardado.getPrograma());
+        return guardado;
     }
 
     @Override
@@ -60,4 +79,16 @@ public class PerfilServiceImpl implements PerfilService {
     public List<AlumnoPerfil> listarAlumnos() {
         return alumRepo.findAll();
     }
+
+    @Override
+    public PaginaDTO<ProfesorPerfilDTO> paginaProfesores(Long divisionId, Long programaId, Boolean activo, long despuesDe, int limite) {
+        return PaginaDTO.de(profRepo.pagina(despuesDe, divisionId, programaId, activo, PageRequest.of(0, limite + 1)),
+                limite, ProfesorPerfilDTO::getId);
+    }
+
+    @Override
+    public PaginaDTO<AlumnoPerfilDTO> paginaAlumnos(Long divisionId, Long programaId, Boolean activo, long despuesDe, int limite) {
+        return PaginaDTO.de(alumRepo.pagina(despuesDe, divisionId, programaId, activo, PageRequest.of(0, limite + 1)),
+                limite, AlumnoPerfilDTO::getId);
+    }
 }
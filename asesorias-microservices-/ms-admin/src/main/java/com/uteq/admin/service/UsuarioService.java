@@ -1,8 +1,10 @@
 package com.uteq.admin.service;
 
+import com.uteq.admin.dto.PaginaDTO;
 import com.uteq.admin.dto.UsuarioDTO;
 import com.uteq.admin.dto.UsuarioCrearDTO;
 import com.uteq.admin.entity.Usuario;
+import java.util.Collection;
 import java.util.List;
 
 public interface UsuarioService {
@@ -16,6 +18,8 @@ public interface UsuarioService {
     Usuario login(String correo, String password);
     List<UsuarioDTO> listarPorRol(Long rolId);
     List<UsuarioDTO> listarActivos();
+    PaginaDTO<UsuarioDTO> pagina(Long rolId, Boolean activo, long despuesDe, int limite);
+    List<UsuarioDTO> porIds(Collection<Long> ids);
     void eliminar(Long id);
 }
 
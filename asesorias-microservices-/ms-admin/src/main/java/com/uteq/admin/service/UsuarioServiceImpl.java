@@ -1,15 +1,23 @@
 package com.uteq.admin.service;
 
+import com.uteq.admin.dto.PaginaDTO;
 import com.uteq.admin.dto.UsuarioDTO;
 import com.uteq.admin.dto.UsuarioCrearDTO;
 import com.uteq.admin.entity.Rol;
 import com.uteq.admin.entity.Usuario;
 import com.uteq.admin.repository.RolRepository;
 import com.uteq.admin.repository.UsuarioRepository;
+import com.uteq.admin.repository.proyeccion.UsuarioFila;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -19,6 +27,9 @@ public class UsuarioServiceImpl implements UsuarioService {
 
     private final UsuarioRepository repo;
     private final RolRepository rolRepo;
+    private final ClaimsPerfilService claimsPerfil;
+    private final ContrasenaService contrasenas;
+    private final CredencialesService credenciales;
 
     @Override
     public Usuario crear(Usuario u) {
@@ -31,8 +42,10 @@ public class UsuarioServiceImpl implements UsuarioService {
             throw new RuntimeException("El rol es obligatorio");
         }
 
+        u.setPassword(contrasenas.cifrar(u.getPassword()));
         u.setActivo(true);
         u.setFechaCreacion(LocalDate.now());
+        u.setCredencialActualizada(Instant.now());
         return repo.save(u);
     }
 
@@ -43,12 +56,13 @@ public class UsuarioServiceImpl implements UsuarioService {
 
         Usuario usuario = Usuario.builder()
                 .correoMatricula(dto.getCorreoMatricula())
-                .password(dto.getPassword())
+                .password(contrasenas.cifrar(dto.getPassword()))
                 .nombre(dto.getNombre())
                 .apellido(dto.getApellido())
                 .rol(rol)
                 .activo(true)
                 .fechaCreacion(LocalDate.now())
+                .credencialActualizada(Instant.now())
                 .build();
         
         Usuario guardado = repo.save(usuario);
@@ -69,20 +83,22 @@ public class UsuarioServiceImpl implements UsuarioService {
         }
         
         usuario.setFechaActualizacion(LocalDate.now());
+        usuario.setCredencialActualizada(Instant.now());
         Usuario actualizado = repo.save(usuario);
         return convertirDTO(actualizado);
     }
 
     @Override
     public List<UsuarioDTO> listar() {
-        return repo.findAll().stream()
+        return repo.pagina(0L, null, null, Pageable.unpaged()).stream()
                 .map(this::convertirDTO)
                 .collect(Collectors.toList());
     }
 
     @Override
     public UsuarioDTO obtenerDTO(Long id) {
-        return convertirDTO(obtener(id));
+        Usuario usuario = obtener(id);
+        return claimsPerfil.completar(convertirDTO(usuario), usuario);
     }
 
     @Override
@@ -96,6 +112,7 @@ public class UsuarioServiceImpl implements UsuarioService {
         Usuario u = obtener(id);
         u.setActivo(activo);
         u.setFechaActualizacion(LocalDate.now());
+        u.setCredencialActualizada(Instant.now());
         Usuario actualizado = repo.save(u);
         return convertirDTO(actualizado);
     }
@@ -104,33 +121,84 @@ public class UsuarioServiceImpl implements UsuarioService {
     public Usuario login(String correo, String password) {
         Usuario u = repo.findByCorreoMatricula(correo)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        if (!u.getPassword().equals(password))
+        if (!contrasenas.coincide(password, u.getPassword()))
             throw new RuntimeException("Contraseña incorrecta");
         if (Boolean.FALSE.equals(u.getActivo()))
             throw new RuntimeException("Cuenta inactiva");
+        if (contrasenas.requiereRehash(u.getPassword())) {
+            migrarContrasena(u, password);
+        }
         u.setUltimoAcceso(LocalDate.now());
         return repo.save(u);
     }
 
     @Override
     public List<UsuarioDTO> listarPorRol(Long rolId) {
-        Rol rol = rolRepo.findById(rolId)
-                .orElseThrow(() -> new RuntimeException("Rol no encontrado"));
-        return repo.findByRol(rol).stream()
+        if (!rolRepo.existsById(rolId)) {
+            throw new RuntimeException("Rol no encontrado");
+        }
+        return repo.pagina(0L, rolId, null, Pageable.unpaged()).stream()
                 .map(this::convertirDTO)
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<UsuarioDTO> listarActivos() {
-        return repo.findByActivo(true).stream()
+        return repo.pagina(0L, null, true, Pageable.unpaged()).stream()
                 .map(this::convertirDTO)
                 .collect(Collectors.toList());
     }
 
     @Override
+    public PaginaDTO<UsuarioDTO> pagina(Long rolId, Boolean activo, long despuesDe, int limite) {
+        List<UsuarioDTO> filas = repo.pagina(despuesDe, rolId, activo, PageRequest.of(0, limite + 1)).stream()
+                .map(this::convertirDTO)
+                .toList();
+        return PaginaDTO.de(filas, limite, UsuarioDTO::getId);
+    }
+
+    @Override
+    public List<UsuarioDTO> porIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return repo.porIds(ids).stream()
+                .map(this::convertirDTO)
+                .toList();
+    }
+
+    @Override
+    @Transactional
     public void eliminar(Long id) {
+        if (!repo.existsById(id)) {
+            return;
+        }
         repo.deleteById(id);
+        // Sin lápida ms-auth no vería el borrado si en el mismo intervalo se crea otra cuenta
+        credenciales.registrarBorrado(id);
+    }
+
+    // Se aprovecha la contraseña recibida en un login correcto para guardarla cifrada
+    private void migrarContrasena(Usuario u, String password) {
+        try {
+            u.setPassword(contrasenas.cifrar(password));
+            u.setCredencialActualizada(Instant.now());
+            contrasenas.migracionRegistrada();
+        } catch (ResponseStatusException e) {
+            // Pool saturado: el login ya es válido, la migración queda para el siguiente
+        }
+    }
+
+    private UsuarioDTO convertirDTO(UsuarioFila fila) {
+        return UsuarioDTO.builder()
+                .id(fila.getId())
+                .correoMatricula(fila.getCorreoMatricula())
+                .nombre(fila.getNombre())
+                .apellido(fila.getApellido())
+                .activo(fila.getActivo())
+                .rolId(fila.getRolId())
+                .rolNombre(fila.getRolNombre())
+                .build();
     }
 
     private UsuarioDTO convertirDTO(Usuario usuario) {
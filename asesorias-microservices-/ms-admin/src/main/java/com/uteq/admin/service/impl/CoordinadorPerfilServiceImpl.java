@@ -1,14 +1,17 @@
 package com.uteq.admin.service.impl;
 
 import com.uteq.admin.dto.CoordinadorPerfilDTO;
+import com.uteq.admin.dto.PaginaDTO;
 import com.uteq.admin.entity.CoordinadorPerfil;
 import com.uteq.admin.entity.Division;
 import com.uteq.admin.entity.Programa;
 import com.uteq.admin.repository.CoordinadorPerfilRepository;
 import com.uteq.admin.repository.DivisionRepository;
 import com.uteq.admin.repository.ProgramaRepository;
+import com.uteq.admin.service.ClaimsPerfilService;
 import com.uteq.admin.service.CoordinadorPerfilService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
 import java.util.List;
@@ -20,6 +23,7 @@ public class CoordinadorPerfilServiceImpl implements CoordinadorPerfilService {
     private final CoordinadorPerfilRepository repository;
     private final DivisionRepository divisionRepository;
     private final ProgramaRepository programaRepository;
+    private final ClaimsPerfilService claimsPerfil;
 
     @Override
     public CoordinadorPerfil crear(CoordinadorPerfilDTO dto) {
@@ -36,13 +40,18 @@ public class CoordinadorPerfilServiceImpl implements CoordinadorPerfilService {
                 .activo(true)
                 .fechaCreacion(LocalDate.now())
                 .build();
-        return repository.save(coordinador);
+        CoordinadorPerfil guardado = repository.save(coordinador);
+        claimsPerfil.asignacionGuardada(guardado.getUsuarioId(), "COORDINADOR", null, null,
+                guardado.getDivision(), guardado.getPrograma());
+        return guardado;
     }
 
     @Override
     public CoordinadorPerfil actualizar(Long id, CoordinadorPerfilDTO dto) {
         CoordinadorPerfil coordinador = obtenerPorId(id);
-        
+        Division divisionAntes = coordinador.getDivision();
+        Programa programaAntes = coordinador.getPrograma();
+
         if (dto.getDivisionId() != null) {
             Division division = divisionRepository.findById(dto.getDivisionId())
                     .orElseThrow(() -> new RuntimeException("División no encontrada"));
@@ -56,7 +65,10 @@ public class CoordinadorPerfilServiceImpl implements CoordinadorPerfilService {
         }
 
         coordinador.setFechaActualizacion(LocalDate.now());
-        return repository.save(coordinador);
+        CoordinadorPerfil guardado = repository.save(coordinador);
+        claimsPerfil.asignacionGuardada(guardado.getUsuarioId(), "COORDINADOR", divisionAntes, programaAntes,
+                guardado.getDivision(), guardado.getPrograma());
+        return guardado;
     }
 
     @Override
@@ -94,6 +106,12 @@ public class CoordinadorPerfilServiceImpl implements CoordinadorPerfilService {
         return repository.findByPrograma(programa);
     }
 
+    @Override
+    public PaginaDTO<CoordinadorPerfilDTO> pagina(Long divisionId, Long programaId, Boolean activo, long despuesDe, int limite) {
+        return PaginaDTO.de(repository.pagina(despuesDe, divisionId, programaId, activo, PageRequest.of(0, limite + 1)),
+                limite, CoordinadorPerfilDTO::getId);
+    }
+
     @Override
     public void eliminar(Long id) {
         repository.deleteById(id);
@@ -1,6 +1,7 @@
 package com.uteq.admin.service.impl;
 
 import com.uteq.admin.dto.GrupoDTO;
+import com.uteq.admin.dto.PaginaDTO;
 import com.uteq.admin.entity.Grupo;
 import com.uteq.admin.entity.ProfesorPerfil;
 import com.uteq.admin.entity.Division;
@@ -11,6 +12,7 @@ import com.uteq.admin.repository.DivisionRepository;
 import com.uteq.admin.repository.ProgramaRepository;
 import com.uteq.admin.service.GrupoService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
 import java.util.List;
@@ -111,6 +113,12 @@ public class GrupoServiceImpl implements GrupoService {
         return repository.findByPrograma(programa);
     }
 
+    @Override
+    public PaginaDTO<GrupoDTO> pagina(Long profesorId, Long divisionId, Long programaId, Boolean activo, long despuesDe, int limite) {
+        return PaginaDTO.de(repository.pagina(despuesDe, profesorId, divisionId, programaId, activo, PageRequest.of(0, limite + 1)),
+                limite, GrupoDTO::getId);
+    }
+
     @Override
     public void eliminar(Long id) {
         repository.deleteById(id);
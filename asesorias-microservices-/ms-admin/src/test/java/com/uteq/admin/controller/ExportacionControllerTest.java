@@ -0,0 +1,134 @@
+package com.uteq.admin.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exporta 500k usuarios con el heap limitado (-Xmx128m en el surefire de ms-admin): cargarlos en una lista
+ * o serializar la respuesta entera no cabe, así que sólo pasa si la exportación va en streaming.
+ * La base es H2 en fichero para que los datos tampoco vivan en el heap.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/exportacion-test;CACHE_SIZE=4096",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "eureka.client.enabled=false",
+        "spring.cloud.discovery.enabled=false"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ExportacionControllerTest {
+
+    private static final int FILAS = 500_000;
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private long totalUsuarios;
+
+    @BeforeAll
+    void sembrar() {
+        // Apellido con coma y comillas para ejercitar el escapado CSV
+        jdbc.update("insert into usuarios (id, correo_matricula, password, nombre, apellido, activo, rol_id, fecha_creacion)"
+                + " select (select coalesce(max(id), 0) from usuarios) + x, 'alumno' || x || '@uteq.edu', 'x', 'Nombre' || x, 'Pérez, \"' || x || '\"', mod(x, 2) = 0,"
+                + " (select id from roles where nombre = 'ALUMNO'), current_date"
+                + " from system_range(1, " + FILAS + ")");
+        totalUsuarios = jdbc.queryForObject("select count(*) from usuarios", Long.class);
+    }
+
+    @Test
+    void exportaTodosLosUsuariosEnNdjson() throws Exception {
+        HttpResponse<InputStream> response = pedir("/api/admin/usuarios/export");
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(
+                tipo -> assertThat(tipo).startsWith("application/x-ndjson"));
+
+        long lineas = 0;
+        long ultimoId = 0;
+        try (BufferedReader lector = lector(response)) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                // Comprobar cada fila sería lo caro del test; basta con una muestra y el orden por id
+                if (lineas % 50_000 == 0) {
+                    JsonNode fila = objectMapper.readTree(linea);
+                    assertThat(fila.get("id").asLong()).isGreaterThan(ultimoId);
+                    assertThat(fila.has("password")).isFalse();
+                    ultimoId = fila.get("id").asLong();
+                }
+                lineas++;
+            }
+        }
+        assertThat(lineas).isEqualTo(totalUsuarios);
+    }
+
+    @Test
+    void exportaUsuariosFiltradosEnCsv() throws Exception {
+        HttpResponse<InputStream> response = pedir("/api/admin/usuarios/export?formato=csv&activo=true");
+        assertThat(response.statusCode()).isEqualTo(200);
+
+        long activos = jdbc.queryForObject("select count(*) from usuarios where activo = true", Long.class);
+        long lineas = 0;
+        try (BufferedReader lector = lector(response)) {
+            assertThat(lector.readLine()).isEqualTo("id,correoMatricula,nombre,apellido,activo,rolId,rolNombre");
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                if (linea.contains("alumno2@uteq.edu,")) {
+                    assertThat(linea).endsWith(",Nombre2,\"Pérez, \"\"2\"\"\",true,3,ALUMNO");
+                }
+                lineas++;
+            }
+        }
+        assertThat(lineas).isEqualTo(activos);
+    }
+
+    @Test
+    void exigeRolAdmin() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + "/api/admin/usuarios/export"))
+                .header("X-User-Role", "ALUMNO")
+                .build();
+        HttpResponse<Void> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.discarding());
+        assertThat(response.statusCode()).isEqualTo(403);
+    }
+
+    @Test
+    void rechazaFormatoDesconocido() throws Exception {
+        HttpResponse<InputStream> response = pedir("/api/admin/perfiles/export?formato=xml");
+        response.body().close();
+        assertThat(response.statusCode()).isEqualTo(400);
+    }
+
+    private HttpResponse<InputStream> pedir(String ruta) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + ruta))
+                .header("X-User-Role", "ADMIN")
+                .header("X-User-Id", "1")
+                .build();
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    private static BufferedReader lector(HttpResponse<InputStream> response) {
+        return new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,14 @@
+package com.uteq.alumnos.client;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import java.util.Map;
+
+/** Claves públicas de ms-auth (JWKS) para verificar tokens RS256 en JwksTokenFilter. */
+@FeignClient(name = "ms-auth", contextId = "alumnosJwksClient")
+public interface JwksClient {
+
+    @GetMapping("/api/auth/.well-known/jwks.json")
+    Map<String, Object> obtenerJwks();
+}
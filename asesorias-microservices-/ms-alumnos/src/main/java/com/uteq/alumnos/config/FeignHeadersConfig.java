@@ -25,6 +25,9 @@ public class FeignHeadersConfig {
                     copyHeader(req, template, "X-User-Id");
                     copyHeader(req, template, "X-User-Email");
                     copyHeader(req, template, "X-User-Role");
+                    copyHeader(req, template, "X-User-Division-Id");
+                    copyHeader(req, template, "X-User-Programa-Id");
+                    copyHeader(req, template, "X-User-Perfil-Version");
                 }
             }
 
@@ -12,6 +12,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/alumnos")
@@ -28,8 +29,12 @@ public class AlumnoController {
     return alumnoService.crear(a);
   }
 
+  // usuarioIds=1,2,3: sólo los de esos usuarios (carga por lote desde el gateway)
   @GetMapping
-  public List<?> listar() {
+  public List<?> listar(@RequestParam(required = false) Set<Long> usuarioIds) {
+    if (usuarioIds != null) {
+      return alumnoService.listarPorUsuarios(usuarioIds);
+    }
     return alumnoService.listar();
   }
 
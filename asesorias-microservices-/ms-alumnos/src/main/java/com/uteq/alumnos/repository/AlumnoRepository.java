@@ -4,10 +4,12 @@ import com.uteq.alumnos.entity.Alumno;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface AlumnoRepository extends JpaRepository<Alumno, Long> {
     Alumno findByUsuarioId(Long usuarioId);
+    List<Alumno> findByUsuarioIdIn(Collection<Long> usuarioIds);
     List<Alumno> findByDivisionIdAndProgramaId(Long divisionId, Long programaId);
 }
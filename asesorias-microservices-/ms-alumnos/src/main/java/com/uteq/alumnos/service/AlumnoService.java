@@ -3,11 +3,13 @@ package com.uteq.alumnos.service;
 import com.uteq.alumnos.dto.AlumnoDTO;
 import com.uteq.alumnos.entity.Alumno;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface AlumnoService {
     Alumno crear(Alumno a);
     List<AlumnoDTO> listar();
+    List<AlumnoDTO> listarPorUsuarios(Collection<Long> usuarioIds);
     Alumno obtener(Long id);
     Alumno obtenerPorUsuario(Long usuarioId);
     Alumno actualizar(Long id, Alumno a);
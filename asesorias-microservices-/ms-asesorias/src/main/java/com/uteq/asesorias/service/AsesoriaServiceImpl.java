@@ -5,6 +5,7 @@ import com.uteq.asesorias.entity.Asesoria;
 import com.uteq.asesorias.entity.Disponibilidad;
 import com.uteq.asesorias.repository.AsesoriaRepository;
 import com.uteq.asesorias.repository.DisponibilidadRepository;
+import com.uteq.asesorias.snapshot.service.PerfilLlamante;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -14,6 +15,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import feign.FeignException;
+import org.springframework.web.server.ResponseStatusException;
 
 @Service
 @RequiredArgsConstructor
@@ -22,25 +24,21 @@ public class AsesoriaServiceImpl implements AsesoriaService {
     private final AsesoriaRepository repo;
     private final DisponibilidadRepository dispRepo;
     private final AdminClient admin;
+    private final PerfilLlamante perfilLlamante;
 
     @Override
     public Asesoria crear(Long profesorId, Long alumnoId, Long disponibilidadId, String materia, String observaciones) {
-        // 1️⃣ Validar perfiles: mismo programa
-        Map<String, Object> profPerfil;
-        Map<String, Object> alumPerfil;
+        // 1️⃣ Validar perfiles: mismo programa. El del llamante sale de los claims de su token;
+        // a ms-admin sólo se le pide el de la otra parte
+        Long profPrograma = perfilLlamante.programa(profesorId, "PROFESOR").orElse(null);
+        Long alumPrograma = perfilLlamante.programa(alumnoId, "ALUMNO").orElse(null);
         try {
-            profPerfil = admin.perfilProfesor(profesorId);
-            alumPerfil = admin.perfilAlumno(alumnoId);
+            if (profPrograma == null) profPrograma = programaDePerfil(admin.perfilProfesor(profesorId));
+            if (alumPrograma == null) alumPrograma = programaDePerfil(admin.perfilAlumno(alumnoId));
         } catch (FeignException e) {
             throw new IllegalArgumentException("No se pudo obtener perfiles en ms-admin: " + e.status());
         }
 
-        if (profPerfil == null || alumPerfil == null)
-            throw new IllegalArgumentException("Perfiles no encontrados");
-
-        Long profPrograma = extraerProgramaId(profPerfil);
-        Long alumPrograma = extraerProgramaId(alumPerfil);
-
         if (profPrograma == null || alumPrograma == null || !profPrograma.equals(alumPrograma))
             throw new IllegalArgumentException("Alumno y Profesor no pertenecen al mismo programa");
 
@@ -83,16 +81,17 @@ public class AsesoriaServiceImpl implements AsesoriaService {
 
         // 1️⃣ Validar perfiles (tolerante): si no se puede obtener o faltan programas, permitimos continuar
         try {
-            Map<String, Object> profPerfil = admin.perfilProfesor(profesorId);
-            Map<String, Object> alumPerfil = admin.perfilAlumno(alumnoId);
-            Long profPrograma = extraerProgramaId(profPerfil);
-            Long alumPrograma = extraerProgramaId(alumPerfil);
+            Long profPrograma = perfilLlamante.programa(profesorId, "PROFESOR")
+                    .orElseGet(() -> extraerProgramaId(admin.perfilProfesor(profesorId)));
+            Long alumPrograma = perfilLlamante.programa(alumnoId, "ALUMNO")
+                    .orElseGet(() -> extraerProgramaId(admin.perfilAlumno(alumnoId)));
             if (profPrograma != null && alumPrograma != null && !profPrograma.equals(alumPrograma)) {
                 throw new IllegalArgumentException("Alumno y Profesor no pertenecen al mismo programa");
             }
         } catch (FeignException e) {
             // Continuar sin bloquear la solicitud; el profesor podrá revisar/aceptar
-        } catch (IllegalArgumentException ex) {
+        } catch (IllegalArgumentException | ResponseStatusException ex) {
+            // Incluye el 401 de PerfilLlamante: token con un perfil ya reasignado
             throw ex;
         } catch (Exception ignored) {
             // Cualquier otro caso: continuar
@@ -207,6 +206,12 @@ public class AsesoriaServiceImpl implements AsesoriaService {
         return repo.findByProfesorIdAndFecha(profesorId, fecha);
     }
 
+    private Long programaDePerfil(Map<String, Object> perfil) {
+        if (perfil == null)
+            throw new IllegalArgumentException("Perfiles no encontrados");
+        return extraerProgramaId(perfil);
+    }
+
     private Long extraerProgramaId(Map<String, Object> perfil) {
         if (perfil == null) return null;
         Object programaId = perfil.get("programaId");
@@ -1,4 +1,3 @@
-
 package com.uteq.asesorias.snapshot.dto;
 import lombok.*; @Data @NoArgsConstructor @AllArgsConstructor @Builder
-public class PerfilAsignacionDTO { private Long divisionId; private Long programaId; }
+public class PerfilAsignacionDTO { private Long divisionId; private Long programaId; private Long version; }
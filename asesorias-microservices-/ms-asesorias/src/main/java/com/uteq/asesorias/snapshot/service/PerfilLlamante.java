@@ -0,0 +1,59 @@
+package com.uteq.asesorias.snapshot.service;
+
+import com.uteq.asesorias.snapshot.repository.MsAdminAlumnoRepository;
+import com.uteq.asesorias.snapshot.repository.MsAdminProfesorRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Optional;
+
+/**
+ * Programa del usuario que hace la petición, tomado de los claims de su token
+ * (X-User-Programa-Id / X-User-Perfil-Version, los pone el gateway): evita consultar a ms-admin
+ * para el propio llamante. Si el snapshot de ms-admin tiene una versión de perfil posterior a la
+ * del token, el usuario fue reasignado y se responde 401 para que el cliente refresque el token.
+ */
+@Component
+@RequiredArgsConstructor
+public class PerfilLlamante {
+
+    private final MsAdminProfesorRepository profRepo;
+    private final MsAdminAlumnoRepository alumRepo;
+
+    /** Vacío si usuarioId no es el llamante o su token no trae claims de perfil. */
+    public Optional<Long> programa(Long usuarioId, String rol) {
+        if (usuarioId == null || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attrs)) {
+            return Optional.empty();
+        }
+        HttpServletRequest request = attrs.getRequest();
+        Long llamante = leer(request.getHeader("X-User-Id"));
+        Long programa = leer(request.getHeader("X-User-Programa-Id"));
+        if (!usuarioId.equals(llamante) || programa == null || !rol.equalsIgnoreCase(request.getHeader("X-User-Role"))) {
+            return Optional.empty();
+        }
+        Long versionToken = leer(request.getHeader("X-User-Perfil-Version"));
+        Long versionActual = "PROFESOR".equalsIgnoreCase(rol)
+                ? profRepo.findFirstByProfesorUsuarioIdOrderByIdDesc(usuarioId).map(p -> p.getVersion()).orElse(null)
+                : alumRepo.findFirstByAlumnoUsuarioIdOrderByIdDesc(usuarioId).map(a -> a.getVersion()).orElse(null);
+        if (versionActual != null && (versionToken == null || versionToken < versionActual)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "El perfil fue reasignado: refresque el token");
+        }
+        return Optional.of(programa);
+    }
+
+    private static Long leer(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(valor.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
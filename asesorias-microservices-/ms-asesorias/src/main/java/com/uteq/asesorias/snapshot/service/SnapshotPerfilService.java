@@ -14,10 +14,10 @@ public class SnapshotPerfilService {
   private final MsAdminAlumnoRepository alumRepo;
   @Transactional public MsAdminProfesor saveProfesor(Long profesorUsuarioId, PerfilAsignacionDTO dto){
     return profRepo.save(MsAdminProfesor.builder()
-      .profesorUsuarioId(profesorUsuarioId).divisionId(dto.getDivisionId()).programaId(dto.getProgramaId()).version(1L).build());
+      .profesorUsuarioId(profesorUsuarioId).divisionId(dto.getDivisionId()).programaId(dto.getProgramaId()).version(dto.getVersion() != null ? dto.getVersion() : 0L).build());
   }
   @Transactional public MsAdminAlumno saveAlumno(Long alumnoUsuarioId, PerfilAsignacionDTO dto){
     return alumRepo.save(MsAdminAlumno.builder()
-      .alumnoUsuarioId(alumnoUsuarioId).divisionId(dto.getDivisionId()).programaId(dto.getProgramaId()).version(1L).build());
+      .alumnoUsuarioId(alumnoUsuarioId).divisionId(dto.getDivisionId()).programaId(dto.getProgramaId()).version(dto.getVersion() != null ? dto.getVersion() : 0L).build());
   }
 }
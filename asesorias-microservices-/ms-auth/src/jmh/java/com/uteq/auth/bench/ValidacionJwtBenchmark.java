@@ -0,0 +1,67 @@
+package com.uteq.auth.bench;
+
+import com.uteq.auth.config.JwtKeysProperties;
+import com.uteq.auth.security.ClavesFirma;
+import com.uteq.auth.service.impl.JwtServiceImpl;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validación de un access token HS512 en ms-auth.
+ * <ul>
+ *   <li>antes: lo que hacía AuthServiceImpl.validarToken: clave y parser nuevos en cada llamada y dos parseos
+ *       (validarToken + obtenerClaimsDelToken).</li>
+ *   <li>despues: JwtServiceImpl.verificarToken, con clave y parser construidos una vez y un solo parseo.</li>
+ * </ul>
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec                          # todo
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="despues -t 1" # filtro y opciones de JMH
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class ValidacionJwtBenchmark {
+
+    /** El de application.yml (sólo desarrollo). */
+    private static final String SECRETO = "my_super_secret_key_for_jwt_tokens_development_only_change_in_production_123456789";
+
+    private JwtServiceImpl jwtService;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        ClavesFirma hs512 = new ClavesFirma(new JwtKeysProperties(), null, "HS512");
+        jwtService = new JwtServiceImpl(SECRETO, 86_400_000L, 604_800_000L, 100, false, true, hs512);
+        token = jwtService.generarToken(5L, "admin@uteq.edu", "ADMIN");
+    }
+
+    @Benchmark
+    public Object antes() {
+        Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRETO.getBytes())).build().parseClaimsJws(token);
+        return Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRETO.getBytes())).build()
+                .parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Object despues() {
+        return jwtService.verificarToken(token).claims();
+    }
+}
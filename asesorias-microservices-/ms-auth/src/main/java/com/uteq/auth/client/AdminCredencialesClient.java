@@ -0,0 +1,26 @@
+package com.uteq.auth.client;
+
+import com.uteq.auth.dto.CredencialesPaginaDTO;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.Collection;
+
+/**
+ * Endpoints internos de ms-admin (directo por Eureka; el gateway los bloquea) que alimentan
+ * la proyección local de credenciales.
+ */
+@FeignClient(name = "ms-admin", contextId = "authAdminCredencialesClient")
+public interface AdminCredencialesClient {
+
+    @GetMapping(value = "/api/admin/internal/credenciales", headers = "X-User-Role=ADMIN")
+    CredencialesPaginaDTO credenciales(@RequestParam(value = "desde", required = false) Long desde,
+                                       @RequestParam("despuesDeId") Long despuesDeId,
+                                       @RequestParam("limit") int limit);
+
+    @PostMapping(value = "/api/admin/internal/usuarios/ultimo-acceso", headers = "X-User-Role=ADMIN")
+    Integer registrarAccesos(@RequestBody Collection<Long> ids);
+}
@@ -0,0 +1,17 @@
+package com.uteq.auth.client;
+
+import com.uteq.auth.dto.UsuarioDTO;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+
+/**
+ * Acceso directo a ms-admin (Eureka) para refrescar tokens: por el gateway, GET /api/admin/usuarios/{id}
+ * exige un access token y en el refresh sólo se tiene el refresh token.
+ */
+@FeignClient(name = "ms-admin", contextId = "authAdminUsuarioClient")
+public interface AdminUsuarioClient {
+
+    @GetMapping("/api/admin/usuarios/{id}")
+    UsuarioDTO obtenerUsuario(@PathVariable("id") Long id);
+}
@@ -0,0 +1,34 @@
+package com.uteq.auth.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool dedicado a verificar BCrypt en los logins resueltos con la proyección local: tantos hilos como
+ * núcleos y cola acotada. Con la cola llena se rechaza al momento (AbortPolicy → 503), así un pico de
+ * logins no deja sin CPU a /validate ni al resto de peticiones.
+ */
+@Configuration
+public class HashExecutorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor hashExecutor(
+            @Value("${app.auth.hash.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int hilos,
+            @Value("${app.auth.hash.queue-size:64}") int tamanoCola) {
+        AtomicInteger contador = new AtomicInteger();
+        return new ThreadPoolExecutor(hilos, hilos, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(tamanoCola),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "auth-hash-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -0,0 +1,33 @@
+package com.uteq.auth.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Claves RSA para firmar con RS256 (app.jwt.rsa.*), sólo con app.jwt.algorithm=RS256.
+ * Rotación solapada: se añade la clave nueva (se publica en el JWKS), se espera a que los verificadores
+ * refresquen su caché, se cambia active-kid y la anterior se deja sólo con public-key hasta que caduquen
+ * sus refresh tokens.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.jwt.rsa")
+public class JwtKeysProperties {
+
+    /** kid con el que se firman los tokens nuevos; debe tener private-key. */
+    private String activeKid;
+    private List<Clave> keys = new ArrayList<>();
+
+    @Data
+    public static class Clave {
+        private String kid;
+        /** PEM PKCS#8 (classpath: o file:). Opcional en claves retiradas. */
+        private String privateKey;
+        /** PEM X.509; si falta se deriva de la privada. */
+        private String publicKey;
+    }
+}
@@ -28,7 +28,9 @@ public class SecurityConfig {
                 .requestMatchers("/api/auth/login").permitAll()
                 .requestMatchers("/api/auth/health").permitAll()
                 .requestMatchers("/api/auth/validate").permitAll()
+                .requestMatchers("/api/auth/validate/batch").permitAll()
                 .requestMatchers("/api/auth/refresh").permitAll()
+                .requestMatchers("/api/auth/.well-known/jwks.json").permitAll()
                 .anyRequest().permitAll()
             )
             .httpBasic().disable();
@@ -0,0 +1,34 @@
+package com.uteq.auth.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool acotado para POST /api/auth/validate/batch: hilos y cola fijos, así un lote grande no deja sin CPU
+ * al resto de endpoints. Con la cola llena el trozo lo valida el propio hilo de la petición (CallerRunsPolicy).
+ */
+@Configuration
+public class ValidacionExecutorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService validacionExecutor(
+            @Value("${app.auth.validate-batch.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int hilos,
+            @Value("${app.auth.validate-batch.queue-size:256}") int tamanoCola) {
+        AtomicInteger contador = new AtomicInteger();
+        return new ThreadPoolExecutor(hilos, hilos, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(tamanoCola),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "auth-validate-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
@@ -2,13 +2,26 @@ package com.uteq.auth.controller;
 
 import com.uteq.auth.dto.AuthResponse;
 import com.uteq.auth.dto.LoginRequest;
+import com.uteq.auth.dto.TokenValidationBatchRequest;
+import com.uteq.auth.dto.TokenValidationBatchResponse;
 import com.uteq.auth.dto.TokenValidationRequest;
 import com.uteq.auth.dto.TokenValidationResponse;
+import com.uteq.auth.security.ClavesFirma;
+import com.uteq.auth.security.LimitadorLogin;
 import com.uteq.auth.service.AuthService;
+import com.uteq.auth.service.CredencialesInvalidasException;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -16,10 +29,32 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
+    private final ClavesFirma clavesFirma;
+    private final LimitadorLogin limitadorLogin;
+
+    @Value("${app.jwt.jwks.max-age:5m}")
+    private Duration jwksMaxAge;
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@RequestBody LoginRequest request) {
-        AuthResponse response = authService.autenticar(request);
+    public ResponseEntity<AuthResponse> login(@RequestBody LoginRequest request, HttpServletRequest http) {
+        // Cuenta o IP bloqueada por fallos repetidos: 429 sin llegar a la proyección ni a ms-admin
+        String ip = limitadorLogin.ipCliente(http);
+        long espera = limitadorLogin.esperaRestante(request.getCorreoMatricula(), ip);
+        if (espera > 0) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf((espera + 999) / 1000))
+                    .build();
+        }
+        AuthResponse response;
+        try {
+            response = authService.autenticar(request);
+        } catch (CredencialesInvalidasException e) {
+            // Sólo cuentan las credenciales incorrectas: una caída de ms-admin, un 429/503 o el pool de BCrypt
+            // saturado pasan sin tocar los contadores (si no, una avería acabaría bloqueando cuentas)
+            limitadorLogin.registrarFallo(request.getCorreoMatricula(), ip);
+            throw e;
+        }
+        limitadorLogin.registrarExito(request.getCorreoMatricula());
         return ResponseEntity.status(HttpStatus.OK).body(response);
     }
 
@@ -29,6 +64,13 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
 
+    /** Validación de muchos tokens a la vez (calentado de caché del gateway, auditoría de sesiones). */
+    @PostMapping("/validate/batch")
+    public ResponseEntity<TokenValidationBatchResponse> validarTokens(@RequestBody TokenValidationBatchRequest request) {
+        TokenValidationBatchResponse response = authService.validarTokens(request.getTokens());
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/refresh")
     public ResponseEntity<AuthResponse> refrescarToken(@RequestHeader("Authorization") String refreshToken) {
         String token = refreshToken.replace("Bearer ", "");
@@ -36,6 +78,28 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
 
+    /** Cierra la sesión del refresh token (y de los rotados a partir de él). El access token vigente caduca solo. */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> cerrarSesion(@RequestHeader("Authorization") String refreshToken) {
+        authService.cerrarSesion(refreshToken.replace("Bearer ", ""));
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Claves públicas RS256 para verificar tokens sin el secreto ni una llamada por petición.
+     * Cacheable (max-age + ETag); vacío si ms-auth firma con HS512.
+     */
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks(WebRequest request) {
+        if (request.checkNotModified(clavesFirma.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(jwksMaxAge).cachePublic())
+                .eTag(clavesFirma.getEtag())
+                .body(clavesFirma.getJwks());
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("MS-Auth está funcionando correctamente");
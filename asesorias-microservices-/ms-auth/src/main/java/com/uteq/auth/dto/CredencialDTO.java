@@ -0,0 +1,23 @@
+package com.uteq.auth.dto;
+
+import lombok.*;
+
+/** Fila de GET /api/admin/internal/credenciales de ms-admin. passwordHash es null en cuentas aún en claro. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CredencialDTO {
+    private Long id;
+    private String correoMatricula;
+    private String passwordHash;
+    private String nombre;
+    private String apellido;
+    private Boolean activo;
+    private Long rolId;
+    private String rolNombre;
+    private Long divisionId;
+    private Long programaId;
+    private Long versionPerfil;
+    private Long actualizada;
+}
@@ -0,0 +1,15 @@
+package com.uteq.auth.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CredencialesPaginaDTO {
+    private List<CredencialDTO> credenciales;
+    private List<Long> borrados;
+    private long totalUsuarios;
+}
@@ -0,0 +1,13 @@
+package com.uteq.auth.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TokenValidationBatchRequest {
+    private List<String> tokens;
+}
@@ -0,0 +1,17 @@
+package com.uteq.auth.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TokenValidationBatchResponse {
+    /** Un resultado por token, en el mismo orden de la petición. */
+    private List<TokenValidationResponse> resultados;
+    private Integer total;
+    private Integer validos;
+    private Long duracionMs;
+}
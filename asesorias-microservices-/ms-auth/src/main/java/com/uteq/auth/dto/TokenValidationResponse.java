@@ -11,5 +11,8 @@ public class TokenValidationResponse {
     private Long usuarioId;
     private String correoMatricula;
     private String rolNombre;
+    private Long divisionId;
+    private Long programaId;
+    private Long versionPerfil;
     private String mensaje;
 }
@@ -14,4 +14,8 @@ public class UsuarioDTO {
     private Boolean activo;
     private Long rolId;
     private String rolNombre;
+    // Asignación académica vigente (perfil de alumno, profesor o coordinador) y su versión
+    private Long divisionId;
+    private Long programaId;
+    private Long versionPerfil;
 }
@@ -0,0 +1,200 @@
+package com.uteq.auth.security;
+
+import com.uteq.auth.config.JwtKeysProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Claves RS256 de ms-auth: la activa (firma) y todas las publicadas en el JWKS (verifican).
+ * Sin claves configuradas se genera un par efímero al arrancar: sirve para desarrollo con una sola instancia,
+ * pero cada reinicio invalida los tokens emitidos y varias réplicas no comparten clave.
+ */
+@Component
+@Slf4j
+public class ClavesFirma {
+
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final boolean habilitado;
+    private final Map<String, RSAPublicKey> publicas = new LinkedHashMap<>();
+    private String kidActivo;
+    private PrivateKey privadaActiva;
+    private Map<String, Object> jwks = Map.of("keys", List.of());
+    private String etag = "\"vacio\"";
+
+    public ClavesFirma(JwtKeysProperties properties,
+                       ResourceLoader resourceLoader,
+                       @Value("${app.jwt.algorithm:HS512}") String algoritmo) {
+        this.habilitado = "RS256".equalsIgnoreCase(algoritmo);
+        if (!habilitado) {
+            return;
+        }
+        if (properties.getKeys().isEmpty()) {
+            generarEfimera();
+        } else {
+            cargar(properties, resourceLoader);
+        }
+        construirJwks();
+        log.info("Firma RS256 con kid={}; JWKS publica {}", kidActivo, publicas.keySet());
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public String getKidActivo() {
+        return kidActivo;
+    }
+
+    public PrivateKey getPrivadaActiva() {
+        return privadaActiva;
+    }
+
+    /** null si el kid no está publicado (desconocido o ya retirado). */
+    public RSAPublicKey clavePublica(String kid) {
+        return kid != null ? publicas.get(kid) : null;
+    }
+
+    public Map<String, Object> getJwks() {
+        return jwks;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    private void cargar(JwtKeysProperties properties, ResourceLoader resourceLoader) {
+        for (JwtKeysProperties.Clave clave : properties.getKeys()) {
+            PrivateKey privada = clave.getPrivateKey() != null
+                    ? privada(leerPem(resourceLoader, clave.getPrivateKey())) : null;
+            RSAPublicKey publica;
+            if (clave.getPublicKey() != null) {
+                publica = publica(leerPem(resourceLoader, clave.getPublicKey()));
+            } else if (privada instanceof RSAPrivateCrtKey crt) {
+                publica = publica(crt.getModulus(), crt.getPublicExponent());
+            } else {
+                throw new IllegalStateException("La clave " + clave.getKid() + " no tiene public-key");
+            }
+            publicas.put(clave.getKid(), publica);
+            if (clave.getKid().equals(properties.getActiveKid())) {
+                if (privada == null) {
+                    throw new IllegalStateException("app.jwt.rsa.active-kid=" + clave.getKid() + " no tiene private-key");
+                }
+                kidActivo = clave.getKid();
+                privadaActiva = privada;
+            }
+        }
+        if (privadaActiva == null) {
+            throw new IllegalStateException("app.jwt.rsa.active-kid no coincide con ninguna clave configurada");
+        }
+    }
+
+    private void generarEfimera() {
+        try {
+            KeyPairGenerator generador = KeyPairGenerator.getInstance("RSA");
+            generador.initialize(2048);
+            KeyPair par = generador.generateKeyPair();
+            kidActivo = "efimera-" + Long.toString(System.currentTimeMillis(), 36);
+            privadaActiva = par.getPrivate();
+            publicas.put(kidActivo, (RSAPublicKey) par.getPublic());
+            log.warn("app.jwt.algorithm=RS256 sin app.jwt.rsa.keys: clave efímera {} (sólo desarrollo)", kidActivo);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo generar la clave RSA", e);
+        }
+    }
+
+    private void construirJwks() {
+        List<Map<String, Object>> claves = new ArrayList<>();
+        publicas.forEach((kid, publica) -> {
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "RSA");
+            jwk.put("use", "sig");
+            jwk.put("alg", "RS256");
+            jwk.put("kid", kid);
+            jwk.put("n", BASE64URL.encodeToString(sinSigno(publica.getModulus())));
+            jwk.put("e", BASE64URL.encodeToString(sinSigno(publica.getPublicExponent())));
+            claves.add(Collections.unmodifiableMap(jwk));
+        });
+        jwks = Map.of("keys", List.copyOf(claves));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(claves.toString().getBytes(StandardCharsets.UTF_8));
+            etag = "\"" + BASE64URL.encodeToString(digest).substring(0, 22) + "\"";
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static String leerPem(ResourceLoader resourceLoader, String ubicacion) {
+        Resource recurso = resourceLoader.getResource(ubicacion);
+        try {
+            return new String(recurso.getInputStream().readAllBytes(), StandardCharsets.US_ASCII);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer la clave " + ubicacion, e);
+        }
+    }
+
+    private static byte[] der(String pem) {
+        return Base64.getMimeDecoder().decode(pem.replaceAll("-----[A-Z ]+-----", "").replaceAll("\\s", ""));
+    }
+
+    private static PrivateKey privada(String pem) {
+        try {
+            return KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(der(pem)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Clave privada RSA inválida (se espera PEM PKCS#8)", e);
+        }
+    }
+
+    private static RSAPublicKey publica(String pem) {
+        try {
+            return (RSAPublicKey) KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(der(pem)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Clave pública RSA inválida (se espera PEM X.509)", e);
+        }
+    }
+
+    private static RSAPublicKey publica(BigInteger modulo, BigInteger exponente) {
+        try {
+            return (RSAPublicKey) KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(modulo, exponente));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Clave pública RSA inválida", e);
+        }
+    }
+
+    /** JWK usa el entero sin signo: se quita el byte 0 que añade BigInteger. */
+    private static byte[] sinSigno(BigInteger valor) {
+        byte[] bytes = valor.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            byte[] recortado = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, recortado, 0, recortado.length);
+            return recortado;
+        }
+        return bytes;
+    }
+}
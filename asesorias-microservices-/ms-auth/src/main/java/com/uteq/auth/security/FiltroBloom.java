@@ -0,0 +1,67 @@
+package com.uteq.auth.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom concurrente sobre cadenas (jti). Sin falsos negativos: si dice que no está, no está.
+ * Consultar no reserva memoria: FNV-1a de 64 bits sobre los caracteres y doble hashing para las k posiciones.
+ */
+final class FiltroBloom {
+
+    private final AtomicLongArray palabras;
+    private final long numBits;
+    private final int numHashes;
+    private final long capacidad;
+
+    FiltroBloom(long capacidad, double probabilidadFalsoPositivo) {
+        this.capacidad = Math.max(1, capacidad);
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-this.capacidad * Math.log(probabilidadFalsoPositivo) / (ln2 * ln2));
+        int numPalabras = (int) Math.max(1, (bits + 63) / 64);
+        this.palabras = new AtomicLongArray(numPalabras);
+        this.numBits = numPalabras * 64L;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / this.capacidad * ln2));
+    }
+
+    long capacidad() {
+        return capacidad;
+    }
+
+    void agregar(CharSequence clave) {
+        long hash = hash(clave);
+        long h1 = (int) hash;
+        long h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            palabras.getAndAccumulate((int) (bit >>> 6), 1L << bit, (a, b) -> a | b);
+        }
+    }
+
+    boolean puedeContener(CharSequence clave) {
+        long hash = hash(clave);
+        long h1 = (int) hash;
+        long h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            if ((palabras.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(CharSequence clave) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < clave.length(); i++) {
+            h ^= clave.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        // Mezcla final (splitmix64) para repartir también los 32 bits altos
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,221 @@
+package com.uteq.auth.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Frena el relleno de credenciales en ms-auth, antes de cualquier llamada a ms-admin.
+ * <ul>
+ *   <li>Cuenta los logins fallidos por cuenta (correoMatricula) y por IP de origen en una ventana deslizante
+ *       aproximada: la ventana anterior pondera por la parte que aún solapa con la actual.</li>
+ *   <li>Al superar el umbral la clave queda bloqueada; cada bloqueo consecutivo dobla la espera
+ *       (backoff exponencial hasta max-backoff) y un login correcto limpia la cuenta.</li>
+ *   <li>Memoria acotada: los contadores viven en franjas LRU con su propio cerrojo (max-entries por tipo
+ *       de clave); al llenarse se descarta la clave menos usada.</li>
+ * </ul>
+ */
+@Component
+public class LimitadorLogin {
+
+    private final boolean habilitado;
+    private final boolean confiarForwardedFor;
+    private final Contadores cuentas;
+    private final Contadores ips;
+
+    public LimitadorLogin(MeterRegistry meterRegistry,
+                          @Value("${app.auth.login-throttle.enabled:true}") boolean habilitado,
+                          @Value("${app.auth.login-throttle.trust-forwarded-for:true}") boolean confiarForwardedFor,
+                          @Value("${app.auth.login-throttle.stripes:64}") int franjas,
+                          @Value("${app.auth.login-throttle.max-entries:100000}") int maxEntradas,
+                          @Value("${app.auth.login-throttle.base-backoff:30s}") Duration esperaBase,
+                          @Value("${app.auth.login-throttle.max-backoff:15m}") Duration esperaMaxima,
+                          @Value("${app.auth.login-throttle.cuenta.window:15m}") Duration ventanaCuenta,
+                          @Value("${app.auth.login-throttle.cuenta.max-failures:5}") int maxFallosCuenta,
+                          @Value("${app.auth.login-throttle.ip.window:1m}") Duration ventanaIp,
+                          @Value("${app.auth.login-throttle.ip.max-failures:30}") int maxFallosIp) {
+        this.habilitado = habilitado;
+        this.confiarForwardedFor = confiarForwardedFor;
+        this.cuentas = new Contadores("cuenta", franjas, maxEntradas, ventanaCuenta.toMillis(), maxFallosCuenta,
+                esperaBase.toMillis(), esperaMaxima.toMillis(), meterRegistry);
+        this.ips = new Contadores("ip", franjas, maxEntradas, ventanaIp.toMillis(), maxFallosIp,
+                esperaBase.toMillis(), esperaMaxima.toMillis(), meterRegistry);
+    }
+
+    /** Milisegundos que faltan para poder intentarlo; 0 si se permite. */
+    public long esperaRestante(String correoMatricula, String ip) {
+        if (!habilitado) {
+            return 0;
+        }
+        long ahora = System.currentTimeMillis();
+        return Math.max(cuentas.esperaRestante(clave(correoMatricula), ahora), ips.esperaRestante(ip, ahora));
+    }
+
+    public void registrarFallo(String correoMatricula, String ip) {
+        if (!habilitado) {
+            return;
+        }
+        long ahora = System.currentTimeMillis();
+        cuentas.registrarFallo(clave(correoMatricula), ahora);
+        ips.registrarFallo(ip, ahora);
+    }
+
+    public void registrarExito(String correoMatricula) {
+        if (habilitado) {
+            cuentas.limpiar(clave(correoMatricula));
+        }
+    }
+
+    /**
+     * IP del cliente. Detrás del gateway se usa la última entrada de X-Forwarded-For, la que añadió él mismo:
+     * las anteriores las puede inventar el cliente.
+     */
+    public String ipCliente(HttpServletRequest request) {
+        if (confiarForwardedFor) {
+            String forwarded = request.getHeader("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isBlank()) {
+                String ultima = forwarded.substring(forwarded.lastIndexOf(',') + 1).trim();
+                if (!ultima.isEmpty()) {
+                    return ultima;
+                }
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static String clave(String correoMatricula) {
+        return correoMatricula == null ? "" : correoMatricula.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Contadores de un tipo de clave, repartidos en franjas LRU con cerrojo propio. */
+    private static final class Contadores {
+
+        private final Map<String, Ventana>[] franjas;
+        private final long ventanaMs;
+        private final int maxFallos;
+        private final long esperaBaseMs;
+        private final long esperaMaximaMs;
+        private final Counter fallos;
+        private final Counter rechazos;
+        private final Counter bloqueos;
+
+        @SuppressWarnings("unchecked")
+        Contadores(String tipo, int numFranjas, int maxEntradas, long ventanaMs, int maxFallos,
+                   long esperaBaseMs, long esperaMaximaMs, MeterRegistry registry) {
+            int n = Math.max(1, numFranjas);
+            int maxPorFranja = Math.max(1, maxEntradas / n);
+            this.franjas = new Map[n];
+            for (int i = 0; i < n; i++) {
+                franjas[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Ventana> mayor) {
+                        return size() > maxPorFranja;
+                    }
+                };
+            }
+            this.ventanaMs = Math.max(1, ventanaMs);
+            this.maxFallos = Math.max(1, maxFallos);
+            this.esperaBaseMs = esperaBaseMs;
+            this.esperaMaximaMs = esperaMaximaMs;
+            this.fallos = Counter.builder("auth.login.throttle.fallos")
+                    .description("Logins fallidos contados por el limitador")
+                    .tag("clave", tipo).register(registry);
+            this.rechazos = Counter.builder("auth.login.throttle.rechazos")
+                    .description("Logins rechazados en ms-auth por estar la clave bloqueada")
+                    .tag("clave", tipo).register(registry);
+            this.bloqueos = Counter.builder("auth.login.throttle.bloqueos")
+                    .description("Bloqueos impuestos al superar el umbral de fallos")
+                    .tag("clave", tipo).register(registry);
+            Gauge.builder("auth.login.throttle.entradas", this, Contadores::entradas)
+                    .description("Claves con contador en memoria")
+                    .tag("clave", tipo).register(registry);
+        }
+
+        long esperaRestante(String clave, long ahora) {
+            Map<String, Ventana> franja = franja(clave);
+            synchronized (franja) {
+                Ventana ventana = franja.get(clave);
+                long espera = ventana != null ? ventana.bloqueadoHasta - ahora : 0;
+                if (espera > 0) {
+                    rechazos.increment();
+                    return espera;
+                }
+                return 0;
+            }
+        }
+
+        void registrarFallo(String clave, long ahora) {
+            fallos.increment();
+            Map<String, Ventana> franja = franja(clave);
+            synchronized (franja) {
+                Ventana ventana = franja.computeIfAbsent(clave, k -> new Ventana());
+                ventana.avanzar(ahora, ventanaMs);
+                ventana.actual++;
+                // Bloqueos seguidos: se olvidan tras una ventana entera sin bloqueo
+                if (ventana.bloqueos > 0 && ahora - ventana.bloqueadoHasta > ventanaMs) {
+                    ventana.bloqueos = 0;
+                }
+                if (ventana.estimado(ahora, ventanaMs) > maxFallos) {
+                    long espera = Math.min(esperaMaximaMs, esperaBaseMs << Math.min(ventana.bloqueos, 20));
+                    ventana.bloqueadoHasta = ahora + espera;
+                    ventana.bloqueos++;
+                    bloqueos.increment();
+                }
+            }
+        }
+
+        void limpiar(String clave) {
+            Map<String, Ventana> franja = franja(clave);
+            synchronized (franja) {
+                franja.remove(clave);
+            }
+        }
+
+        private Map<String, Ventana> franja(String clave) {
+            int h = clave.hashCode();
+            return franjas[((h ^ (h >>> 16)) & 0x7fffffff) % franjas.length];
+        }
+
+        private double entradas() {
+            long total = 0;
+            for (Map<String, Ventana> franja : franjas) {
+                synchronized (franja) {
+                    total += franja.size();
+                }
+            }
+            return total;
+        }
+    }
+
+    /** Fallos de la ventana fija actual y de la anterior, alineadas a múltiplos de la duración. */
+    private static final class Ventana {
+        long inicio;
+        int actual;
+        int anterior;
+        long bloqueadoHasta;
+        int bloqueos;
+
+        void avanzar(long ahora, long ventanaMs) {
+            long inicioActual = ahora - Math.floorMod(ahora, ventanaMs);
+            if (inicioActual == inicio) {
+                return;
+            }
+            anterior = inicioActual - inicio == ventanaMs ? actual : 0;
+            actual = 0;
+            inicio = inicioActual;
+        }
+
+        double estimado(long ahora, long ventanaMs) {
+            double solape = 1.0 - (double) (ahora - inicio) / ventanaMs;
+            return anterior * solape + actual;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.uteq.auth.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Refresh tokens ya usados o revocados (jti o familia → expiración, epoch en segundos).
+ * <ul>
+ *   <li>La consulta pasa primero por un filtro de Bloom: en el caso normal (no revocado) responde sin
+ *       tocar el mapa ni reservar memoria; sólo un acierto del filtro consulta el mapa exacto.</li>
+ *   <li>Cada revocación se añade a un fichero (una línea "id expiración") que se relee al arrancar.</li>
+ *   <li>La compactación periódica quita lo ya expirado del mapa y del fichero y reconstruye el filtro,
+ *       que no admite borrados.</li>
+ * </ul>
+ * El fichero es local a la instancia: con varias réplicas de ms-auth cada una tiene su propio conjunto.
+ */
+@Component
+@Slf4j
+public class RevocacionTokens {
+
+    private final Path fichero;
+    private final long capacidadInicial;
+    private final double probabilidadFalsoPositivo;
+
+    private final Map<String, Long> revocados = new ConcurrentHashMap<>();
+    private volatile FiltroBloom filtro;
+    private BufferedWriter escritor;
+
+    private final Counter descartadosPorFiltro;
+    private final Counter falsosPositivos;
+    private final Counter aciertos;
+
+    public RevocacionTokens(MeterRegistry meterRegistry,
+                            @Value("${app.auth.revocacion.file:./data/refresh-revocados.log}") String fichero,
+                            @Value("${app.auth.revocacion.capacity:100000}") long capacidad,
+                            @Value("${app.auth.revocacion.false-positive-rate:0.001}") double probabilidadFalsoPositivo) {
+        this.fichero = Path.of(fichero);
+        this.capacidadInicial = Math.max(1, capacidad);
+        this.probabilidadFalsoPositivo = probabilidadFalsoPositivo;
+        this.filtro = new FiltroBloom(capacidadInicial, probabilidadFalsoPositivo);
+        this.descartadosPorFiltro = consultas(meterRegistry, "filtro");
+        this.falsosPositivos = consultas(meterRegistry, "falso_positivo");
+        this.aciertos = consultas(meterRegistry, "revocado");
+        Gauge.builder("auth.revocacion.entradas", revocados, Map::size)
+                .description("jti y familias revocados aún sin expirar")
+                .register(meterRegistry);
+    }
+
+    private static Counter consultas(MeterRegistry registry, String resultado) {
+        return Counter.builder("auth.revocacion.consultas")
+                .description("Consultas al conjunto de revocados según dónde se resolvieron")
+                .tag("resultado", resultado)
+                .register(registry);
+    }
+
+    @PostConstruct
+    synchronized void cargar() {
+        long ahora = ahoraSegundos();
+        try {
+            if (Files.exists(fichero)) {
+                for (String linea : Files.readAllLines(fichero, StandardCharsets.UTF_8)) {
+                    String[] partes = linea.trim().split(" ");
+                    if (partes.length == 2) {
+                        long expira = Long.parseLong(partes[1]);
+                        if (expira > ahora) {
+                            revocados.put(partes[0], expira);
+                        }
+                    }
+                }
+            }
+            reconstruirFiltro();
+            reescribirFichero();
+            log.info("Revocación de refresh tokens: {} entradas vigentes en {}", revocados.size(), fichero);
+        } catch (IOException | NumberFormatException e) {
+            throw new IllegalStateException("No se pudo cargar " + fichero, e);
+        }
+    }
+
+    public boolean estaRevocado(String id) {
+        if (!filtro.puedeContener(id)) {
+            descartadosPorFiltro.increment();
+            return false;
+        }
+        Long expira = revocados.get(id);
+        if (expira == null) {
+            falsosPositivos.increment();
+            return false;
+        }
+        aciertos.increment();
+        return expira > ahoraSegundos();
+    }
+
+    /**
+     * Marca el id como revocado hasta su expiración. Devuelve false si ya lo estaba: es lo que hace
+     * de un solo uso el refresh token aunque lleguen dos peticiones a la vez con el mismo.
+     */
+    public synchronized boolean revocar(String id, long expiraEpochSegundos) {
+        if (revocados.putIfAbsent(id, expiraEpochSegundos) != null) {
+            return false;
+        }
+        filtro.agregar(id);
+        try {
+            if (escritor == null) {
+                abrirEscritor();
+            }
+            escritor.write(id + " " + expiraEpochSegundos);
+            escritor.newLine();
+            escritor.flush();
+        } catch (IOException e) {
+            // El rechazo sigue en memoria; sólo se perdería si se reinicia antes de la próxima compactación
+            log.error("No se pudo persistir la revocación de {}: {}", id, e.getMessage());
+        }
+        if (revocados.size() > filtro.capacidad()) {
+            reconstruirFiltro();
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.revocacion.compaction-interval:1h}",
+            initialDelayString = "${app.auth.revocacion.compaction-interval:1h}")
+    public synchronized void compactar() {
+        long ahora = ahoraSegundos();
+        int antes = revocados.size();
+        revocados.values().removeIf(expira -> expira <= ahora);
+        reconstruirFiltro();
+        try {
+            reescribirFichero();
+        } catch (IOException e) {
+            log.error("No se pudo compactar {}: {}", fichero, e.getMessage());
+        }
+        log.debug("Revocación compactada: {} → {} entradas", antes, revocados.size());
+    }
+
+    // Llamar con el monitor tomado: una revocación concurrente no debe caer en el filtro que se descarta
+    private void reconstruirFiltro() {
+        FiltroBloom nuevo = new FiltroBloom(Math.max(capacidadInicial, revocados.size() * 2L), probabilidadFalsoPositivo);
+        revocados.keySet().forEach(nuevo::agregar);
+        filtro = nuevo;
+    }
+
+    private void reescribirFichero() throws IOException {
+        cerrarEscritor();
+        Path directorio = fichero.toAbsolutePath().getParent();
+        if (directorio != null) {
+            Files.createDirectories(directorio);
+        }
+        Path temporal = fichero.resolveSibling(fichero.getFileName() + ".tmp");
+        List<String> lineas = revocados.entrySet().stream()
+                .map(e -> e.getKey() + " " + e.getValue())
+                .toList();
+        Files.write(temporal, lineas, StandardCharsets.UTF_8);
+        Files.move(temporal, fichero, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        abrirEscritor();
+    }
+
+    private void abrirEscritor() throws IOException {
+        escritor = Files.newBufferedWriter(fichero, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @PreDestroy
+    synchronized void cerrarEscritor() {
+        if (escritor == null) {
+            return;
+        }
+        try {
+            escritor.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            escritor = null;
+        }
+    }
+
+    private static long ahoraSegundos() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
@@ -2,10 +2,16 @@ package com.uteq.auth.service;
 
 import com.uteq.auth.dto.LoginRequest;
 import com.uteq.auth.dto.AuthResponse;
+import com.uteq.auth.dto.TokenValidationBatchResponse;
 import com.uteq.auth.dto.TokenValidationResponse;
 
+import java.util.List;
+
 public interface AuthService {
     AuthResponse autenticar(LoginRequest request);
     TokenValidationResponse validarToken(String token);
+    TokenValidationBatchResponse validarTokens(List<String> tokens);
     AuthResponse refrescarToken(String refreshToken);
+    /** Revoca la familia del refresh token: ni él ni los que se hayan rotado a partir de él sirven ya. */
+    void cerrarSesion(String refreshToken);
 }
@@ -0,0 +1,13 @@
+package com.uteq.auth.service;
+
+/**
+ * Login rechazado por credenciales: la cuenta no existe o la contraseña no coincide.
+ * Es el único fallo que cuenta LimitadorLogin; caídas de ms-admin, 429/503 o un pool de BCrypt saturado
+ * no son intentos de adivinar contraseñas y no deben bloquear la cuenta ni la IP.
+ */
+public class CredencialesInvalidasException extends RuntimeException {
+
+    public CredencialesInvalidasException(String mensaje) {
+        super(mensaje);
+    }
+}
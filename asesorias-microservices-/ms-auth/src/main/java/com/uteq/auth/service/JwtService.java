@@ -1,13 +1,20 @@
 package com.uteq.auth.service;
 
+import com.uteq.auth.dto.UsuarioDTO;
 import io.jsonwebtoken.Claims;
 
 public interface JwtService {
     String generarToken(Long usuarioId, String correoMatricula, String rolNombre);
+    /** Access token con los claims de perfil (divisionId, programaId, pv) si app.jwt.profile-claims está activo. */
+    String generarToken(UsuarioDTO usuario);
     String generarRefreshToken(Long usuarioId);
+    /** Refresh token con jti nuevo dentro de la familia dada (la del token rotado); null abre una familia nueva. */
+    String generarRefreshToken(Long usuarioId, String familia);
     String obtenerIdDelToken(String token);
     String obtenerCorreoDelToken(String token);
     String obtenerRolDelToken(String token);
     Claims obtenerClaimsDelToken(String token);
     Boolean validarToken(String token);
+    /** Parsea y verifica una sola vez; no lanza excepción con tokens inválidos. */
+    ResultadoValidacionToken verificarToken(String token);
 }
@@ -0,0 +1,268 @@
+package com.uteq.auth.service;
+
+import com.uteq.auth.client.AdminCredencialesClient;
+import com.uteq.auth.dto.CredencialDTO;
+import com.uteq.auth.dto.CredencialesPaginaDTO;
+import com.uteq.auth.dto.UsuarioDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Copia local de las credenciales de ms-admin (correoMatricula → id, hash, rol, estado, asignación)
+ * para resolver el login sin ir a ms-admin por el gateway.
+ * <ul>
+ *   <li>Al arrancar se carga entera por páginas; después sólo se piden los cambios posteriores al
+ *       último visto, con un solape para no perder filas confirmadas tarde.</li>
+ *   <li>Los borrados llegan como lápidas (ids eliminados desde el mismo instante) junto a los cambios.
+ *       Si aun así el total de ms-admin no cuadra con el local (lápida ya purgada) se recarga entera.</li>
+ *   <li>Si la última sincronización es más antigua que max-staleness, o la cuenta no está o sigue con la
+ *       contraseña en claro, {@link #autenticar} no decide y el login va a ms-admin como antes.</li>
+ * </ul>
+ * ultimoAcceso de los logins locales se acumula y se envía a ms-admin en un solo lote periódico.
+ * BCrypt se verifica en el pool acotado hashExecutor (HashExecutorConfig); saturado, el login responde 503.
+ */
+@Service
+@Slf4j
+public class ProyeccionCredenciales {
+
+    private final AdminCredencialesClient adminCredencialesClient;
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor hashExecutor;
+    private final Timer tiempoVerificar;
+    private final Timer tiempoEnCola;
+    private final Counter rechazos;
+    private final long esperaHashMs;
+    private final boolean habilitada;
+    private final long maxAntiguedadMs;
+    private final long solapeMs;
+    private final int tamanoPagina;
+
+    private volatile Map<String, CredencialDTO> porCorreo = new ConcurrentHashMap<>();
+    private volatile Map<Long, CredencialDTO> porId = new ConcurrentHashMap<>();
+    private final Set<Long> accesosPendientes = ConcurrentHashMap.newKeySet();
+
+    // Mayor "actualizada" recibida (epoch ms de ms-admin); -1 = falta la carga completa
+    private long cursor = -1;
+    private volatile long ultimaSincronizacion;
+
+    public ProyeccionCredenciales(AdminCredencialesClient adminCredencialesClient,
+                                  PasswordEncoder passwordEncoder,
+                                  ThreadPoolExecutor hashExecutor,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.auth.hash.timeout:5s}") Duration esperaHash,
+                                  @Value("${app.auth.credenciales.enabled:true}") boolean habilitada,
+                                  @Value("${app.auth.credenciales.max-staleness:2m}") Duration maxAntiguedad,
+                                  @Value("${app.auth.credenciales.overlap:5s}") Duration solape,
+                                  @Value("${app.auth.credenciales.page-size:500}") int tamanoPagina) {
+        this.adminCredencialesClient = adminCredencialesClient;
+        this.passwordEncoder = passwordEncoder;
+        this.hashExecutor = hashExecutor;
+        this.esperaHashMs = esperaHash.toMillis();
+        this.habilitada = habilitada;
+        this.maxAntiguedadMs = maxAntiguedad.toMillis();
+        this.solapeMs = solape.toMillis();
+        this.tamanoPagina = Math.max(1, tamanoPagina);
+        Gauge.builder("auth.credenciales.entradas", this, p -> p.porId.size())
+                .description("Cuentas en la proyección local de credenciales")
+                .register(meterRegistry);
+        Gauge.builder("auth.credenciales.antiguedad", this,
+                        p -> p.ultimaSincronizacion == 0 ? Double.NaN : (System.currentTimeMillis() - p.ultimaSincronizacion) / 1000.0)
+                .description("Segundos desde la última sincronización con ms-admin")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.tiempoVerificar = Timer.builder("auth.password.verificar")
+                .description("Tiempo de BCrypt en el pool")
+                .register(meterRegistry);
+        this.tiempoEnCola = Timer.builder("auth.password.verificar.espera")
+                .description("Tiempo en cola hasta que un hilo del pool toma la verificación")
+                .register(meterRegistry);
+        this.rechazos = Counter.builder("auth.password.verificar.rechazos")
+                .description("Verificaciones rechazadas con el pool saturado (503)")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.verificar.cola", hashExecutor, e -> e.getQueue().size())
+                .description("Verificaciones BCrypt en cola")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Login contra la proyección. Vacío = no se puede decidir aquí (hay que ir a ms-admin);
+     * con el mismo mensaje que ms-admin lanza CredencialesInvalidasException si la contraseña no coincide y
+     * RuntimeException si la cuenta está inactiva.
+     */
+    public Optional<UsuarioDTO> autenticar(String correoMatricula, String password) {
+        if (!habilitada || !vigente() || correoMatricula == null || password == null) {
+            return Optional.empty();
+        }
+        CredencialDTO credencial = porCorreo.get(correoMatricula);
+        if (credencial == null || credencial.getPasswordHash() == null) {
+            return Optional.empty();
+        }
+        if (!verificar(password, credencial.getPasswordHash())) {
+            throw new CredencialesInvalidasException("Contraseña incorrecta");
+        }
+        if (Boolean.FALSE.equals(credencial.getActivo())) {
+            throw new RuntimeException("Cuenta inactiva");
+        }
+        accesosPendientes.add(credencial.getId());
+        return Optional.of(UsuarioDTO.builder()
+                .id(credencial.getId())
+                .correoMatricula(credencial.getCorreoMatricula())
+                .nombre(credencial.getNombre())
+                .apellido(credencial.getApellido())
+                .activo(credencial.getActivo())
+                .rolId(credencial.getRolId())
+                .rolNombre(credencial.getRolNombre())
+                .divisionId(credencial.getDivisionId())
+                .programaId(credencial.getProgramaId())
+                .versionPerfil(credencial.getVersionPerfil())
+                .build());
+    }
+
+    private boolean verificar(String password, String hash) {
+        long encolada = System.nanoTime();
+        Future<Boolean> resultado;
+        try {
+            resultado = hashExecutor.submit(() -> {
+                tiempoEnCola.record(System.nanoTime() - encolada, TimeUnit.NANOSECONDS);
+                return tiempoVerificar.recordCallable(() -> passwordEncoder.matches(password, hash));
+            });
+        } catch (RejectedExecutionException e) {
+            rechazos.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Demasiados inicios de sesión simultáneos, reintente");
+        }
+        try {
+            return resultado.get(esperaHashMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            resultado.cancel(true);
+            rechazos.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Demasiados inicios de sesión simultáneos, reintente");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            resultado.cancel(true);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Comprobación de contraseña interrumpida");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error verificando BCrypt", e.getCause());
+        }
+    }
+
+    private boolean vigente() {
+        long ultima = ultimaSincronizacion;
+        return ultima > 0 && System.currentTimeMillis() - ultima <= maxAntiguedadMs;
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.credenciales.refresh-interval:30s}")
+    public synchronized void sincronizar() {
+        if (!habilitada) {
+            return;
+        }
+        try {
+            if (cursor < 0) {
+                cargarCompleta();
+            } else {
+                long total = aplicarCambios();
+                if (total != porId.size()) {
+                    log.info("Proyección de credenciales con {} cuentas y ms-admin tiene {}: recarga completa", porId.size(), total);
+                    cargarCompleta();
+                }
+            }
+            ultimaSincronizacion = System.currentTimeMillis();
+        } catch (Exception e) {
+            // Se conserva la copia anterior; al superar max-staleness los logins vuelven a ir a ms-admin
+            log.warn("No se pudo sincronizar la proyección de credenciales: {}", e.getMessage());
+        }
+    }
+
+    private void cargarCompleta() {
+        Map<String, CredencialDTO> nuevoPorCorreo = new ConcurrentHashMap<>();
+        Map<Long, CredencialDTO> nuevoPorId = new ConcurrentHashMap<>();
+        long maxActualizada = 0;
+        long despuesDeId = 0;
+        List<CredencialDTO> pagina;
+        do {
+            pagina = adminCredencialesClient.credenciales(null, despuesDeId, tamanoPagina).getCredenciales();
+            for (CredencialDTO credencial : pagina) {
+                nuevoPorId.put(credencial.getId(), credencial);
+                nuevoPorCorreo.put(credencial.getCorreoMatricula(), credencial);
+                despuesDeId = credencial.getId();
+                if (credencial.getActualizada() != null) {
+                    maxActualizada = Math.max(maxActualizada, credencial.getActualizada());
+                }
+            }
+        } while (pagina.size() >= tamanoPagina);
+        porCorreo = nuevoPorCorreo;
+        porId = nuevoPorId;
+        cursor = maxActualizada;
+        log.info("Proyección de credenciales cargada: {} cuentas", nuevoPorId.size());
+    }
+
+    private long aplicarCambios() {
+        long desde = Math.max(0, cursor - solapeMs);
+        long despuesDeId = 0;
+        int aplicados = 0;
+        CredencialesPaginaDTO pagina;
+        do {
+            pagina = adminCredencialesClient.credenciales(desde, despuesDeId, tamanoPagina);
+            if (pagina.getBorrados() != null) {
+                for (Long id : pagina.getBorrados()) {
+                    CredencialDTO anterior = porId.remove(id);
+                    if (anterior != null) {
+                        porCorreo.remove(anterior.getCorreoMatricula(), anterior);
+                        aplicados++;
+                    }
+                }
+            }
+            for (CredencialDTO credencial : pagina.getCredenciales()) {
+                CredencialDTO anterior = porId.put(credencial.getId(), credencial);
+                if (anterior != null && !anterior.getCorreoMatricula().equals(credencial.getCorreoMatricula())) {
+                    porCorreo.remove(anterior.getCorreoMatricula(), anterior);
+                }
+                porCorreo.put(credencial.getCorreoMatricula(), credencial);
+                desde = credencial.getActualizada();
+                despuesDeId = credencial.getId();
+                cursor = Math.max(cursor, desde);
+                aplicados++;
+            }
+        } while (pagina.getCredenciales().size() >= tamanoPagina);
+        log.debug("Proyección de credenciales: {} cambios aplicados", aplicados);
+        return pagina.getTotalUsuarios();
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.credenciales.ultimo-acceso-interval:60s}")
+    public void enviarAccesos() {
+        if (accesosPendientes.isEmpty()) {
+            return;
+        }
+        List<Long> lote = new ArrayList<>(accesosPendientes);
+        lote.forEach(accesosPendientes::remove);
+        try {
+            adminCredencialesClient.registrarAccesos(lote);
+        } catch (Exception e) {
+            // Se reintentan en el siguiente envío; ultimoAcceso es informativo
+            accesosPendientes.addAll(lote);
+            log.warn("No se pudo registrar ultimoAcceso de {} usuarios: {}", lote.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.uteq.auth.service;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Resultado de verificar un token una sola vez: los claims si es válido o el motivo del rechazo.
+ */
+public record ResultadoValidacionToken(Claims claims, Motivo motivo) {
+
+    public enum Motivo {
+        EXPIRADO,
+        FIRMA_INVALIDA,
+        MALFORMADO,
+        NO_SOPORTADO,
+        VACIO
+    }
+
+    public static ResultadoValidacionToken valido(Claims claims) {
+        return new ResultadoValidacionToken(claims, null);
+    }
+
+    public static ResultadoValidacionToken invalido(Motivo motivo) {
+        return new ResultadoValidacionToken(null, motivo);
+    }
+
+    public boolean esValido() {
+        return claims != null;
+    }
+
+    /** Claim "type" = "refresh": no sirve para autorizar peticiones. */
+    public boolean esRefresh() {
+        return claims != null && "refresh".equalsIgnoreCase(String.valueOf(claims.get("type")));
+    }
+}
@@ -1,39 +1,125 @@
 package com.uteq.auth.service.impl;
 
+import com.uteq.auth.client.AdminUsuarioClient;
 import com.uteq.auth.client.UsuarioClient;
 import com.uteq.auth.dto.AuthResponse;
 import com.uteq.auth.dto.LoginRequest;
+import com.uteq.auth.dto.TokenValidationBatchResponse;
 import com.uteq.auth.dto.TokenValidationResponse;
 import com.uteq.auth.dto.UsuarioDTO;
+import com.uteq.auth.security.RevocacionTokens;
 import com.uteq.auth.service.AuthService;
+import com.uteq.auth.service.CredencialesInvalidasException;
 import com.uteq.auth.service.JwtService;
+import com.uteq.auth.service.ProyeccionCredenciales;
+import com.uteq.auth.service.ResultadoValidacionToken;
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 import io.jsonwebtoken.Claims;
 
+import jakarta.annotation.PostConstruct;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AuthServiceImpl implements AuthService {
 
+    /** Errores de UsuarioServiceImpl.login en ms-admin que son credenciales incorrectas (no "Cuenta inactiva"). */
+    private static final List<String> MOTIVOS_CREDENCIALES = List.of("Usuario no encontrado", "Contraseña incorrecta");
+
     private final JwtService jwtService;
     private final UsuarioClient usuarioClient;
+    private final AdminUsuarioClient adminUsuarioClient;
+    private final ProyeccionCredenciales proyeccionCredenciales;
+    private final RevocacionTokens revocacionTokens;
+    private final ExecutorService validacionExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.jwt.refresh-expiration}")
+    private long refreshExpiration;
+
+    @Value("${app.auth.validate-batch.max-tokens:500}")
+    private int maxTokensLote;
+
+    // Validar un token cuesta microsegundos: se reparte por trozos para no pagar una tarea por token
+    @Value("${app.auth.validate-batch.chunk-size:32}")
+    private int tamanoTrozo;
+
+    // Tope de espera del lote completo; si el pool está saturado se responde 503 en vez de colgar la petición
+    @Value("${app.auth.validate-batch.timeout:5s}")
+    private Duration esperaMaximaLote;
+
+    // Logins que pueden estar a la vez esperando a ms-admin; por debajo de su pool para que el relleno
+    // de credenciales con cuentas inexistentes no lo agote
+    @Value("${app.auth.login.remote-max-concurrent:4}")
+    private int maxLoginsRemotos;
+
+    private Semaphore loginsRemotos;
+    private Counter rechazosRemotos;
+
+    @PostConstruct
+    void iniciarLoginsRemotos() {
+        if (maxLoginsRemotos < 1) {
+            throw new IllegalStateException("app.auth.login.remote-max-concurrent debe ser >= 1");
+        }
+        loginsRemotos = new Semaphore(maxLoginsRemotos);
+        rechazosRemotos = Counter.builder("auth.login.remoto.rechazos")
+                .description("Logins rechazados (503) con todos los permisos hacia ms-admin ocupados")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void validarConfiguracionLote() {
+        if (maxTokensLote < 1) {
+            throw new IllegalStateException("app.auth.validate-batch.max-tokens debe ser >= 1");
+        }
+        if (tamanoTrozo < 1) {
+            throw new IllegalStateException("app.auth.validate-batch.chunk-size debe ser >= 1");
+        }
+        if (esperaMaximaLote == null || esperaMaximaLote.isNegative() || esperaMaximaLote.isZero()) {
+            throw new IllegalStateException("app.auth.validate-batch.timeout debe ser positivo");
+        }
+    }
 
     @Override
     public AuthResponse autenticar(LoginRequest request) {
         try {
             log.info("Autenticando usuario: {}", request.getCorreoMatricula());
             
-            // Llamar a ms-admin para validar credenciales y obtener datos del usuario
-            UsuarioDTO usuario = usuarioClient.login(request.getCorreoMatricula(), request.getPassword());
+            // Primero la proyección local; si no puede decidir (desactualizada, cuenta ausente o aún en claro), ms-admin
+            UsuarioDTO usuario = proyeccionCredenciales.autenticar(request.getCorreoMatricula(), request.getPassword())
+                    .map(u -> contarLogin("local", u))
+                    .orElseGet(() -> contarLogin("remoto", loginRemoto(request)));
             
             if (usuario == null) {
                 throw new RuntimeException("Credenciales inválidas");
             }
 
             // Generar tokens con el rol real del usuario
-            String token = jwtService.generarToken(usuario.getId(), usuario.getCorreoMatricula(), usuario.getRolNombre());
+            String token = jwtService.generarToken(usuario);
             String refreshToken = jwtService.generarRefreshToken(usuario.getId());
 
             log.info("Token generado exitosamente para: {} con rol: {}", usuario.getCorreoMatricula(), usuario.getRolNombre());
@@ -47,6 +133,12 @@ public class AuthServiceImpl implements AuthService {
                     usuario.getRolNombre(),
                     usuario.getCorreoMatricula()
                 );
+        } catch (ResponseStatusException e) {
+            // 503 con el pool de BCrypt saturado: se devuelve tal cual para que el cliente reintente
+            throw e;
+        } catch (CredencialesInvalidasException e) {
+            log.info("Credenciales rechazadas para {}: {}", request.getCorreoMatricula(), e.getMessage());
+            throw new CredencialesInvalidasException("Error en autenticación: " + e.getMessage());
         } catch (Exception e) {
             log.error("Error en autenticación: {}", e.getMessage());
             throw new RuntimeException("Error en autenticación: " + e.getMessage());
@@ -56,33 +148,32 @@ public class AuthServiceImpl implements AuthService {
     @Override
     public TokenValidationResponse validarToken(String token) {
         try {
-            if (jwtService.validarToken(token)) {
-                Claims claims = jwtService.obtenerClaimsDelToken(token);
-                // Rechazar explícitamente tokens de refresh en /validate
-                Object typeClaim = claims.get("type");
-                if (typeClaim != null && "refresh".equalsIgnoreCase(String.valueOf(typeClaim))) {
-                    return TokenValidationResponse.builder()
-                            .valid(false)
-                            .mensaje("Refresh token no permitido para validación")
-                            .build();
-                }
-                Long usuarioId = Long.parseLong(claims.getSubject());
-                String correoMatricula = (String) claims.get("correoMatricula");
-                String rolNombre = (String) claims.get("rol");
-
+            // Una sola verificación: firma, expiración y claims salen del mismo parseo
+            ResultadoValidacionToken resultado = jwtService.verificarToken(token);
+            if (!resultado.esValido()) {
                 return TokenValidationResponse.builder()
-                        .valid(true)
-                        .usuarioId(usuarioId)
-                        .correoMatricula(correoMatricula)
-                        .rolNombre(rolNombre)
-                        .mensaje("Token válido")
+                        .valid(false)
+                        .mensaje("Token inválido o expirado")
                         .build();
-            } else {
+            }
+            // Rechazar explícitamente tokens de refresh en /validate
+            if (resultado.esRefresh()) {
                 return TokenValidationResponse.builder()
                         .valid(false)
-                        .mensaje("Token inválido o expirado")
+                        .mensaje("Refresh token no permitido para validación")
                         .build();
             }
+            Claims claims = resultado.claims();
+            return TokenValidationResponse.builder()
+                    .valid(true)
+                    .usuarioId(Long.parseLong(claims.getSubject()))
+                    .correoMatricula(claims.get("correoMatricula", String.class))
+                    .rolNombre(claims.get("rol", String.class))
+                    .divisionId(claimLong(claims, JwtServiceImpl.CLAIM_DIVISION))
+                    .programaId(claimLong(claims, JwtServiceImpl.CLAIM_PROGRAMA))
+                    .versionPerfil(claimLong(claims, JwtServiceImpl.CLAIM_VERSION_PERFIL))
+                    .mensaje("Token válido")
+                    .build();
         } catch (Exception e) {
             log.error("Error validando token: {}", e.getMessage());
             return TokenValidationResponse.builder()
@@ -92,27 +183,139 @@ public class AuthServiceImpl implements AuthService {
         }
     }
 
+    @Override
+    public TokenValidationBatchResponse validarTokens(List<String> tokens) {
+        if (tokens == null || tokens.isEmpty() || tokens.size() > maxTokensLote) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "El lote debe tener entre 1 y " + maxTokensLote + " tokens");
+        }
+        if (tokens.stream().anyMatch(t -> t == null || t.isBlank())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El lote contiene tokens vacíos");
+        }
+        long inicio = System.nanoTime();
+
+        List<CompletableFuture<List<TokenValidationResponse>>> trozos = new ArrayList<>();
+        for (int desde = 0; desde < tokens.size(); desde += tamanoTrozo) {
+            List<String> trozo = tokens.subList(desde, Math.min(desde + tamanoTrozo, tokens.size()));
+            trozos.add(CompletableFuture.supplyAsync(() -> trozo.stream().map(this::validarToken).toList(), validacionExecutor));
+        }
+        esperarTrozos(trozos);
+        List<TokenValidationResponse> resultados = new ArrayList<>(tokens.size());
+        trozos.forEach(trozo -> resultados.addAll(trozo.join()));
+
+        long duracionNanos = System.nanoTime() - inicio;
+        Timer.builder("auth.validate.batch")
+                .description("Duración de POST /api/auth/validate/batch")
+                .register(meterRegistry)
+                .record(duracionNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("auth.validate.batch.size")
+                .register(meterRegistry)
+                .record(tokens.size());
+
+        int validos = (int) resultados.stream().filter(r -> Boolean.TRUE.equals(r.getValid())).count();
+        log.debug("Lote de {} tokens validado en {} ms ({} válidos)", tokens.size(), duracionNanos / 1_000_000, validos);
+        return TokenValidationBatchResponse.builder()
+                .resultados(resultados)
+                .total(tokens.size())
+                .validos(validos)
+                .duracionMs(duracionNanos / 1_000_000)
+                .build();
+    }
+
+    private UsuarioDTO loginRemoto(LoginRequest request) {
+        if (!loginsRemotos.tryAcquire()) {
+            rechazosRemotos.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Demasiados inicios de sesión simultáneos, reintente");
+        }
+        try {
+            return usuarioClient.login(request.getCorreoMatricula(), request.getPassword());
+        } catch (FeignException.BadRequest e) {
+            // ms-admin responde 400 {"error": "..."}; sólo estos dos mensajes son credenciales incorrectas
+            String cuerpo = e.contentUTF8();
+            for (String motivo : MOTIVOS_CREDENCIALES) {
+                if (cuerpo != null && cuerpo.contains("\"" + motivo + "\"")) {
+                    throw new CredencialesInvalidasException(motivo);
+                }
+            }
+            throw e;
+        } finally {
+            loginsRemotos.release();
+        }
+    }
+
+    private UsuarioDTO contarLogin(String origen, UsuarioDTO usuario) {
+        Counter.builder("auth.login.origen")
+                .description("Logins resueltos con la proyección local o con ms-admin")
+                .tag("origen", origen)
+                .register(meterRegistry)
+                .increment();
+        return usuario;
+    }
+
+    private void esperarTrozos(List<CompletableFuture<List<TokenValidationResponse>>> trozos) {
+        CompletableFuture<Void> todos = CompletableFuture.allOf(trozos.toArray(CompletableFuture[]::new));
+        try {
+            todos.get(esperaMaximaLote.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            trozos.forEach(trozo -> trozo.cancel(true));
+            log.warn("Lote de validación sin terminar tras {} ms", esperaMaximaLote.toMillis());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Validación del lote excedió el tiempo máximo");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            trozos.forEach(trozo -> trozo.cancel(true));
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Validación del lote interrumpida");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error validando el lote", e.getCause());
+        }
+    }
+
     @Override
     public AuthResponse refrescarToken(String refreshToken) {
         try {
-            if (!jwtService.validarToken(refreshToken)) {
+            ResultadoValidacionToken resultado = jwtService.verificarToken(refreshToken);
+            if (!resultado.esValido() || !resultado.esRefresh()) {
                 throw new RuntimeException("Refresh token inválido");
             }
+            Claims claims = resultado.claims();
+            String jti = idRefresh(claims, refreshToken);
+            String familia = familiaRefresh(claims, jti);
+            if (revocacionTokens.estaRevocado(claveFamilia(familia))) {
+                throw new RuntimeException("Refresh token revocado");
+            }
+            if (revocacionTokens.estaRevocado(jti)) {
+                revocarFamilia(familia);
+                log.warn("Refresh token reutilizado para usuario {}: familia revocada", claims.getSubject());
+                throw new RuntimeException("Refresh token ya utilizado");
+            }
+
+            // El refresh token sólo lleva el id: rol y perfil se vuelven a leer de ms-admin, así un
+            // cambio de asignación (versión de perfil nueva) queda reflejado en el access token nuevo
+            Long usuarioId = Long.parseLong(claims.getSubject());
+            UsuarioDTO usuario = adminUsuarioClient.obtenerUsuario(usuarioId);
+            if (usuario == null || Boolean.FALSE.equals(usuario.getActivo())) {
+                throw new RuntimeException("Usuario no disponible");
+            }
 
-            String usuarioId = jwtService.obtenerIdDelToken(refreshToken);
-            String correoMatricula = jwtService.obtenerCorreoDelToken(refreshToken);
-            String rolNombre = jwtService.obtenerRolDelToken(refreshToken);
+            // Un solo uso (atómico aunque lleguen dos peticiones a la vez): si el jti ya estaba consumido alguien
+            // reutiliza un token rotado (posible robo); se revoca la familia entera y el titular vuelve a entrar
+            if (!revocacionTokens.revocar(jti, claims.getExpiration().getTime() / 1000)) {
+                revocarFamilia(familia);
+                log.warn("Refresh token reutilizado para usuario {}: familia revocada", usuarioId);
+                throw new RuntimeException("Refresh token ya utilizado");
+            }
+            String correoMatricula = usuario.getCorreoMatricula();
+            String rolNombre = usuario.getRolNombre();
 
-            String nuevoToken = jwtService.generarToken(Long.parseLong(usuarioId), correoMatricula, rolNombre);
-            String nuevoRefreshToken = jwtService.generarRefreshToken(Long.parseLong(usuarioId));
+            String nuevoToken = jwtService.generarToken(usuario);
+            String nuevoRefreshToken = jwtService.generarRefreshToken(usuarioId, familia);
 
                 return AuthResponse.builder()
                     .token(nuevoToken)
                     .refreshToken(nuevoRefreshToken)
                     .type("Bearer")
-                    .usuarioId(Long.parseLong(usuarioId))
-                    .nombre(correoMatricula)
-                    .apellido(null)
+                    .usuarioId(usuarioId)
+                    .nombre(usuario.getNombre())
+                    .apellido(usuario.getApellido())
                     .rolNombre(rolNombre)
                     .correoMatricula(correoMatricula)
                     .expiresIn(86400L)
@@ -122,4 +325,46 @@ public class AuthServiceImpl implements AuthService {
             throw new RuntimeException("Error refrescando token: " + e.getMessage());
         }
     }
+
+    @Override
+    public void cerrarSesion(String refreshToken) {
+        ResultadoValidacionToken resultado = jwtService.verificarToken(refreshToken);
+        if (!resultado.esValido() || !resultado.esRefresh()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh token inválido");
+        }
+        revocarFamilia(familiaRefresh(resultado.claims(), idRefresh(resultado.claims(), refreshToken)));
+    }
+
+    // Cualquier token de la familia vence antes de ahora + refresh-expiration
+    private void revocarFamilia(String familia) {
+        revocacionTokens.revocar(claveFamilia(familia), (System.currentTimeMillis() + refreshExpiration) / 1000);
+    }
+
+    /** jti del refresh token; los emitidos antes de la rotación no lo llevan y se identifican por su SHA-256. */
+    private static String idRefresh(Claims claims, String token) {
+        if (claims.getId() != null) {
+            return claims.getId();
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return "sha256:" + HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String familiaRefresh(Claims claims, String jti) {
+        Object familia = claims.get(JwtServiceImpl.CLAIM_FAMILIA);
+        return familia != null ? familia.toString() : jti;
+    }
+
+    // Con prefijo propio: la familia se llama como el jti de su primer token y no deben pisarse en el conjunto
+    private static String claveFamilia(String familia) {
+        return "fam:" + familia;
+    }
+
+    private static Long claimLong(Claims claims, String nombre) {
+        Object valor = claims.get(nombre);
+        return valor instanceof Number numero ? numero.longValue() : null;
+    }
 }
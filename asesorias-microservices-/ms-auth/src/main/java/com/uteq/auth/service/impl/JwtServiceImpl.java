@@ -1,33 +1,96 @@
 package com.uteq.auth.service.impl;
 
+import com.uteq.auth.dto.UsuarioDTO;
+import com.uteq.auth.security.ClavesFirma;
 import com.uteq.auth.service.JwtService;
+import com.uteq.auth.service.ResultadoValidacionToken;
+import com.uteq.auth.service.ResultadoValidacionToken.Motivo;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import javax.crypto.SecretKey;
+import java.security.Key;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @Slf4j
 public class JwtServiceImpl implements JwtService {
 
-    @Value("${app.jwt.secret}")
-    private String jwtSecret;
+    /** Claims de perfil: asignación académica resuelta en el login y su versión en ms-admin. */
+    public static final String CLAIM_DIVISION = "divisionId";
+    public static final String CLAIM_PROGRAMA = "programaId";
+    public static final String CLAIM_VERSION_PERFIL = "pv";
+    /** Refresh tokens: familia de rotación, el jti del primero emitido en el login. */
+    public static final String CLAIM_FAMILIA = "fam";
 
-    @Value("${app.jwt.expiration}")
-    private long jwtExpiration;
+    private final long jwtExpiration;
+    private final long refreshExpiration;
+    private final long muestreoLog;
+    private final boolean claimsPerfil;
 
-    @Value("${app.jwt.refresh-expiration}")
-    private long refreshExpiration;
+    // Clave y parser se construyen una vez: el parser de jjwt es inmutable y thread-safe
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    /** RS256 + kid si app.jwt.algorithm=RS256; si no, HS512 con el secreto compartido. */
+    private final ClavesFirma clavesFirma;
+    /** Con RS256, aceptar también los HS512 ya emitidos (sólo durante la migración); sin RS256 es el único algoritmo. */
+    private final boolean aceptarHs512;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    /** Tokens rechazados por motivo; sólo se registra en debug el primero y uno de cada muestreoLog. */
+    private final Map<Motivo, AtomicLong> rechazos = new EnumMap<>(Motivo.class);
+
+    public JwtServiceImpl(@Value("${app.jwt.secret}") String jwtSecret,
+                          @Value("${app.jwt.expiration}") long jwtExpiration,
+                          @Value("${app.jwt.refresh-expiration}") long refreshExpiration,
+                          @Value("${app.jwt.invalid-log-sample:100}") long muestreoLog,
+                          @Value("${app.jwt.accept-hs512:false}") boolean aceptarHs512,
+                          @Value("${app.jwt.profile-claims.enabled:true}") boolean claimsPerfil,
+                          ClavesFirma clavesFirma) {
+        this.jwtExpiration = jwtExpiration;
+        this.refreshExpiration = refreshExpiration;
+        this.muestreoLog = Math.max(1, muestreoLog);
+        this.claimsPerfil = claimsPerfil;
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.clavesFirma = clavesFirma;
+        this.aceptarHs512 = aceptarHs512 || !clavesFirma.isHabilitado();
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return claveVerificacion(header);
+                    }
+                })
+                .build();
+        for (Motivo motivo : Motivo.values()) {
+            rechazos.put(motivo, new AtomicLong());
+        }
     }
 
     @Override
     public String generarToken(Long usuarioId, String correoMatricula, String rolNombre) {
+        return firmar(accessToken(usuarioId, correoMatricula, rolNombre));
+    }
+
+    @Override
+    public String generarToken(UsuarioDTO usuario) {
+        JwtBuilder builder = accessToken(usuario.getId(), usuario.getCorreoMatricula(), usuario.getRolNombre());
+        // Sin perfil asignado no se añade nada: los servicios vuelven a consultar a ms-admin
+        if (claimsPerfil && usuario.getProgramaId() != null) {
+            builder.claim(CLAIM_DIVISION, usuario.getDivisionId())
+                    .claim(CLAIM_PROGRAMA, usuario.getProgramaId())
+                    .claim(CLAIM_VERSION_PERFIL, usuario.getVersionPerfil() != null ? usuario.getVersionPerfil() : 0L);
+        }
+        return firmar(builder);
+    }
+
+    private JwtBuilder accessToken(Long usuarioId, String correoMatricula, String rolNombre) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
 
@@ -36,23 +99,56 @@ public class JwtServiceImpl implements JwtService {
                 .claim("correoMatricula", correoMatricula)
                 .claim("rol", rolNombre)
                 .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
-                .compact();
+                .setExpiration(expiryDate);
     }
 
     @Override
     public String generarRefreshToken(Long usuarioId) {
+        return generarRefreshToken(usuarioId, null);
+    }
+
+    @Override
+    public String generarRefreshToken(Long usuarioId, String familia) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + refreshExpiration);
+        String jti = UUID.randomUUID().toString();
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(usuarioId.toString())
+                .setId(jti)
+                .claim(CLAIM_FAMILIA, familia != null ? familia : jti)
                 .claim("type", "refresh")
                 .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
-                .compact();
+                .setExpiration(expiryDate);
+        return firmar(builder);
+    }
+
+    private String firmar(JwtBuilder builder) {
+        if (clavesFirma.isHabilitado()) {
+            return builder.setHeaderParam(JwsHeader.KEY_ID, clavesFirma.getKidActivo())
+                    .signWith(clavesFirma.getPrivadaActiva(), SignatureAlgorithm.RS256)
+                    .compact();
+        }
+        return builder.signWith(signingKey, SignatureAlgorithm.HS512).compact();
+    }
+
+    /**
+     * La clave sale del algoritmo y el kid de la cabecera, nunca de lo que pida el token:
+     * HS512 sólo con el secreto (si se acepta), RS256 sólo con una clave pública publicada.
+     */
+    private Key claveVerificacion(JwsHeader<?> header) {
+        String algoritmo = header.getAlgorithm();
+        if (SignatureAlgorithm.HS512.getValue().equals(algoritmo) && aceptarHs512) {
+            return signingKey;
+        }
+        if (SignatureAlgorithm.RS256.getValue().equals(algoritmo) && clavesFirma.isHabilitado()) {
+            Key clave = clavesFirma.clavePublica(header.getKeyId());
+            if (clave == null) {
+                throw new io.jsonwebtoken.security.SignatureException("kid desconocido: " + header.getKeyId());
+            }
+            return clave;
+        }
+        throw new UnsupportedJwtException("Algoritmo no aceptado: " + algoritmo);
     }
 
     @Override
@@ -72,41 +168,43 @@ public class JwtServiceImpl implements JwtService {
 
     @Override
     public Claims obtenerClaimsDelToken(String token) {
-        try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-        } catch (JwtException | IllegalArgumentException e) {
-            log.error("Error al extraer claims del JWT: {}", e.getMessage());
+        ResultadoValidacionToken resultado = verificarToken(token);
+        if (!resultado.esValido()) {
             throw new RuntimeException("Token JWT inválido");
         }
+        return resultado.claims();
     }
 
     @Override
     public Boolean validarToken(String token) {
+        return verificarToken(token).esValido();
+    }
+
+    @Override
+    public ResultadoValidacionToken verificarToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
+            return ResultadoValidacionToken.valido(parser.parseClaimsJws(token).getBody());
         } catch (ExpiredJwtException e) {
-            log.error("Token expirado: {}", e.getMessage());
-            return false;
+            return rechazar(Motivo.EXPIRADO, e);
         } catch (UnsupportedJwtException e) {
-            log.error("Token JWT no soportado: {}", e.getMessage());
-            return false;
+            return rechazar(Motivo.NO_SOPORTADO, e);
         } catch (MalformedJwtException e) {
-            log.error("Token JWT malformado: {}", e.getMessage());
-            return false;
-        } catch (SignatureException e) {
-            log.error("Firma de JWT inválida: {}", e.getMessage());
-            return false;
+            return rechazar(Motivo.MALFORMADO, e);
+        } catch (SecurityException e) {
+            return rechazar(Motivo.FIRMA_INVALIDA, e);
         } catch (IllegalArgumentException e) {
-            log.error("Token JWT vacío: {}", e.getMessage());
-            return false;
+            return rechazar(Motivo.VACIO, e);
+        } catch (JwtException e) {
+            return rechazar(Motivo.MALFORMADO, e);
+        }
+    }
+
+    /** Un token inválido es una situación normal (caducados, clientes viejos): no es un ERROR del servicio. */
+    private ResultadoValidacionToken rechazar(Motivo motivo, Exception e) {
+        long n = rechazos.get(motivo).incrementAndGet();
+        if (log.isDebugEnabled() && (n == 1 || n % muestreoLog == 0)) {
+            log.debug("Token JWT rechazado ({}, {} en total): {}", motivo, n, e.getMessage());
         }
+        return ResultadoValidacionToken.invalido(motivo);
     }
 }
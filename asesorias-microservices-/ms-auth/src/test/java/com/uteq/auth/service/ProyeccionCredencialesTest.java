@@ -0,0 +1,136 @@
+package com.uteq.auth.service;
+
+import com.uteq.auth.client.AdminCredencialesClient;
+import com.uteq.auth.dto.CredencialDTO;
+import com.uteq.auth.dto.CredencialesPaginaDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pull incremental de ProyeccionCredenciales contra un ms-admin simulado en memoria: un borrado y un alta
+ * en el mismo intervalo llegan por las lápidas, sin depender de comparar totales ni recargar entera.
+ */
+class ProyeccionCredencialesTest {
+
+    private static final PasswordEncoder ENCODER = new BCryptPasswordEncoder(4);
+    private static final String HASH = ENCODER.encode("secreta");
+
+    private final AdminSimulado admin = new AdminSimulado();
+    private final ThreadPoolExecutor hashExecutor =
+            new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+    // Página de 1 para que los cambios lleguen en varias peticiones
+    private final ProyeccionCredenciales proyeccion = new ProyeccionCredenciales(admin, ENCODER, hashExecutor,
+            new SimpleMeterRegistry(), Duration.ofSeconds(5), true, Duration.ofMinutes(2), Duration.ofSeconds(5), 1);
+
+    @AfterEach
+    void cerrar() {
+        hashExecutor.shutdownNow();
+    }
+
+    @Test
+    void borradoYAltaEnElMismoIntervaloQuitaLaCuentaBorrada() {
+        admin.guardar(1L, "ana@uteq.edu", 1_000);
+        admin.guardar(2L, "beto@uteq.edu", 1_000);
+        proyeccion.sincronizar();
+        assertThat(proyeccion.autenticar("ana@uteq.edu", "secreta")).isPresent();
+
+        admin.eliminar(1L, 2_000);
+        admin.guardar(3L, "carla@uteq.edu", 2_000);
+        proyeccion.sincronizar();
+
+        // Vacío: ya no se decide localmente y el login va a ms-admin, que la rechaza
+        assertThat(proyeccion.autenticar("ana@uteq.edu", "secreta")).isEmpty();
+        assertThat(proyeccion.autenticar("beto@uteq.edu", "secreta")).isPresent();
+        assertThat(proyeccion.autenticar("carla@uteq.edu", "secreta")).isPresent();
+        assertThat(admin.cargasCompletas).isEqualTo(1);
+    }
+
+    @Test
+    void altaConfirmadaTrasLeerLosCambiosNoEscondeElBorrado() {
+        admin.guardar(1L, "ana@uteq.edu", 1_000);
+        admin.guardar(2L, "beto@uteq.edu", 1_000);
+        proyeccion.sincronizar();
+
+        // El alta se confirma entre la última consulta de cambios y el recuento: los totales cuadran (2 y 2)
+        admin.eliminar(1L, 2_000);
+        admin.altaTrasLeerCambios = () -> admin.guardar(3L, "carla@uteq.edu", 2_000);
+        proyeccion.sincronizar();
+
+        assertThat(proyeccion.autenticar("ana@uteq.edu", "secreta")).isEmpty();
+    }
+
+    @Test
+    void correoReutilizadoPorOtraCuentaNoSeQuitaConLaLapidaDeLaAnterior() {
+        admin.guardar(1L, "ana@uteq.edu", 1_000);
+        proyeccion.sincronizar();
+
+        admin.eliminar(1L, 2_000);
+        admin.guardar(2L, "ana@uteq.edu", 2_000);
+        proyeccion.sincronizar();
+
+        assertThat(proyeccion.autenticar("ana@uteq.edu", "secreta"))
+                .hasValueSatisfying(usuario -> assertThat(usuario.getId()).isEqualTo(2L));
+    }
+
+    /** Mismas consultas que CredencialesService de ms-admin, sobre mapas. */
+    private static class AdminSimulado implements AdminCredencialesClient {
+
+        private final Map<Long, CredencialDTO> usuarios = new TreeMap<>();
+        private final Map<Long, Long> lapidas = new TreeMap<>();
+        private int cargasCompletas;
+        private Runnable altaTrasLeerCambios;
+
+        void guardar(Long id, String correo, long actualizada) {
+            usuarios.put(id, CredencialDTO.builder().id(id).correoMatricula(correo).passwordHash(HASH)
+                    .activo(true).rolNombre("ALUMNO").actualizada(actualizada).build());
+        }
+
+        void eliminar(Long id, long instante) {
+            usuarios.remove(id);
+            lapidas.put(id, instante);
+        }
+
+        @Override
+        public CredencialesPaginaDTO credenciales(Long desde, Long despuesDeId, int limit) {
+            if (desde == null && despuesDeId == 0) {
+                cargasCompletas++;
+            }
+            List<CredencialDTO> pagina = desde == null
+                    ? usuarios.values().stream().filter(c -> c.getId() > despuesDeId).limit(limit).toList()
+                    : usuarios.values().stream()
+                    .filter(c -> c.getActualizada() > desde || (c.getActualizada() == desde && c.getId() > despuesDeId))
+                    .sorted(Comparator.comparing(CredencialDTO::getActualizada).thenComparing(CredencialDTO::getId))
+                    .limit(limit)
+                    .toList();
+            List<Long> borrados = desde == null ? List.of() : lapidas.entrySet().stream()
+                    .filter(e -> e.getValue() >= desde)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            if (desde != null && pagina.size() < limit && altaTrasLeerCambios != null) {
+                altaTrasLeerCambios.run();
+                altaTrasLeerCambios = null;
+            }
+            return new CredencialesPaginaDTO(pagina, borrados, usuarios.size());
+        }
+
+        @Override
+        public Integer registrarAccesos(Collection<Long> ids) {
+            return ids.size();
+        }
+    }
+}
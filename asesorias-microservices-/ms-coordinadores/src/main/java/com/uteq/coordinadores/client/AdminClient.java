@@ -8,10 +8,10 @@ import java.util.Map;
 @FeignClient(name = "ms-admin", contextId = "adminClient")
 public interface AdminClient {
 
-    @GetMapping("/api/admin/perfiles/profesor")
+    @GetMapping("/api/admin/perfiles/profesor?completo=true")
     List<Map<String, Object>> listarProfesores();
 
-    @GetMapping("/api/admin/perfiles/alumno")
+    @GetMapping("/api/admin/perfiles/alumno?completo=true")
     List<Map<String, Object>> listarAlumnos();
 
     @PostMapping("/api/admin/perfiles/profesor")
@@ -0,0 +1,221 @@
+package com.uteq.coordinadores.config;
+
+import com.uteq.coordinadores.client.JwksClient;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Verificación local de tokens RS256 de ms-auth con su JWKS (app.jwt.jwks.enabled=true).
+ * Si la petición trae Authorization: Bearer, el token se verifica aquí (401 si no es válido) y
+ * X-User-Id/Email/Role (y las de perfil, X-User-Programa-Id...) pasan a salir de sus claims en lugar de
+ * las cabeceras recibidas.
+ * Las claves se cachean: recarga cada refresh-interval y, ante un kid desconocido, como mucho una
+ * recarga forzada cada min-refresh-interval.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "app.jwt.jwks.enabled", havingValue = "true")
+@Slf4j
+public class JwksTokenFilter extends OncePerRequestFilter {
+
+    private final JwksClient jwksClient;
+    private final long refrescoNanos;
+    private final long intervaloMinimoNanos;
+    private final JwtParser parser;
+    private final ReentrantLock recarga = new ReentrantLock();
+
+    private volatile Map<String, PublicKey> claves = Map.of();
+    private volatile long cargadoEn;
+
+    public JwksTokenFilter(JwksClient jwksClient,
+                           @Value("${app.jwt.jwks.refresh-interval:5m}") Duration refresco,
+                           @Value("${app.jwt.jwks.min-refresh-interval:30s}") Duration intervaloMinimo) {
+        this.jwksClient = jwksClient;
+        this.refrescoNanos = refresco.toNanos();
+        this.intervaloMinimoNanos = intervaloMinimo.toNanos();
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        if (!SignatureAlgorithm.RS256.getValue().equals(header.getAlgorithm())) {
+                            throw new io.jsonwebtoken.UnsupportedJwtException("Sólo se aceptan tokens RS256");
+                        }
+                        PublicKey clave = clave(header.getKeyId());
+                        if (clave == null) {
+                            throw new io.jsonwebtoken.security.SignatureException("kid desconocido: " + header.getKeyId());
+                        }
+                        return clave;
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String authorization = request.getHeader("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Claims claims;
+        try {
+            claims = parser.parseClaimsJws(authorization.substring(7).trim()).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Token rechazado: {}", e.getMessage());
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token inválido o expirado");
+            return;
+        } catch (RuntimeException e) {
+            log.warn("No se pudo obtener el JWKS de ms-auth: {}", e.getMessage());
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "No se pudo verificar el token");
+            return;
+        }
+        if ("refresh".equalsIgnoreCase(String.valueOf(claims.get("type")))) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token inválido o expirado");
+            return;
+        }
+        Map<String, String> identidad = new HashMap<>();
+        identidad.put("x-user-id", claims.getSubject());
+        identidad.put("x-user-email", (String) claims.get("correoMatricula"));
+        identidad.put("x-user-role", (String) claims.get("rol"));
+        // Claims de perfil: sin ellos las cabeceras se quitan para que no puedan llegar del cliente
+        Object programa = claims.get("programaId");
+        identidad.put("x-user-division-id", texto(claims.get("divisionId")));
+        identidad.put("x-user-programa-id", texto(programa));
+        identidad.put("x-user-perfil-version", programa != null ? texto(claims.get("pv")) : null);
+        chain.doFilter(new IdentidadRequest(request, identidad), response);
+    }
+
+    private static String texto(Object valor) {
+        return valor != null ? String.valueOf(valor) : null;
+    }
+
+    /** La clave del kid; recarga el JWKS si está vencido o si el kid no se conoce todavía. */
+    private PublicKey clave(String kid) {
+        if (kid == null) {
+            return null;
+        }
+        PublicKey clave = claves.get(kid);
+        long edad = System.nanoTime() - cargadoEn;
+        if (clave != null) {
+            // Vencido: recarga un solo hilo; el resto sigue con las claves que hay
+            if (edad > refrescoNanos && recarga.tryLock()) {
+                try {
+                    recargar();
+                } catch (RuntimeException e) {
+                    log.warn("No se pudo refrescar el JWKS: {}", e.getMessage());
+                } finally {
+                    recarga.unlock();
+                }
+            }
+            return clave;
+        }
+        recarga.lock();
+        try {
+            if (!claves.containsKey(kid) && (cargadoEn == 0 || System.nanoTime() - cargadoEn >= intervaloMinimoNanos)) {
+                recargar();
+            }
+            return claves.get(kid);
+        } finally {
+            recarga.unlock();
+        }
+    }
+
+    private void recargar() {
+        Map<String, PublicKey> leidas = new HashMap<>();
+        Object lista = jwksClient.obtenerJwks().get("keys");
+        if (lista instanceof List<?> jwks) {
+            for (Object elemento : jwks) {
+                if (elemento instanceof Map<?, ?> jwk && "RSA".equals(jwk.get("kty")) && jwk.get("kid") != null) {
+                    try {
+                        leidas.put(String.valueOf(jwk.get("kid")), publica(jwk));
+                    } catch (GeneralSecurityException | RuntimeException e) {
+                        log.warn("JWK {} ignorada: {}", jwk.get("kid"), e.getMessage());
+                    }
+                }
+            }
+        }
+        claves = Map.copyOf(leidas);
+        cargadoEn = System.nanoTime();
+        log.debug("JWKS cargado: {}", leidas.keySet());
+    }
+
+    private static PublicKey publica(Map<?, ?> jwk) throws GeneralSecurityException {
+        Base64.Decoder base64url = Base64.getUrlDecoder();
+        BigInteger modulo = new BigInteger(1, base64url.decode(String.valueOf(jwk.get("n"))));
+        BigInteger exponente = new BigInteger(1, base64url.decode(String.valueOf(jwk.get("e"))));
+        return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(modulo, exponente));
+    }
+
+    /** Sustituye las cabeceras de identidad por las del token verificado. */
+    private static class IdentidadRequest extends HttpServletRequestWrapper {
+
+        private final Map<String, String> identidad;
+
+        IdentidadRequest(HttpServletRequest request, Map<String, String> identidad) {
+            super(request);
+            this.identidad = identidad;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            String clave = name.toLowerCase();
+            return identidad.containsKey(clave) ? identidad.get(clave) : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            String clave = name.toLowerCase();
+            if (!identidad.containsKey(clave)) {
+                return super.getHeaders(name);
+            }
+            String valor = identidad.get(clave);
+            return Collections.enumeration(valor != null ? List.of(valor) : List.of());
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> nombres = Collections.list(super.getHeaderNames());
+            nombres.removeIf(nombre -> identidad.containsKey(nombre.toLowerCase()));
+            identidad.forEach((nombre, valor) -> {
+                if (valor != null) {
+                    nombres.add(nombre);
+                }
+            });
+            return Collections.enumeration(nombres);
+        }
+    }
+}
@@ -16,6 +16,6 @@ public interface AdminClient {
   @GetMapping("/api/admin/roles")
   List<Map<String,Object>> roles();
 
-  @GetMapping("/api/admin/usuarios/rol/{rolId}")
+  @GetMapping("/api/admin/usuarios/rol/{rolId}?completo=true")
   List<Map<String,Object>> usuariosPorRol(@PathVariable("rolId") Long rolId);
 }
@@ -12,6 +12,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/profesores")
@@ -29,8 +30,12 @@ public class ProfesorController {
         return profesorService.crear(p);
     }
 
+    // usuarioIds=1,2,3: sólo los de esos usuarios (carga por lote desde el gateway)
     @GetMapping
-    public List<?> listar() {
+    public List<?> listar(@RequestParam(required = false) Set<Long> usuarioIds) {
+        if (usuarioIds != null) {
+            return profesorService.listarPorUsuarios(usuarioIds);
+        }
         return profesorService.listar();
     }
 
@@ -3,11 +3,13 @@ package com.uteq.profesores.service;
 import com.uteq.profesores.dto.ProfesorDTO;
 import com.uteq.profesores.entity.Profesor;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ProfesorService {
     Profesor crear(Profesor p);
     List<ProfesorDTO> listar();
+    List<ProfesorDTO> listarPorUsuarios(Collection<Long> usuarioIds);
     Profesor obtener(Long id);
     Profesor obtenerPorUsuario(Long usuarioId);
     Profesor actualizar(Long id, Profesor p);
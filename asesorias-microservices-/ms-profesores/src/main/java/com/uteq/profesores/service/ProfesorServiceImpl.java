@@ -7,6 +7,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -29,6 +30,16 @@ public class ProfesorServiceImpl implements ProfesorService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<ProfesorDTO> listarPorUsuarios(Collection<Long> usuarioIds) {
+        if (usuarioIds.isEmpty()) {
+            return List.of();
+        }
+        return profesorRepo.findByUsuarioIdIn(usuarioIds).stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public Profesor obtener(Long id) {
         return profesorRepo.findById(id)
@@ -0,0 +1,28 @@
+package com.uteq.replay;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Una línea del fichero de captura del api-gateway (TrafficCaptureFilter).
+ * user es el seudónimo del usuario autenticado (null en peticiones anónimas o capturas antiguas).
+ * status y durationMs son los observados al capturar; sirven para comparar con la reproducción.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record EventoCapturado(long ts,
+                              String route,
+                              String method,
+                              String path,
+                              String template,
+                              String query,
+                              String role,
+                              String user,
+                              JsonNode body,
+                              int status,
+                              long durationMs) {
+
+    /** Clave de agrupación del informe. */
+    public String endpoint() {
+        return (route != null ? route : "-") + " " + method + " " + (template != null ? template : path);
+    }
+}
@@ -0,0 +1,104 @@
+package com.uteq.replay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latencias de la reproducción agrupadas por route id + método + plantilla de ruta.
+ * Percentiles exactos (se guardan todas las muestras: una captura cabe holgadamente en memoria).
+ */
+public class InformeLatencias {
+
+    private final Map<String, Grupo> grupos = new TreeMap<>();
+
+    public synchronized void registrar(EventoCapturado evento, int status, long latenciaMicros) {
+        Grupo grupo = grupos.computeIfAbsent(evento.endpoint(), k -> new Grupo());
+        grupo.latencias.add(latenciaMicros);
+        grupo.originales.add(evento.durationMs() * 1000);
+        if (status == 0 || status >= 500) {
+            grupo.errores++;
+        } else if (status >= 400) {
+            grupo.rechazos++;
+        }
+    }
+
+    public synchronized void imprimir(PrintStream salida) {
+        salida.printf("%-60s %7s %6s %6s %9s %9s %9s %9s %11s%n",
+                "endpoint", "n", "4xx", "5xx", "p50 ms", "p90 ms", "p99 ms", "max ms", "p50 orig ms");
+        Grupo total = new Grupo();
+        grupos.forEach((endpoint, grupo) -> {
+            linea(salida, endpoint, grupo);
+            total.latencias.addAll(grupo.latencias);
+            total.originales.addAll(grupo.originales);
+            total.rechazos += grupo.rechazos;
+            total.errores += grupo.errores;
+        });
+        linea(salida, "TOTAL", total);
+    }
+
+    private static void linea(PrintStream salida, String endpoint, Grupo grupo) {
+        long[] ordenadas = grupo.ordenadas();
+        long[] originales = ordenar(grupo.originales);
+        salida.printf("%-60s %7d %6d %6d %9.1f %9.1f %9.1f %9.1f %11.1f%n",
+                endpoint.length() > 60 ? endpoint.substring(0, 57) + "..." : endpoint,
+                ordenadas.length, grupo.rechazos, grupo.errores,
+                ms(percentil(ordenadas, 50)), ms(percentil(ordenadas, 90)), ms(percentil(ordenadas, 99)),
+                ms(percentil(ordenadas, 100)), ms(percentil(originales, 50)));
+    }
+
+    public synchronized ArrayNode aJson(ObjectMapper mapper) {
+        ArrayNode array = mapper.createArrayNode();
+        grupos.forEach((endpoint, grupo) -> {
+            long[] ordenadas = grupo.ordenadas();
+            ObjectNode nodo = array.addObject();
+            nodo.put("endpoint", endpoint);
+            nodo.put("count", ordenadas.length);
+            nodo.put("status4xx", grupo.rechazos);
+            nodo.put("errors", grupo.errores);
+            nodo.put("p50Ms", ms(percentil(ordenadas, 50)));
+            nodo.put("p90Ms", ms(percentil(ordenadas, 90)));
+            nodo.put("p99Ms", ms(percentil(ordenadas, 99)));
+            nodo.put("maxMs", ms(percentil(ordenadas, 100)));
+            nodo.put("capturedP50Ms", ms(percentil(ordenar(grupo.originales), 50)));
+        });
+        return array;
+    }
+
+    /** Nearest-rank. */
+    static long percentil(long[] ordenadas, int p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int rango = (int) Math.ceil(p / 100.0 * ordenadas.length);
+        return ordenadas[Math.max(0, Math.min(ordenadas.length - 1, rango - 1))];
+    }
+
+    private static long[] ordenar(List<Long> valores) {
+        long[] array = valores.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(array);
+        return array;
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static class Grupo {
+        final List<Long> latencias = new ArrayList<>();
+        final List<Long> originales = new ArrayList<>();
+        int rechazos;
+        int errores;
+
+        long[] ordenadas() {
+            return ordenar(latencias);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.uteq.replay;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tokens de la reproducción por rol. Cada usuario seudónimo de la captura recibe un token fijo de su pool,
+ * repartidos por turno en orden de aparición; así N usuarios distintos siguen siendo N clientes distintos para
+ * el gateway (cubos de rate limit, caché de validación) mientras haya tokens suficientes.
+ */
+public class PoolTokens {
+
+    private final Map<String, List<String>> pools;
+    private final Map<String, String> porUsuario = new HashMap<>();
+    private final Map<String, Integer> turnos = new HashMap<>();
+
+    public PoolTokens(Map<String, List<String>> pools) {
+        this.pools = pools;
+    }
+
+    /** Asigna de antemano los tokens de todos los usuarios y avisa de los pools que se quedan cortos. */
+    public void asignar(List<EventoCapturado> eventos) {
+        Map<String, Set<String>> usuariosPorRol = new LinkedHashMap<>();
+        for (EventoCapturado evento : eventos) {
+            if (evento.role() != null && evento.user() != null) {
+                usuariosPorRol.computeIfAbsent(evento.role(), k -> new LinkedHashSet<>()).add(evento.user());
+                token(evento);
+            }
+        }
+        usuariosPorRol.forEach((rol, usuarios) -> {
+            List<String> pool = pool(rol);
+            if (pool.isEmpty()) {
+                System.err.printf("Aviso: %s sin tokens; sus %d usuarios irán sin Authorization%n", rol, usuarios.size());
+            } else if (pool.size() < usuarios.size()) {
+                System.err.printf("Aviso: %s tiene %d usuarios y %d tokens; hasta %d usuarios comparten token%n",
+                        rol, usuarios.size(), pool.size(), (usuarios.size() + pool.size() - 1) / pool.size());
+            }
+        });
+    }
+
+    /** Token con el que reproducir el evento; null si la petición original era anónima o no hay pool. */
+    public String token(EventoCapturado evento) {
+        if (evento.role() == null) {
+            return null;
+        }
+        List<String> pool = pool(evento.role());
+        if (pool.isEmpty()) {
+            return null;
+        }
+        if (evento.user() == null) {
+            // Captura sin usuario (anterior a este campo): todo el rol comparte el primer token
+            return pool.get(0);
+        }
+        return porUsuario.computeIfAbsent(evento.role() + "/" + evento.user(), k -> {
+            int turno = turnos.merge(evento.role(), 1, Integer::sum) - 1;
+            return pool.get(turno % pool.size());
+        });
+    }
+
+    private List<String> pool(String rol) {
+        List<String> pool = pools.get(rol);
+        return pool != null && !pool.isEmpty() ? pool : pools.getOrDefault(TrafficReplayApplication.TODOS, List.of());
+    }
+}
@@ -0,0 +1,239 @@
+package com.uteq.replay;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Reproduce contra un gateway el tráfico capturado por TrafficCaptureFilter y saca percentiles por endpoint.
+ * Sin Eureka ni servicios externos: sólo hace HTTP contra --target (p. ej. un gateway y ms-* levantados en local).
+ *
+ * <pre>
+ * java -jar traffic-replay.jar --file captura/ --target http://localhost:8000 --speed 4 \
+ *      --token ADMIN=eyJ... --token ALUMNO=eyJ... --token PROFESOR=eyJ...
+ * </pre>
+ * <ul>
+ *   <li>--file: fichero NDJSON o directorio (captura.ndjson y sus rotaciones); repetible.</li>
+ *   <li>--speed: 1 = ritmo original, N = N veces más rápido, 0 = sin pausas.</li>
+ *   <li>--token ROL=jwt: añade un token al pool de ese rol (repetible); --token jwt va al pool común.
+ *       --tokens-file ROL=fichero carga un pool entero (un token por línea). Cada usuario seudónimo de la captura
+ *       recibe siempre el mismo token de su pool, asignados por turno: con tantos tokens como usuarios se
+ *       conserva el reparto por usuario (límites por usuario, cachés por token). Si faltan tokens se avisa y
+ *       varios usuarios comparten uno. Las peticiones capturadas sin rol (login, rutas públicas) van sin
+ *       Authorization.</li>
+ *   <li>--concurrency (máximo en vuelo, 200), --timeout (10s), --report fichero.json (opcional).</li>
+ * </ul>
+ * La latencia se mide desde el instante previsto de envío, no desde que sale la petición: si el planificador se
+ * retrasa o --concurrency obliga a esperar, esa espera también la habría sufrido el usuario y entra en la
+ * muestra (sin esto los percentiles omiten justo las peticiones que llegan durante una parada).
+ */
+public class TrafficReplayApplication {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    static final String TODOS = "*";
+
+    public static void main(String[] args) throws Exception {
+        Opciones opciones = Opciones.leer(args);
+        List<EventoCapturado> eventos = cargar(opciones.ficheros);
+        if (eventos.isEmpty()) {
+            System.err.println("No hay eventos que reproducir");
+            System.exit(1);
+        }
+        System.out.printf("Reproduciendo %d peticiones contra %s (%s)%n", eventos.size(), opciones.destino,
+                opciones.velocidad == 0 ? "sin pausas" : opciones.velocidad + "x");
+
+        PoolTokens tokens = new PoolTokens(opciones.tokens);
+        tokens.asignar(eventos);
+
+        InformeLatencias informe = new InformeLatencias();
+        long retrasoMaximo = reproducir(eventos, opciones, tokens, informe);
+
+        informe.imprimir(System.out);
+        System.out.printf("Retraso máximo de envío (planificador y --concurrency): %d ms%n", retrasoMaximo);
+        if (opciones.informe != null) {
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(opciones.informe.toFile(), informe.aJson(MAPPER));
+        }
+    }
+
+    static List<EventoCapturado> cargar(List<Path> rutas) throws IOException {
+        List<EventoCapturado> eventos = new ArrayList<>();
+        for (Path ruta : rutas) {
+            List<Path> ficheros;
+            if (Files.isDirectory(ruta)) {
+                try (Stream<Path> contenido = Files.list(ruta)) {
+                    ficheros = contenido.filter(f -> f.getFileName().toString().contains(".ndjson")).sorted().toList();
+                }
+            } else {
+                ficheros = List.of(ruta);
+            }
+            for (Path fichero : ficheros) {
+                try (BufferedReader lector = Files.newBufferedReader(fichero, StandardCharsets.UTF_8)) {
+                    String linea;
+                    while ((linea = lector.readLine()) != null) {
+                        if (!linea.isBlank()) {
+                            eventos.add(MAPPER.readValue(linea, EventoCapturado.class));
+                        }
+                    }
+                }
+            }
+        }
+        eventos.sort(Comparator.comparingLong(EventoCapturado::ts));
+        return eventos;
+    }
+
+    /**
+     * Lanza cada petición en su instante relativo (dividido por la velocidad); devuelve el peor retraso en ms.
+     * Con --speed 0 el instante previsto es cuando le toca en el bucle, antes de esperar hueco en --concurrency.
+     */
+    private static long reproducir(List<EventoCapturado> eventos, Opciones opciones, PoolTokens tokens,
+                                   InformeLatencias informe) throws InterruptedException {
+        HttpClient cliente = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        Semaphore enVuelo = new Semaphore(opciones.concurrencia);
+        AtomicLong retrasoMaximo = new AtomicLong();
+        List<CompletableFuture<Void>> pendientes = new ArrayList<>(eventos.size());
+        long primero = eventos.get(0).ts();
+        long inicio = System.nanoTime();
+
+        for (EventoCapturado evento : eventos) {
+            long previsto = System.nanoTime();
+            if (opciones.velocidad > 0) {
+                previsto = inicio + (long) ((evento.ts() - primero) * 1_000_000 / opciones.velocidad);
+                long espera = previsto - System.nanoTime();
+                if (espera > 0) {
+                    Thread.sleep(espera / 1_000_000, (int) (espera % 1_000_000));
+                }
+            }
+            HttpRequest peticion = peticion(evento, opciones, tokens.token(evento));
+            enVuelo.acquire();
+            retrasoMaximo.accumulateAndGet((System.nanoTime() - previsto) / 1_000_000, Math::max);
+            long desde = previsto;
+            pendientes.add(cliente.sendAsync(peticion, HttpResponse.BodyHandlers.discarding())
+                    .handle((respuesta, error) -> {
+                        long micros = (System.nanoTime() - desde) / 1000;
+                        informe.registrar(evento, error != null ? 0 : respuesta.statusCode(), micros);
+                        enVuelo.release();
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(pendientes.toArray(CompletableFuture[]::new)).join();
+        return retrasoMaximo.get();
+    }
+
+    private static HttpRequest peticion(EventoCapturado evento, Opciones opciones, String token) {
+        String uri = opciones.destino + evento.path() + (evento.query() != null && !evento.query().isEmpty() ? "?" + evento.query() : "");
+        HttpRequest.BodyPublisher cuerpo = evento.body() != null && !evento.body().isNull()
+                ? HttpRequest.BodyPublishers.ofString(evento.body().toString())
+                : HttpRequest.BodyPublishers.noBody();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(uri))
+                .timeout(opciones.timeout)
+                .header("Accept", "application/json")
+                .method(evento.method(), cuerpo);
+        if (evento.body() != null && !evento.body().isNull()) {
+            builder.header("Content-Type", "application/json");
+        }
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private static final class Opciones {
+        final List<Path> ficheros = new ArrayList<>();
+        final Map<String, List<String>> tokens = new HashMap<>();
+        String destino = "http://localhost:8000";
+        double velocidad = 1;
+        int concurrencia = 200;
+        Duration timeout = Duration.ofSeconds(10);
+        Path informe;
+
+        static Opciones leer(String[] args) {
+            Opciones opciones = new Opciones();
+            for (int i = 0; i < args.length; i++) {
+                String nombre = args[i];
+                if (i + 1 >= args.length) {
+                    throw uso("Falta el valor de " + nombre);
+                }
+                String valor = args[++i];
+                switch (nombre) {
+                    case "--file" -> opciones.ficheros.add(Path.of(valor));
+                    case "--target" -> opciones.destino = valor.endsWith("/") ? valor.substring(0, valor.length() - 1) : valor;
+                    case "--speed" -> opciones.velocidad = Double.parseDouble(valor);
+                    case "--concurrency" -> opciones.concurrencia = Integer.parseInt(valor);
+                    case "--timeout" -> opciones.timeout = duracion(valor);
+                    case "--report" -> opciones.informe = Path.of(valor);
+                    case "--token" -> {
+                        int igual = valor.indexOf('=');
+                        // Un JWT no contiene '=' (base64url sin relleno), así que ROL=token no es ambiguo
+                        if (igual > 0) {
+                            opciones.pool(valor.substring(0, igual)).add(valor.substring(igual + 1));
+                        } else {
+                            opciones.pool(TODOS).add(valor);
+                        }
+                    }
+                    case "--tokens-file" -> {
+                        int igual = valor.indexOf('=');
+                        String rol = igual > 0 ? valor.substring(0, igual) : TODOS;
+                        opciones.pool(rol).addAll(leerTokens(Path.of(valor.substring(igual + 1))));
+                    }
+                    default -> throw uso("Opción desconocida " + nombre);
+                }
+            }
+            if (opciones.ficheros.isEmpty()) {
+                throw uso("Indica al menos un --file");
+            }
+            if (opciones.velocidad < 0 || opciones.concurrencia < 1) {
+                throw uso("--speed debe ser >= 0 y --concurrency >= 1");
+            }
+            return opciones;
+        }
+
+        private List<String> pool(String rol) {
+            return tokens.computeIfAbsent(rol, k -> new ArrayList<>());
+        }
+
+        private static List<String> leerTokens(Path fichero) {
+            try (Stream<String> lineas = Files.lines(fichero, StandardCharsets.UTF_8)) {
+                return lineas.map(String::trim).filter(l -> !l.isEmpty() && !l.startsWith("#")).toList();
+            } catch (IOException e) {
+                throw uso("No se pudo leer " + fichero + ": " + e.getMessage());
+            }
+        }
+
+        private static Duration duracion(String valor) {
+            if (valor.endsWith("ms")) {
+                return Duration.ofMillis(Long.parseLong(valor.substring(0, valor.length() - 2)));
+            }
+            if (valor.endsWith("s")) {
+                return Duration.ofSeconds(Long.parseLong(valor.substring(0, valor.length() - 1)));
+            }
+            return Duration.ofMillis(Long.parseLong(valor));
+        }
+
+        private static IllegalArgumentException uso(String mensaje) {
+            return new IllegalArgumentException(mensaje + ". Uso: --file captura.ndjson [--target http://localhost:8000]"
+                    + " [--speed 1] [--token ROL=jwt] [--tokens-file ROL=tokens.txt] [--concurrency 200] [--timeout 10s]"
+                    + " [--report informe.json]");
+        }
+    }
+}